@@ -23,6 +23,14 @@ public abstract class AbstractPanelController
      */
     abstract void update();
     
+    /**
+     * Manipulates the view when more listings have been loaded in the background.
+     * By default the whole view is updated.
+     */
+    void updateLoadedListings() {
+        update();
+    }
+    
     /**
      * Sets the controller object's root node and initialises GUI elements within the view
      * @param root The root node of the controller 
@@ -1,6 +1,26 @@
 import java.io.*;
-import java.util.ArrayList;
-import com.opencsv.CSVReader;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Spliterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.util.zip.GZIPInputStream;
 
 /**
  * This file is part of "Property Hunter"
@@ -9,84 +29,1154 @@ import com.opencsv.CSVReader;
  * A AirbnbDataLoader represents a class that can load external data of
  * the Airbnb dataset stored in a CSV file, ready for manipulation.
  *
+ * The file is memory-mapped and split into byte ranges which always begin on a
+ * record boundary (see ChunkLayout), so that each range can be parsed independently
+ * on a fork-join pool. The parsed ranges are appended to a ListingStore in file
+ * order as they complete, so the store can be read while it loads, or can be
+ * streamed one range at a time without keeping the whole data set.
+ *
+ * A CSV file compressed with gzip (ending in ".csv.gz") is read without decompressing
+ * it to disk first. One thread decompresses it into a bounded queue of blocks, while
+ * the loading thread cuts the blocks into record-aligned chunks for the pool to parse,
+ * so that decompression and parsing overlap.
+ *
+ * The positions of the columns are read from the header row (see ListingColumns), so
+ * either the summary export or the full export of Inside Airbnb can be loaded, and
+ * only the columns the application uses are converted. When the CSV file is a plain
+ * file, property names are not kept in memory but read back from the file when they
+ * are shown, using the offset of each record.
+ *
+ * A record which cannot be converted, such as one with a price which is not a number,
+ * is left out and kept in a LoadQuarantine with the reason, rather than stopping the
+ * load. The quarantine of the latest load can be read from getQuarantine().
+ *
+ * When the CSV file is a plain file on disk, a binary snapshot of the parsed
+ * listings is kept next to it (see ListingSnapshot), and later loads read the
+ * snapshot instead of parsing, for as long as the CSV file is unchanged.
+ * The rows are kept in the columns of a ListingStore.
+ *
  * @author KCL Informatics, Ubayd Khan (k20044237), Mohammed Chowdhury (k21074018), Omar Ahmad (k210524117), Muhammad Beg (k21057641)
  * @version 30.03.2022
  */
 
 public class AirbnbDataLoader {
- 
-    /** 
-     * Return an ArrayList containing the rows in the AirBnB London data set csv file.
-     */
-    public ArrayList<AirbnbListing> load() {
-        System.out.print("Begin loading Airbnb london dataset...");
-        ArrayList<AirbnbListing> listings = new ArrayList<AirbnbListing>();
-        try{
-            // Use InputStream to handle running from jar file
-            InputStream is = getClass().getResourceAsStream("airbnb-london.csv");
-            CSVReader reader = new CSVReader(new InputStreamReader(is));
-
-            String [] line;
-            //skip the first row (column headers)
-            reader.readNext();
-            while ((line = reader.readNext()) != null) {
-                String id = line[0];
-                String name = line[1];
-                String host_id = line[2];
-                String host_name = line[3];
-                String neighbourhood = line[4];
-                double latitude = convertDouble(line[5]);
-                double longitude = convertDouble(line[6]);
-                String room_type = line[7];
-                int price = convertInt(line[8]);
-                int minimumNights = convertInt(line[9]);
-                int numberOfReviews = convertInt(line[10]);
-                String lastReview = line[11];
-                double reviewsPerMonth = convertDouble(line[12]);
-                int calculatedHostListingsCount = convertInt(line[13]);
-                int availability365 = convertInt(line[14]);
-
-                AirbnbListing listing = new AirbnbListing(id, name, host_id,
-                        host_name, neighbourhood, latitude, longitude, room_type,
-                        price, minimumNights, numberOfReviews, lastReview,
-                        reviewsPerMonth, calculatedHostListingsCount, availability365
-                    );
-                listings.add(listing);
-            }
-        } catch(IOException e ){
+
+    private static final String DATASET_RESOURCE = "airbnb-london.csv";
+    private static final String SNAPSHOT_EXTENSION = ".snapshot";
+    private static final String COMPRESSED_EXTENSION = ".gz";
+
+    // the approximate number of bytes parsed by a single task
+    private static final int CHUNK_SIZE = 256 * 1024;
+
+    // the number of recent values kept per chunk for text columns which repeat
+    private static final int NEIGHBOURHOOD_CACHE_SIZE = 64;
+    private static final int ROOM_TYPE_CACHE_SIZE = 8;
+    private static final int HOST_NAME_CACHE_SIZE = 1024;
+
+    // the number of decompressed blocks which may wait to be cut into chunks
+    private static final int DECOMPRESSED_QUEUE_SIZE = 8;
+    // the number of chunks which may wait to be parsed, per thread of the pool
+    private static final int CHUNKS_IN_FLIGHT_PER_THREAD = 2;
+
+    private final URL source;
+    private final ForkJoinPool pool;
+    // the positions of the columns, read from the header row by the latest load of a plain CSV file
+    private volatile ListingColumns columns;
+    // the records rejected by the latest load, and by loadAppended since
+    private volatile LoadQuarantine quarantine = new LoadQuarantine();
+    // the first row of the store which the latest load appended
+    private volatile int firstRow;
+
+    /**
+     * Creates a loader for the London data set which parses on the common fork-join pool.
+     */
+    public AirbnbDataLoader() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a loader for the London data set which parses on the given fork-join pool.
+     * @param pool The pool the parsing tasks are submitted to
+     */
+    public AirbnbDataLoader(ForkJoinPool pool) {
+        this(AirbnbDataLoader.class.getResource(DATASET_RESOURCE), pool);
+    }
+
+    /**
+     * Creates a loader for any data set in the same format, such as another city or
+     * another scrape date, which parses on the common fork-join pool.
+     * @param source The location of the CSV file
+     */
+    public AirbnbDataLoader(URL source) {
+        this(source, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a loader for any data set in the same format.
+     * @param source The location of the CSV file
+     * @param pool The pool the parsing tasks are submitted to
+     */
+    public AirbnbDataLoader(URL source, ForkJoinPool pool) {
+        this.source = source;
+        this.pool = pool;
+    }
+
+    /**
+     * Return a ListingStore containing the rows in the data set csv file.
+     */
+    public ListingStore load() {
+        ListingStore listings = new ListingStore();
+        load(listings);
+        return listings;
+    }
+
+    /**
+     * Appends the rows in the data set csv file to the end of a store, in
+     * file order. Rows are published as soon as every chunk before them has been parsed,
+     * so another thread may read the store's rows while it is being loaded. The store is
+     * marked complete when loading ends, whether or not it succeeded. Only whole records
+     * of a plain CSV file are loaded, and the stats hold the offset just past the last
+     * one, which loadAppended can carry on from.
+     * @param listings The store the rows are appended to
+     * @return The time and memory each phase of loading took, and what was loaded
+     */
+    public LoaderStats load(ListingStore listings) {
+        LoaderStats stats = new LoaderStats(getDatasetName());
+        long loadStart = System.nanoTime();
+        long allocatedBefore = LoaderStats.getCurrentThreadAllocatedBytes();
+        int sizeBefore = listings.size();
+        quarantine = stats.getQuarantine();
+        firstRow = sizeBefore;
+        System.out.print("Begin loading Airbnb dataset " + getDatasetName() + "...");
+        try {
+            long phaseStart = System.nanoTime();
+            ByteBuffer data = readSource(source);
+            if (!isCompressed()) {
+                // as in loadAppended, a last record still being written is left for later
+                data = data.slice(0, ChunkLayout.findLastRecordEnd(data, 0));
+            }
+            long checksum = ListingSnapshot.checksum(data);
+            Path snapshot = getSnapshotPath(source);
+            boolean keepNames = true;
+            if (!isCompressed()) {
+                columns = readColumns(data);
+                keepNames = !useNameReader(listings, columns);
+            }
+            phaseStart = endPhase(stats, LoadPhase.READ, phaseStart);
+
+            ListingStore snapshotListings = null;
+            if (snapshot != null) {
+                snapshotListings = ListingSnapshot.read(snapshot, data.limit(), checksum, quarantine);
+                phaseStart = endPhase(stats, LoadPhase.SNAPSHOT_READ, phaseStart);
+            }
+
+            if (snapshotListings != null) {
+                listings.setExpectedSize(listings.size() + snapshotListings.size());
+                listings.addAll(snapshotListings);
+            } else {
+                if (isCompressed()) {
+                    parseCompressed(listings, stats);
+                } else {
+                    ChunkLayout layout = findChunks(data);
+                    phaseStart = endPhase(stats, LoadPhase.SPLIT, phaseStart);
+                    listings.setExpectedSize(listings.size() + layout.getTotalRows());
+                    parseChunks(data, layout, listings, keepNames, stats);
+                }
+                quarantine.numberRecords(listings, sizeBefore);
+                phaseStart = endPhase(stats, LoadPhase.PARSE, phaseStart);
+                writeSnapshot(snapshot, data.limit(), checksum, listings, sizeBefore, quarantine);
+                endPhase(stats, LoadPhase.SNAPSHOT_WRITE, phaseStart);
+            }
+            stats.setBytes(data.limit());
+            stats.setSuccessful(true);
+        } catch(IOException | RuntimeException e ){
+            // e.g. an IllegalArgumentException from mapping a file over 2 GB
+            stats.setFailure(e);
             System.out.println("Failure! Something went wrong");
             e.printStackTrace();
+        } finally {
+            listings.markComplete();
+            stats.setRows(listings.size() - sizeBefore);
+            stats.addAllocatedBytes(LoaderStats.getCurrentThreadAllocatedBytes() - allocatedBefore);
+            stats.setTotalNanos(System.nanoTime() - loadStart);
         }
         System.out.println("Success! Number of loaded records: " + listings.size());
-        return listings;
+        if (quarantine.getRejectedCount() > 0) {
+            System.out.println("Rejected " + quarantine.getRejectedCount() + " malformed records, the first being: "
+                    + quarantine.getRows().get(0));
+        }
+        System.out.println(stats.toLogLine());
+        return stats;
     }
 
     /**
-     * Converts a given String into a Double.
-     *
-     * @param doubleString the string to be converted to Double type
-     * @return the Double value of the string, or -1.0 if the string is 
-     * either empty or just whitespace
+     * Adds the time since a phase started to the stats
+     * @return The time the phase ended, which the next phase starts from
+     */
+    private static long endPhase(LoaderStats stats, LoadPhase phase, long phaseStart) {
+        long now = System.nanoTime();
+        stats.addNanos(phase, now - phaseStart);
+        return now;
+    }
+
+    /**
+     * Appends the records which have been added to the end of the CSV file since it was
+     * last read, without reading the rest of the file again. Only whole records are read;
+     * a record which is still being written is left for the next call. Records which
+     * cannot be converted join the quarantine of the latest load. The file must have been
+     * loaded first, since the positions of the columns are read from its header then.
+     * @param listings The store the new rows are appended to
+     * @param offset The number of bytes of the CSV file which have already been read
+     * @return The number of bytes of the CSV file which have now been read
+     */
+    public long loadAppended(ListingStore listings, long offset) throws IOException {
+        Path csv = getDatasetPath();
+        if (csv == null || isCompressed()) {
+            throw new IOException("The data set is not a plain CSV file, so cannot be appended to");
+        }
+        try (FileChannel channel = FileChannel.open(csv, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length < offset) {
+                throw new IOException("The data set has been truncated from " + offset + " to " + length + " bytes");
+            }
+            if (length == offset) {
+                return offset;
+            }
+            ListingColumns loadedColumns = columns;
+            if (loadedColumns == null) {
+                throw new IOException("The data set has not been loaded, so its columns are not known");
+            }
+            boolean keepNames = !useNameReader(listings, loadedColumns);
+            ByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, offset, length - offset);
+            // the last record read may not have had its line break yet
+            int start = 0;
+            while (start < data.limit() && (data.get(start) == '\n' || data.get(start) == '\r')) {
+                start++;
+            }
+            int end = ChunkLayout.findLastRecordEnd(data, start);
+            if (end > start) {
+                listings.addAll(parseChunk(data, offset, start, end, 0, loadedColumns, keepNames, null, quarantine));
+                quarantine.numberRecords(listings, firstRow);
+            }
+            return offset + end;
+        }
+    }
+
+    /**
+     * @return The records the latest load rejected, and any rejected since by loadAppended
+     */
+    public LoadQuarantine getQuarantine() {
+        return quarantine;
+    }
+
+    /**
+     * @return The path of the CSV file, or null if it is not a plain file
+     * (e.g. when running from a jar file)
+     */
+    public Path getDatasetPath() {
+        return getSourcePath(source);
+    }
+
+    /**
+     * @return If the CSV file is compressed with gzip
+     */
+    public boolean isCompressed() {
+        return getDatasetName().endsWith(COMPRESSED_EXTENSION);
+    }
+
+    /**
+     * @return The file name of the CSV file
      */
-    private Double convertDouble(String doubleString){
-        if(doubleString != null && !doubleString.trim().equals("")){
-            return Double.parseDouble(doubleString);
+    public String getDatasetName() {
+        if (source == null) {
+            return DATASET_RESOURCE;
         }
-        return -1.0;
+        String path = source.getPath();
+        return path.substring(path.lastIndexOf('/') + 1);
     }
 
     /**
-     * Converts a given String into an Integer.
+     * Returns the rows of the data set as a stream which parses the CSV file as it is
+     * consumed, one chunk at a time, rather than loading every row first. Only the rows
+     * of the chunks currently being parsed are held, so aggregations over the stream
+     * run in a bounded heap however large the file is.
      *
-     * @param intString the string to be converted to Integer type
-     * @return the Integer value of the string, or -1 if the string is 
-     * either empty or just whitespace
+     * The stream is ordered and splits on chunk boundaries, so it may also be made
+     * parallel. A file compressed with gzip is instead decompressed on another thread
+     * a few blocks ahead of the stream, which then does not split.
+     *
+     * Records which cannot be converted are left out of the stream, so its size is
+     * only known once it has been consumed. Listings from the stream are only valid
+     * until the stream is closed, and are not kept by the loader.
+     *
+     * @return A stream of every row in the data set, in file order
+     */
+    public Stream<AirbnbListing> stream() throws IOException {
+        if (isCompressed()) {
+            Decompressor decompressor = new Decompressor(source, CHUNK_SIZE, DECOMPRESSED_QUEUE_SIZE,
+                                                         new LoaderStats(getDatasetName()));
+            Thread thread = new Thread(decompressor, "listing-stream-decompressor");
+            thread.setDaemon(true);
+            thread.start();
+            return StreamSupport.stream(new CompressedListingSpliterator(new CompressedChunks(decompressor)), false)
+                                .onClose(decompressor::stop);
+        }
+        ByteBuffer data = readSource(source);
+        // the stream's own columns, so a stream never changes the columns of a load
+        ListingColumns streamColumns = readColumns(data);
+        ChunkLayout layout = findChunks(data);
+        return StreamSupport.stream(new ListingSpliterator(data, layout, streamColumns, 0, layout.getChunkCount()),
+                                    false);
+    }
+
+    /**
+     * Reads the CSV file. A plain file on disk is memory-mapped rather than copied
+     * onto the heap.
+     * @param source The location of the CSV file
+     * @return The contents of the CSV file
+     */
+    private ByteBuffer readSource(URL source) throws IOException {
+        if (source == null) {
+            throw new FileNotFoundException("Data set " + DATASET_RESOURCE + " not found");
+        }
+        Path csv = getSourcePath(source);
+        if (csv != null) {
+            try (FileChannel channel = FileChannel.open(csv, StandardOpenOption.READ)) {
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+        }
+        // Use InputStream to handle running from jar file
+        try (InputStream is = source.openStream()) {
+            return ByteBuffer.wrap(is.readAllBytes());
+        }
+    }
+
+    /**
+     * @param source The location of the CSV file
+     * @return The path of the CSV file, or null if it is not a plain file
+     * (e.g. when running from a jar file)
      */
-    private Integer convertInt(String intString){
-        if(intString != null && !intString.trim().equals("")){
-            return Integer.parseInt(intString);
+    private Path getSourcePath(URL source) {
+        if (source == null || !"file".equals(source.getProtocol())) {
+            return null;
+        }
+        try {
+            return Paths.get(source.toURI());
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            return null;
         }
-        return -1;
     }
 
+    /**
+     * Gets the location of the snapshot belonging to the CSV file.
+     * @param source The location of the CSV file
+     * @return The location of the snapshot, or null if the CSV file is not a plain file
+     */
+    private Path getSnapshotPath(URL source) {
+        Path csv = getSourcePath(source);
+        if (csv == null) {
+            return null;
+        }
+        return csv.resolveSibling(csv.getFileName() + SNAPSHOT_EXTENSION);
+    }
+
+    /**
+     * Writes a snapshot of the parsed listings. Failing to do so only costs
+     * the next load its shortcut, so it does not fail this load.
+     * @param snapshot The location of the snapshot, or null if none should be written
+     * @param sourceLength The length of the CSV file
+     * @param sourceChecksum The checksum of the CSV file
+     * @param listings The store the listings were parsed into
+     * @param fromRow The first row parsed from the CSV file
+     */
+    private void writeSnapshot(Path snapshot, long sourceLength, long sourceChecksum, ListingStore listings,
+                               int fromRow, LoadQuarantine quarantine) {
+        if (snapshot == null) {
+            return;
+        }
+        try {
+            ListingSnapshot.write(snapshot, sourceLength, sourceChecksum, listings, fromRow, quarantine);
+        } catch (IOException e) {
+            System.out.print("(could not write snapshot: " + e.getMessage() + ")...");
+        }
+    }
+
+    /**
+     * Splits the records of the CSV file into chunks of roughly CHUNK_SIZE bytes.
+     * @param data The contents of the CSV file
+     * @return The record-aligned chunks, not including the column headers
+     */
+    private ChunkLayout findChunks(ByteBuffer data) {
+        //skip the first row (column headers)
+        return ChunkLayout.of(data, ChunkLayout.skipRecord(data, 0), CHUNK_SIZE, pool);
+    }
+
+    /**
+     * Reads the positions of the columns from the header row of the CSV file.
+     * @param data The contents of the CSV file, starting with the header row
+     * @return The positions of the columns
+     */
+    private static ListingColumns readColumns(ByteBuffer data) throws IOException {
+        byte[] header = new byte[ChunkLayout.skipRecord(data, 0)];
+        data.get(0, header);
+        CsvTokenizer tokenizer = new CsvTokenizer(header, 0, header.length);
+        if (!tokenizer.nextRecord()) {
+            throw new IOException("The data set has no header row");
+        }
+        return ListingColumns.fromHeader(tokenizer);
+    }
+
+    /**
+     * Lets a store read property names from the CSV file when they are asked for, rather
+     * than keeping them, if the CSV file is a plain file on disk.
+     * @param listings The store the rows are appended to
+     * @param columns The positions of the columns in the CSV file
+     * @return If names should be left out of the rows, to be read when asked for
+     */
+    private boolean useNameReader(ListingStore listings, ListingColumns columns) {
+        Path csv = getDatasetPath();
+        int nameField = columns.get(ListingColumn.NAME);
+        if (csv == null || isCompressed() || nameField == -1) {
+            return false;
+        }
+        listings.setNameReader(new RecordFieldReader(csv), nameField);
+        return true;
+    }
+
+    /**
+     * Parses every chunk on the pool and appends the results to a store in file order.
+     * @param data The contents of the CSV file
+     * @param layout The record-aligned chunks of the file
+     * @param listings The store the rows of every chunk are appended to
+     * @param keepNames If property names should be kept, rather than read when asked for
+     * @param stats The stats the parsing is recorded in
+     */
+    private void parseChunks(ByteBuffer data, ChunkLayout layout, ListingStore listings, boolean keepNames,
+                             LoaderStats stats) {
+        ChunkPublisher publisher = new ChunkPublisher(listings);
+        pool.invoke(new ChunkParseTask(this, data, layout, columns, publisher, keepNames, stats, 0,
+                                       layout.getChunkCount()));
+    }
+
+    /**
+     * Loads a CSV file compressed with gzip. A Decompressor thread fills a bounded queue
+     * with blocks of decompressed bytes. This thread joins each block onto the unfinished
+     * record left over from the previous one, cuts it at its last record boundary, and
+     * submits the chunk to the pool, so decompressing, cutting and parsing all overlap.
+     * The number of chunks waiting to be parsed is also bounded, so a slow stage holds
+     * back the ones before it rather than letting blocks pile up in memory.
+     * @param listings The store the rows of every chunk are appended to
+     * @param stats The stats the parsing is recorded in
+     */
+    private void parseCompressed(ListingStore listings, LoaderStats stats) throws IOException {
+        Decompressor decompressor = new Decompressor(source, CHUNK_SIZE, DECOMPRESSED_QUEUE_SIZE, stats);
+        Thread thread = new Thread(decompressor, "listing-decompressor");
+        thread.setDaemon(true);
+        thread.start();
+
+        ChunkPublisher publisher = new ChunkPublisher(listings);
+        int maxInFlight = pool.getParallelism() * CHUNKS_IN_FLIGHT_PER_THREAD;
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        try {
+            CompressedChunks chunks = new CompressedChunks(decompressor);
+            int chunk = 0;
+            while (chunks.next()) {
+                submitChunk(chunks.getData(), chunks.getDataOffset(), chunks.getFrom(), chunks.getTo(), chunks.getColumns(),
+                            chunk++, publisher, inFlight, failure, stats);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while loading " + getDatasetName());
+        } finally {
+            decompressor.stop();
+            // wait for every chunk in flight, so nothing is appended after loading ends
+            inFlight.acquireUninterruptibly(maxInFlight);
+        }
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+    }
+
+    /**
+     * Parses a chunk on the pool once there is room for another chunk in flight
+     */
+    private void submitChunk(ByteBuffer data, long dataOffset, int from, int to, ListingColumns columns, int chunk,
+                             ChunkPublisher publisher, Semaphore inFlight, AtomicReference<RuntimeException> failure,
+                             LoaderStats stats) throws InterruptedException {
+        inFlight.acquire();
+        pool.execute(() -> {
+            long allocatedBefore = LoaderStats.getCurrentThreadAllocatedBytes();
+            try {
+                publisher.publish(chunk, parseChunk(data, dataOffset, from, to, 0, columns, true, stats,
+                                                    stats.getQuarantine()));
+            } catch (RuntimeException e) {
+                failure.compareAndSet(null, e);
+            } finally {
+                stats.addAllocatedBytes(LoaderStats.getCurrentThreadAllocatedBytes() - allocatedBefore);
+                inFlight.release();
+            }
+        });
+    }
+
+    /**
+     * Parses the records between two record boundaries, with the columns of the latest load,
+     * or the columns of the London data set before any load.
+     * @param data The contents of the CSV file
+     * @param from The offset of the first record of the chunk
+     * @param to The offset just past the last record of the chunk
+     * @param rows The number of records in the chunk, if known, or 0
+     * @return The rows within the chunk, in file order
+     */
+    ListingStore parseChunk(ByteBuffer data, int from, int to, int rows) {
+        return parseChunk(data, 0, from, to, rows, columns == null ? ListingColumns.SUMMARY : columns, true, null,
+                          null);
+    }
+
+    /**
+     * Parses the records between two record boundaries, timing the steps of one record
+     * in LoaderStats.SAMPLE_INTERVAL, chosen at random.
+     * @param data Part of the contents of the CSV file
+     * @param dataOffset The offset of the data within the CSV file
+     * @param from The offset of the first record of the chunk within the data
+     * @param to The offset just past the last record of the chunk within the data
+     * @param rows The number of records in the chunk, if known, or 0
+     * @param columns The positions of the columns in the CSV file
+     * @param keepNames If property names should be kept, rather than read when asked for
+     * @param stats The stats the parsing is recorded in, or null if it should not be
+     * @param quarantine Where records which cannot be converted are kept, or null if they are just left out
+     * @return The rows within the chunk, in file order
+     */
+    ListingStore parseChunk(ByteBuffer data, long dataOffset, int from, int to, int rows, ListingColumns columns,
+                            boolean keepNames, LoaderStats stats, LoadQuarantine quarantine) {
+        ListingStore listings = rows > 0 ? new ListingStore(rows) : new ListingStore();
+        CsvTokenizer tokenizer;
+        // the offset within the CSV file of the tokenizer's first byte
+        long tokenizerOffset;
+        if (data.hasArray()) {
+            tokenizer = new CsvTokenizer(data.array(), data.arrayOffset() + from, data.arrayOffset() + to);
+            tokenizerOffset = dataOffset - data.arrayOffset();
+        } else {
+            // a mapped file is copied a chunk at a time
+            byte[] chunk = new byte[to - from];
+            data.get(from, chunk);
+            tokenizer = new CsvTokenizer(chunk, 0, chunk.length);
+            tokenizerOffset = dataOffset + from;
+        }
+        RowParser parser = new RowParser(listings, tokenizer, tokenizerOffset, columns, keepNames, quarantine);
+
+        if (stats == null) {
+            while (tokenizer.nextRecord()) {
+                parser.addListing(null);
+            }
+            return listings;
+        }
+
+        long[] convertedAt = new long[1];
+        // records are sampled at random, since every 32nd record would always include
+        // the ones which make the columns grow
+        int random = from | 1;
+        while (true) {
+            random ^= random << 13;
+            random ^= random >>> 17;
+            random ^= random << 5;
+            if ((random & (LoaderStats.SAMPLE_INTERVAL - 1)) != 0) {
+                if (!tokenizer.nextRecord()) {
+                    break;
+                }
+                parser.addListing(null);
+                continue;
+            }
+            long start = System.nanoTime();
+            if (!tokenizer.nextRecord()) {
+                break;
+            }
+            long tokenized = System.nanoTime();
+            if (parser.addListing(convertedAt)) {
+                stats.addSample(tokenized - start, convertedAt[0] - tokenized, System.nanoTime() - convertedAt[0]);
+            }
+        }
+        stats.addParsedRows(listings.size());
+        return listings;
+    }
+
+    /**
+     * Converts the records of a tokenizer into rows of a store, reading each field from
+     * its column's position in the header. Columns the data set does not have are left
+     * empty, as -1 or an empty string. A record which cannot be converted goes to the
+     * quarantine instead; only then is the record looked at again to find out why.
+     */
+    private static class RowParser {
+        private final ListingStore listings;
+        private final CsvTokenizer tokenizer;
+        private final long tokenizerOffset;
+        private final ListingColumns columns;
+        private final boolean keepNames;
+        private final LoadQuarantine quarantine;
+
+        private final int id;
+        private final int name;
+        private final int hostId;
+        private final int hostName;
+        private final int neighbourhood;
+        private final int latitude;
+        private final int longitude;
+        private final int roomType;
+        private final int price;
+        private final int minimumNights;
+        private final int numberOfReviews;
+        private final int lastReview;
+        private final int reviewsPerMonth;
+        private final int calculatedHostListingsCount;
+        private final int availability365;
+
+        // boroughs and room types repeat on almost every row, and many hosts have several
+        private final CsvTokenizer.TextCache neighbourhoods = new CsvTokenizer.TextCache(NEIGHBOURHOOD_CACHE_SIZE);
+        private final CsvTokenizer.TextCache roomTypes = new CsvTokenizer.TextCache(ROOM_TYPE_CACHE_SIZE);
+        private final CsvTokenizer.TextCache hostNames = new CsvTokenizer.TextCache(HOST_NAME_CACHE_SIZE);
+
+        RowParser(ListingStore listings, CsvTokenizer tokenizer, long tokenizerOffset, ListingColumns columns,
+                  boolean keepNames, LoadQuarantine quarantine) {
+            this.listings = listings;
+            this.tokenizer = tokenizer;
+            this.tokenizerOffset = tokenizerOffset;
+            this.columns = columns;
+            this.keepNames = keepNames;
+            this.quarantine = quarantine;
+            id = columns.get(ListingColumn.ID);
+            name = columns.get(ListingColumn.NAME);
+            hostId = columns.get(ListingColumn.HOST_ID);
+            hostName = columns.get(ListingColumn.HOST_NAME);
+            neighbourhood = columns.get(ListingColumn.NEIGHBOURHOOD);
+            latitude = columns.get(ListingColumn.LATITUDE);
+            longitude = columns.get(ListingColumn.LONGITUDE);
+            roomType = columns.get(ListingColumn.ROOM_TYPE);
+            price = columns.get(ListingColumn.PRICE);
+            minimumNights = columns.get(ListingColumn.MINIMUM_NIGHTS);
+            numberOfReviews = columns.get(ListingColumn.NUMBER_OF_REVIEWS);
+            lastReview = columns.get(ListingColumn.LAST_REVIEW);
+            reviewsPerMonth = columns.get(ListingColumn.REVIEWS_PER_MONTH);
+            calculatedHostListingsCount = columns.get(ListingColumn.CALCULATED_HOST_LISTINGS_COUNT);
+            availability365 = columns.get(ListingColumn.AVAILABILITY_365);
+        }
+
+        /**
+         * Adds the current record of the tokenizer to the end of the store, or to the
+         * quarantine if it cannot be converted
+         * @param convertedAt Where to record the time the fields were parsed, or null if the record is not timed
+         * @return If the record was added to the store
+         */
+        boolean addListing(long[] convertedAt) {
+            try {
+                addRow(convertedAt);
+                return true;
+            } catch (NumberFormatException | DateTimeException | IndexOutOfBoundsException e) {
+                if (quarantine != null) {
+                    quarantine.add(new RejectedRow(tokenizerOffset + tokenizer.getRecordStart(), getReason(e)));
+                }
+                return false;
+            }
+        }
+
+        /**
+         * Adds the current record of the tokenizer to the end of the store. Numeric fields
+         * are parsed straight from the tokenizer, and empty ones become -1.
+         * @param convertedAt Where to record the time the fields were parsed, or null if the record is not timed
+         */
+        private void addRow(long[] convertedAt) {
+            String id = getText(this.id, null);
+            String name = keepNames ? getText(this.name, null) : null;
+            String host_id = getText(hostId, null);
+            String host_name = getText(hostName, hostNames);
+            String neighbourhood = getText(this.neighbourhood, neighbourhoods);
+            double latitude = getDouble(this.latitude);
+            double longitude = getDouble(this.longitude);
+            String room_type = getText(roomType, roomTypes);
+            int price = this.price == -1 ? -1 : tokenizer.getAmount(this.price);
+            int minimumNights = getInt(this.minimumNights);
+            int numberOfReviews = getInt(this.numberOfReviews);
+            int lastReviewDay = getEpochDay(lastReview);
+            double reviewsPerMonth = getDouble(this.reviewsPerMonth);
+            int calculatedHostListingsCount = getInt(this.calculatedHostListingsCount);
+            int availability365 = getInt(this.availability365);
+
+            if (convertedAt != null) {
+                convertedAt[0] = System.nanoTime();
+            }
+            listings.add(tokenizerOffset + tokenizer.getRecordStart(), id, name, host_id,
+                    host_name, neighbourhood, latitude, longitude, room_type,
+                    price, minimumNights, numberOfReviews, lastReviewDay,
+                    reviewsPerMonth, calculatedHostListingsCount, availability365
+                );
+        }
+
+        /**
+         * Finds the first column of the current record which cannot be converted
+         * @param e What went wrong while converting the whole record
+         * @return Why the record was rejected
+         */
+        private String getReason(RuntimeException e) {
+            for (ListingColumn column : ListingColumn.values()) {
+                int field = columns.get(column);
+                if (field == -1) {
+                    continue;
+                }
+                try {
+                    convert(column, field);
+                } catch (RuntimeException columnError) {
+                    return column.name().toLowerCase(Locale.ROOT) + ": " + columnError.getMessage();
+                }
+            }
+            return e.toString();
+        }
+
+        private void convert(ListingColumn column, int field) {
+            switch (column) {
+                case PRICE:
+                    tokenizer.getAmount(field);
+                    break;
+                case LATITUDE:
+                case LONGITUDE:
+                case REVIEWS_PER_MONTH:
+                    tokenizer.getDouble(field);
+                    break;
+                case MINIMUM_NIGHTS:
+                case NUMBER_OF_REVIEWS:
+                case CALCULATED_HOST_LISTINGS_COUNT:
+                case AVAILABILITY_365:
+                    tokenizer.getInt(field);
+                    break;
+                case LAST_REVIEW:
+                    tokenizer.getEpochDay(field);
+                    break;
+                default:
+                    tokenizer.getText(field);
+            }
+        }
+
+        private String getText(int field, CsvTokenizer.TextCache cache) {
+            if (field == -1) {
+                return "";
+            }
+            return cache == null ? tokenizer.getText(field) : tokenizer.getText(field, cache);
+        }
+
+        private int getInt(int field) {
+            return field == -1 ? -1 : tokenizer.getInt(field);
+        }
+
+        private int getEpochDay(int field) {
+            return field == -1 ? ListingStore.NO_REVIEW : tokenizer.getEpochDay(field);
+        }
+
+        private double getDouble(int field) {
+            return field == -1 ? -1.0 : tokenizer.getDouble(field);
+        }
+    }
+
+    /**
+     * Parses a range of chunks, splitting the range in half until a single
+     * chunk remains. The rows of each chunk are handed to the publisher.
+     */
+    private static class ChunkParseTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final AirbnbDataLoader loader;
+        private final ByteBuffer data;
+        private final ChunkLayout layout;
+        private final ListingColumns columns;
+        private final ChunkPublisher publisher;
+        private final boolean keepNames;
+        private final LoaderStats stats;
+        private final int lo;
+        private final int hi;
+
+        ChunkParseTask(AirbnbDataLoader loader, ByteBuffer data, ChunkLayout layout, ListingColumns columns,
+                       ChunkPublisher publisher, boolean keepNames, LoaderStats stats, int lo, int hi) {
+            this.loader = loader;
+            this.data = data;
+            this.layout = layout;
+            this.columns = columns;
+            this.publisher = publisher;
+            this.keepNames = keepNames;
+            this.stats = stats;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo == 1) {
+                long allocatedBefore = LoaderStats.getCurrentThreadAllocatedBytes();
+                publisher.publish(lo, loader.parseChunk(data, 0, layout.getStart(lo), layout.getEnd(lo),
+                                                        layout.getRowCount(lo), columns, keepNames, stats,
+                                                        stats.getQuarantine()));
+                stats.addAllocatedBytes(LoaderStats.getCurrentThreadAllocatedBytes() - allocatedBefore);
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new ChunkParseTask(loader, data, layout, columns, publisher, keepNames, stats, lo, mid),
+                      new ChunkParseTask(loader, data, layout, columns, publisher, keepNames, stats, mid, hi));
+        }
+    }
+
+    /**
+     * Appends parsed chunks to a store in file order, although they finish parsing in
+     * any order. A chunk is appended once every chunk before it has been, by whichever
+     * thread gets there first, so the store only ever has one writer at a time. The
+     * number of chunks need not be known in advance.
+     */
+    private static class ChunkPublisher {
+        private final ConcurrentHashMap<Integer, ListingStore> parts = new ConcurrentHashMap<>();
+        private final ListingStore listings;
+        private final ReentrantLock lock = new ReentrantLock();
+        // the first chunk which has not been appended yet
+        private volatile int nextChunk;
+
+        ChunkPublisher(ListingStore listings) {
+            this.listings = listings;
+        }
+
+        void publish(int chunk, ListingStore part) {
+            parts.put(chunk, part);
+            // whoever holds the lock appends every ready chunk, and checks again after letting go
+            while (isNextChunkReady() && lock.tryLock()) {
+                try {
+                    while (isNextChunkReady()) {
+                        listings.addAll(parts.remove(nextChunk));
+                        nextChunk++;
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+
+        private boolean isNextChunkReady() {
+            return parts.containsKey(nextChunk);
+        }
+    }
+
+    /**
+     * Decompresses a gzip file on its own thread into blocks of a fixed size, which it
+     * hands over through a bounded queue. When the queue is full the thread waits, so
+     * it never runs more than a few blocks ahead of whoever is taking them.
+     */
+    private static class Decompressor implements Runnable {
+        // marks the end of the file in the queue
+        private static final byte[] END = new byte[0];
+
+        private final URL source;
+        private final int blockSize;
+        private final ArrayBlockingQueue<byte[]> blocks;
+        private final LoaderStats stats;
+        private volatile IOException failure;
+        private volatile boolean stopped;
+
+        Decompressor(URL source, int blockSize, int queueSize, LoaderStats stats) {
+            this.source = source;
+            this.blockSize = blockSize;
+            this.blocks = new ArrayBlockingQueue<>(queueSize);
+            this.stats = stats;
+        }
+
+        @Override
+        public void run() {
+            long allocatedBefore = LoaderStats.getCurrentThreadAllocatedBytes();
+            try {
+                decompress();
+            } finally {
+                stats.addAllocatedBytes(LoaderStats.getCurrentThreadAllocatedBytes() - allocatedBefore);
+            }
+        }
+
+        private void decompress() {
+            try (InputStream is = new GZIPInputStream(source.openStream(), blockSize)) {
+                while (!stopped) {
+                    byte[] block = is.readNBytes(blockSize);
+                    if (block.length == 0) {
+                        break;
+                    }
+                    blocks.put(block);
+                }
+            } catch (IOException e) {
+                failure = e;
+            } catch (InterruptedException e) {
+                return;
+            }
+            try {
+                blocks.put(END);
+            } catch (InterruptedException e) {
+                // nobody is waiting for the end any more
+            }
+        }
+
+        /**
+         * Waits for the next block of decompressed bytes
+         * @return The block, or null at the end of the file
+         */
+        byte[] take() throws IOException, InterruptedException {
+            byte[] block = blocks.take();
+            if (block == END) {
+                if (failure != null) {
+                    throw failure;
+                }
+                return null;
+            }
+            return block;
+        }
+
+        /**
+         * Stops decompressing, in case the blocks are no longer being taken
+         */
+        void stop() {
+            stopped = true;
+            blocks.clear();
+        }
+    }
+
+    /**
+     * Cuts the blocks of a Decompressor into chunks of whole records. Each block is
+     * joined onto the unfinished record left over from the previous one and cut at its
+     * last record boundary. The header row is read into the chunks' own columns and left out.
+     */
+    private class CompressedChunks {
+        private final Decompressor decompressor;
+        // the positions of the columns, once the header row has arrived
+        private ListingColumns columns;
+        private byte[] carried = new byte[0];
+        // the offset of the carried bytes within the decompressed file
+        private long carriedOffset;
+        private boolean inHeader = true;
+        private boolean ended;
+
+        // the chunk found by the latest call to next
+        private ByteBuffer data;
+        private long dataOffset;
+        private int from;
+        private int to;
+
+        CompressedChunks(Decompressor decompressor) {
+            this.decompressor = decompressor;
+        }
+
+        /**
+         * Waits for the next chunk of whole records
+         * @return If there is another chunk, or false at the end of the file
+         */
+        boolean next() throws IOException, InterruptedException {
+            if (ended) {
+                return false;
+            }
+            byte[] block;
+            while ((block = decompressor.take()) != null) {
+                byte[] joined = Arrays.copyOf(carried, carried.length + block.length);
+                System.arraycopy(block, 0, joined, carried.length, block.length);
+                ByteBuffer joinedData = ByteBuffer.wrap(joined);
+
+                int start = 0;
+                if (inHeader) {
+                    //skip the first row (column headers), once all of it has arrived
+                    if (ChunkLayout.findLastRecordEnd(joinedData, 0) == 0) {
+                        carried = joined;
+                        continue;
+                    }
+                    columns = readColumns(joinedData);
+                    start = ChunkLayout.skipRecord(joinedData, 0);
+                    inHeader = false;
+                }
+                int end = ChunkLayout.findLastRecordEnd(joinedData, start);
+                long joinedOffset = carriedOffset;
+                carried = Arrays.copyOfRange(joined, end, joined.length);
+                carriedOffset += end;
+                if (end > start) {
+                    setChunk(joinedData, joinedOffset, start, end);
+                    return true;
+                }
+            }
+            ended = true;
+            // a last record without a line break
+            if (!inHeader && carried.length > 0) {
+                setChunk(ByteBuffer.wrap(carried), carriedOffset, 0, carried.length);
+                return true;
+            }
+            return false;
+        }
+
+        private void setChunk(ByteBuffer data, long dataOffset, int from, int to) {
+            this.data = data;
+            this.dataOffset = dataOffset;
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * @return The positions of the columns, read from the header row before the first chunk
+         */
+        ListingColumns getColumns() {
+            return columns;
+        }
+
+        /**
+         * @return The decompressed bytes the latest chunk is part of
+         */
+        ByteBuffer getData() {
+            return data;
+        }
+
+        /**
+         * @return The offset of the data within the decompressed file
+         */
+        long getDataOffset() {
+            return dataOffset;
+        }
+
+        /**
+         * @return The offset of the first record of the latest chunk within the data
+         */
+        int getFrom() {
+            return from;
+        }
+
+        /**
+         * @return The offset just past the last record of the latest chunk within the data
+         */
+        int getTo() {
+            return to;
+        }
+    }
+
+    /**
+     * Walks the rows of a file compressed with gzip, parsing each chunk only when the
+     * previous one has been used up. Only the chunk being walked and the few blocks the
+     * Decompressor has queued ahead of it are held at once. The number of rows is not
+     * known until the file has been decompressed, so the walk does not split.
+     */
+    private class CompressedListingSpliterator implements Spliterator<AirbnbListing> {
+        private final CompressedChunks chunks;
+
+        // the rows of the chunk currently being walked
+        private ListingStore batch;
+        private int batchRow;
+
+        CompressedListingSpliterator(CompressedChunks chunks) {
+            this.chunks = chunks;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super AirbnbListing> action) {
+            while (batch == null || batchRow == batch.size()) {
+                if (!nextChunk()) {
+                    batch = null;
+                    return false;
+                }
+                batch = parseChunk(chunks.getData(), chunks.getDataOffset(), chunks.getFrom(), chunks.getTo(), 0,
+                                   chunks.getColumns(), true, null, null);
+                batchRow = 0;
+            }
+            action.accept(batch.getListing(batchRow++));
+            return true;
+        }
+
+        private boolean nextChunk() {
+            try {
+                return chunks.next();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new UncheckedIOException(new InterruptedIOException("Interrupted while reading " + getDatasetName()));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public Spliterator<AirbnbListing> trySplit() {
+            return null;
+        }
+
+        @Override
+        public long estimateSize() {
+            return Long.MAX_VALUE;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | NONNULL | IMMUTABLE;
+        }
+    }
+
+    /**
+     * Walks the rows of a range of chunks, parsing each chunk only when the previous
+     * one has been used up. The number of records in each chunk is known from the layout,
+     * which bounds the size of a range before it is parsed, but records which cannot be
+     * converted are left out, so the exact size is only known once it has been walked.
+     * A range splits by handing its first half of unparsed chunks, and any partly used
+     * chunk, to the prefix.
+     */
+    private class ListingSpliterator implements Spliterator<AirbnbListing> {
+        private final ByteBuffer data;
+        private final ChunkLayout layout;
+        private final ListingColumns columns;
+        private int chunk;
+        private final int endChunk;
+
+        // the rows of the chunk currently being walked
+        private ListingStore batch;
+        private int batchRow;
+
+        ListingSpliterator(ByteBuffer data, ChunkLayout layout, ListingColumns columns, int chunk, int endChunk) {
+            this.data = data;
+            this.layout = layout;
+            this.columns = columns;
+            this.chunk = chunk;
+            this.endChunk = endChunk;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super AirbnbListing> action) {
+            while (batch == null || batchRow == batch.size()) {
+                if (chunk == endChunk) {
+                    batch = null;
+                    return false;
+                }
+                batch = parseChunk(data, 0, layout.getStart(chunk), layout.getEnd(chunk), layout.getRowCount(chunk),
+                                   columns, true, null, null);
+                batchRow = 0;
+                chunk++;
+            }
+            action.accept(batch.getListing(batchRow++));
+            return true;
+        }
+
+        @Override
+        public Spliterator<AirbnbListing> trySplit() {
+            if (endChunk - chunk < 2) {
+                return null;
+            }
+            int mid = (chunk + endChunk) >>> 1;
+            ListingSpliterator prefix = new ListingSpliterator(data, layout, columns, chunk, mid);
+            prefix.batch = batch;
+            prefix.batchRow = batchRow;
+            batch = null;
+            chunk = mid;
+            return prefix;
+        }
+
+        /**
+         * @return The number of records left, which is the number of rows left unless some are rejected
+         */
+        @Override
+        public long estimateSize() {
+            long rows = batch == null ? 0 : batch.size() - batchRow;
+            for (int i = chunk; i < endChunk; i++) {
+                rows += layout.getRowCount(i);
+            }
+            return rows;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | NONNULL | IMMUTABLE;
+        }
+    }
 }
@@ -0,0 +1,147 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * This file is part of "Property Hunter"
+ * - a London property viewing application.
+ *
+ * This class tests that the stream of an AirbnbDataLoader holds the same rows, in the
+ * same order, as a load of the same file, whether it is walked in order, split, made
+ * parallel or read from a file compressed with gzip. It also tests that records
+ * appended to a loaded file are read without loading the file again.
+ * 
+ * @author Ubayd Khan (k20044237), Mohammed Chowdhury (k21074018), Omar Ahmad (k210524117), Muhammad Beg (k21057641)
+ * @version 30.03.2022
+ */
+public class AirbnbDataLoaderTest
+{
+    // enough records for the file to be cut into several chunks
+    private static final int RECORDS = 8000;
+    private static final String[] BOROUGHS = {"Camden", "Westminster", "Hackney", "Barnet", "Bexley"};
+    private static final String[] ROOM_TYPES = {"Private room", "Shared room", "Entire home/apt"};
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testStreamSameAsLoad() throws IOException
+    {
+        AirbnbDataLoader loader = new AirbnbDataLoader(writeCsv("listings.csv", false).toUri().toURL());
+        List<String> loaded = toStrings(loader.load().asList().stream());
+
+        assertEquals(RECORDS - RECORDS / 1000, loaded.size());
+        try (Stream<AirbnbListing> stream = loader.stream()) {
+            assertEquals(loaded, toStrings(stream));
+        }
+        try (Stream<AirbnbListing> stream = loader.stream()) {
+            assertEquals(loaded, toStrings(stream.parallel()));
+        }
+    }
+
+    @Test
+    public void testSplitSameAsLoad() throws IOException
+    {
+        AirbnbDataLoader loader = new AirbnbDataLoader(writeCsv("listings.csv", false).toUri().toURL());
+        List<String> loaded = toStrings(loader.load().asList().stream());
+
+        // split the stream into parts, each prefix taking the rows before the rest
+        Spliterator<AirbnbListing> rest = loader.stream().spliterator();
+        List<Spliterator<AirbnbListing>> parts = new ArrayList<>();
+        Spliterator<AirbnbListing> prefix;
+        while ((prefix = rest.trySplit()) != null) {
+            parts.add(prefix);
+        }
+        parts.add(rest);
+        assertTrue(parts.size() > 1);
+
+        List<String> walked = new ArrayList<>();
+        for (Spliterator<AirbnbListing> part : parts) {
+            part.forEachRemaining(listing -> walked.add(listing.toString()));
+        }
+        assertEquals(loaded, walked);
+    }
+
+    @Test
+    public void testCompressedStreamSameAsLoad() throws IOException
+    {
+        List<String> loaded = toStrings(new AirbnbDataLoader(writeCsv("listings.csv", false).toUri().toURL())
+                .load().asList().stream());
+        AirbnbDataLoader loader = new AirbnbDataLoader(writeCsv("listings.csv.gz", true).toUri().toURL());
+
+        assertEquals(loaded, toStrings(loader.load().asList().stream()));
+        try (Stream<AirbnbListing> stream = loader.stream()) {
+            assertEquals(loaded, toStrings(stream.parallel()));
+        }
+    }
+
+    @Test
+    public void testLoadAppended() throws IOException
+    {
+        Path csv = writeCsv("listings.csv", false);
+        AirbnbDataLoader loader = new AirbnbDataLoader(csv.toUri().toURL());
+        assertThrows(IOException.class, () -> loader.loadAppended(new ListingStore(), 0));
+
+        ListingStore listings = new ListingStore();
+        long offset = loader.load(listings).getBytes();
+        // two records, the last only half written at first
+        String record = "120,900001,Appended room,5,Host 5,Camden,51.5,-0.1,Private room,3,10,2019-05-05,1.5,1,200";
+        Files.writeString(csv, record + "\n" + record.substring(0, 10), StandardCharsets.UTF_8,
+                StandardOpenOption.APPEND);
+        offset = loader.loadAppended(listings, offset);
+        Files.writeString(csv, record.substring(10) + "\n", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        assertEquals(Files.size(csv), loader.loadAppended(listings, offset));
+
+        List<String> reloaded = toStrings(new AirbnbDataLoader(csv.toUri().toURL()).load().asList().stream());
+        assertEquals(reloaded, toStrings(listings.asList().stream()));
+        assertEquals(RECORDS - RECORDS / 1000 + 2, listings.size());
+    }
+
+    private static List<String> toStrings(Stream<AirbnbListing> listings)
+    {
+        return listings.map(AirbnbListing::toString).collect(Collectors.toList());
+    }
+
+    /**
+     * Writes a CSV file with its columns in another order than the London data set,
+     * some quoted names spanning lines, and a record in every 1000 which cannot be converted
+     */
+    private Path writeCsv(String name, boolean compressed) throws IOException
+    {
+        Random random = new Random(TestRows.SEED);
+        StringBuilder csv = new StringBuilder("price,id,name,host_id,host_name,neighbourhood,latitude,longitude,"
+                + "room_type,minimum_nights,number_of_reviews,last_review,reviews_per_month,"
+                + "calculated_host_listings_count,availability_365\n");
+        for (int i = 0; i < RECORDS; i++) {
+            String nights = i % 1000 == 999 ? "many" : Integer.toString(1 + random.nextInt(30));
+            String listingName = i % 7 == 0 ? "\"Flat " + i + ",\nwith \"\"view\"\"\"" : "Room " + i;
+            String lastReview = i % 5 == 0 ? "" : "2019-0" + (1 + random.nextInt(9)) + "-1" + random.nextInt(10);
+            csv.append(random.nextInt(500)).append(',').append(i).append(',').append(listingName).append(',')
+               .append(random.nextInt(2000)).append(",Host ").append(i % 300).append(',')
+               .append(BOROUGHS[random.nextInt(BOROUGHS.length)]).append(",51.5,-0.1,")
+               .append(ROOM_TYPES[random.nextInt(ROOM_TYPES.length)]).append(',').append(nights).append(',')
+               .append(random.nextInt(100)).append(',').append(lastReview).append(",1.5,1,")
+               .append(random.nextInt(366)).append('\n');
+        }
+
+        Path path = directory.resolve(name);
+        try (OutputStream out = compressed ? new GZIPOutputStream(Files.newOutputStream(path))
+                                           : Files.newOutputStream(path)) {
+            out.write(csv.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        return path;
+    }
+}
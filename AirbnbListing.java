@@ -1,173 +1,177 @@
-
-/**
- * This file is part of "Property Hunter"
- * - a London property viewing application.
- *
- * A AirbnbListing represents one listing of a property for rental on Airbnb.
- * This is essentially one row in the data table. Each column
- * has a corresponding field.
- *
- * @author KCL Informatics, Ubayd Khan (k20044237), Mohammed Chowdhury (k21074018), Omar Ahmad (k210524117), Muhammad Beg (k21057641)
- * @version 30.03.2022
- */
-
-public class AirbnbListing {
-    /**
-     * The id and name of the individual property
-     */
-    private String id;
-    private String name;
-    /**
-     * The id and name of the host for this listing.
-     * Each listing has only one host, but one host may
-     * list many properties.
-     */
-    private String host_id;
-    private String host_name;
-
-    /**
-     * The grouped location to where the listed property is situated.
-     * For this data set, it is a london borough.
-     */
-    private String neighbourhood;
-
-    /**
-     * The location on a map where the property is situated.
-     */
-    private double latitude;
-    private double longitude;
-
-    /**
-     * The type of property, either "Private room" or "Entire Home/apt".
-     */
-    private String room_type;
-
-    /**
-     * The price per night's stay
-     */
-    private int price;
-
-    /**
-     * The minimum number of nights the listed property must be booked for.
-     */
-    private int minimumNights;
-    private int numberOfReviews;
-
-    /**
-     * The date of the last review, but as a String
-     */
-    private String lastReview;
-    private double reviewsPerMonth;
-
-    /**
-     * The total number of listings the host holds across AirBnB
-     */
-    private int calculatedHostListingsCount;
-    /**
-     * The total number of days in the year that the property is available for
-     */
-    private int availability365;
-
-    public AirbnbListing(String id, String name, String host_id,
-                         String host_name, String neighbourhood, double latitude,
-                         double longitude, String room_type, int price,
-                         int minimumNights, int numberOfReviews, String lastReview,
-                         double reviewsPerMonth, int calculatedHostListingsCount, int availability365) {
-        this.id = id;
-        this.name = name;
-        this.host_id = host_id;
-        this.host_name = host_name;
-        this.neighbourhood = neighbourhood;
-        this.latitude = latitude;
-        this.longitude = longitude;
-        this.room_type = room_type;
-        this.price = price;
-        this.minimumNights = minimumNights;
-        this.numberOfReviews = numberOfReviews;
-        this.lastReview = lastReview;
-        this.reviewsPerMonth = reviewsPerMonth;
-        this.calculatedHostListingsCount = calculatedHostListingsCount;
-        this.availability365 = availability365;
-    }
-
-    public String getId() {
-        return id;
-    }
-
-    public String getName() {
-        return name;
-    }
-
-    public String getHost_id() {
-        return host_id;
-    }
-
-    public String getHost_name() {
-        return host_name;
-    }
-
-    public String getNeighbourhood() {
-        return neighbourhood;
-    }
-
-    public double getLatitude() {
-        return latitude;
-    }
-
-    public double getLongitude() {
-        return longitude;
-    }
-
-    public String getRoom_type() {
-        return room_type;
-    }
-
-    public int getPrice() {
-        return price;
-    }
-
-    public int getMinimumNights() {
-        return minimumNights;
-    }
-
-    public int getNumberOfReviews() {
-        return numberOfReviews;
-    }
-
-    public String getLastReview() {
-        return lastReview;
-    }
-
-    public double getReviewsPerMonth() {
-        return reviewsPerMonth;
-    }
-
-    public int getCalculatedHostListingsCount() {
-        return calculatedHostListingsCount;
-    }
-
-    public int getAvailability365() {
-        return availability365;
-    }
-
-    @Override
-    public String toString() {
-        return "AirbnbListing{" +
-                "id='" + id + '\'' +
-                ", name='" + name + '\'' +
-                ", host_id='" + host_id + '\'' +
-                ", host_name='" + host_name + '\'' +
-                ", neighbourhood='" + neighbourhood + '\'' +
-                ", latitude=" + latitude +
-                ", longitude=" + longitude +
-                ", room_type='" + room_type + '\'' +
-                ", price=" + price +
-                ", minimumNights=" + minimumNights +
-                ", numberOfReviews=" + numberOfReviews +
-                ", lastReview='" + lastReview + '\'' +
-                ", reviewsPerMonth=" + reviewsPerMonth +
-                ", calculatedHostListingsCount=" + calculatedHostListingsCount +
-                ", availability365=" + availability365 +
-                '}';
-    }
-}
+
+/**
+ * This file is part of "Property Hunter"
+ * - a London property viewing application.
+ *
+ * A AirbnbListing represents one listing of a property for rental on Airbnb.
+ * This is essentially one row in the data table. The fields themselves are
+ * kept in the columns of a ListingStore, and a listing only remembers which
+ * store and row it reads them from, so listings are cheap to create.
+ *
+ * @author KCL Informatics, Ubayd Khan (k20044237), Mohammed Chowdhury (k21074018), Omar Ahmad (k210524117), Muhammad Beg (k21057641)
+ * @version 30.03.2022
+ */
+
+public class AirbnbListing {
+    /**
+     * The store holding the fields of this listing
+     */
+    private final ListingStore store;
+
+    /**
+     * The index of this listing's row within the store
+     */
+    private final int row;
+
+    /**
+     * Creates a listing which reads its fields from a row of a store
+     * @param store The store holding the fields
+     * @param row The index of the row within the store
+     */
+    public AirbnbListing(ListingStore store, int row) {
+        this.store = store;
+        this.row = row;
+    }
+
+    /**
+     * @return The index of this listing's row within its store
+     */
+    public int getRow() {
+        return row;
+    }
+
+    /**
+     * The id and name of the individual property
+     */
+    public String getId() {
+        return store.getId(row);
+    }
+
+    public String getName() {
+        return store.getName(row);
+    }
+
+    /**
+     * The id and name of the host for this listing.
+     * Each listing has only one host, but one host may
+     * list many properties.
+     */
+    public String getHost_id() {
+        return store.getHostId(row);
+    }
+
+    public String getHost_name() {
+        return store.getHostName(row);
+    }
+
+    /**
+     * The grouped location to where the listed property is situated.
+     * For this data set, it is a london borough.
+     */
+    public String getNeighbourhood() {
+        return store.getNeighbourhood(row);
+    }
+
+    /**
+     * The location on a map where the property is situated.
+     */
+    public double getLatitude() {
+        return store.getLatitude(row);
+    }
+
+    public double getLongitude() {
+        return store.getLongitude(row);
+    }
+
+    /**
+     * The type of property, either "Private room" or "Entire Home/apt".
+     */
+    public String getRoom_type() {
+        return store.getRoomType(row);
+    }
+
+    /**
+     * The price per night's stay
+     */
+    public int getPrice() {
+        return store.getPrice(row);
+    }
+
+    /**
+     * The minimum number of nights the listed property must be booked for.
+     */
+    public int getMinimumNights() {
+        return store.getMinimumNights(row);
+    }
+
+    public int getNumberOfReviews() {
+        return store.getNumberOfReviews(row);
+    }
+
+    /**
+     * The date of the last review, but as a String
+     */
+    public String getLastReview() {
+        return store.getLastReview(row);
+    }
+
+    /**
+     * The date of the last review as an epoch day, or ListingStore.NO_REVIEW
+     */
+    public int getLastReviewDay() {
+        return store.getLastReviewDay(row);
+    }
+
+    public double getReviewsPerMonth() {
+        return store.getReviewsPerMonth(row);
+    }
+
+    /**
+     * The total number of listings the host holds across AirBnB
+     */
+    public int getCalculatedHostListingsCount() {
+        return store.getCalculatedHostListingsCount(row);
+    }
+
+    /**
+     * The total number of days in the year that the property is available for
+     */
+    public int getAvailability365() {
+        return store.getAvailability365(row);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof AirbnbListing)) {
+            return false;
+        }
+        AirbnbListing listing = (AirbnbListing) other;
+        return store == listing.store && row == listing.row;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * System.identityHashCode(store) + row;
+    }
+
+    @Override
+    public String toString() {
+        return "AirbnbListing{" +
+                "id='" + getId() + '\'' +
+                ", name='" + getName() + '\'' +
+                ", host_id='" + getHost_id() + '\'' +
+                ", host_name='" + getHost_name() + '\'' +
+                ", neighbourhood='" + getNeighbourhood() + '\'' +
+                ", latitude=" + getLatitude() +
+                ", longitude=" + getLongitude() +
+                ", room_type='" + getRoom_type() + '\'' +
+                ", price=" + getPrice() +
+                ", minimumNights=" + getMinimumNights() +
+                ", numberOfReviews=" + getNumberOfReviews() +
+                ", lastReview='" + getLastReview() + '\'' +
+                ", reviewsPerMonth=" + getReviewsPerMonth() +
+                ", calculatedHostListingsCount=" + getCalculatedHostListingsCount() +
+                ", availability365=" + getAvailability365() +
+                '}';
+    }
+}
@@ -0,0 +1,206 @@
+import java.util.Arrays;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * This file is part of "Property Hunter"
+ * - a London property viewing application.
+ *
+ * A BitmapIndex holds a RowBitmap of the rows sharing each value of the columns that
+ * filters are applied on, so that a combination of filters is a few bitwise ANDs and ORs
+ * and a count over any combination is a population count rather than a scan.
+ *
+ * Room types and boroughs have a bitmap per dictionary code. The minimum nights and
+ * number of reviews are bucketed, with a bitmap for each value from 0 up to a limit, one
+ * for every larger value and one for negative values, which mark a missing value. A query
+ * for the rows above a threshold ORs together the buckets above it, and only checks rows
+ * one by one within the larger or negative buckets, which the thresholds offered in the
+ * application never reach.
+ *
+ * The index is built once from the rows already in the store, then kept up to date as
+ * a ListingListener, taking in only the rows appended since. If it is told about the
+ * rows of a different store, the model has switched data sets, so it starts again.
+ *
+ * @author Ubayd Khan (k20044237), Mohammed Chowdhury (k21074018), Omar Ahmad (k210524117), Muhammad Beg (k21057641)
+ * @version 30.03.2022
+ */
+public class BitmapIndex implements ListingListener
+{
+    // values from 0 up to this have a bucket of their own
+    private static final int BUCKETS = 32;
+
+    private ListingStore listings;
+    private RowBitmap[] roomTypes;
+    private RowBitmap[] boroughs;
+    private NumericBuckets minimumNights;
+    private NumericBuckets numberOfReviews;
+    // the rows of the store below this have been indexed
+    private int indexedRows;
+
+    /**
+     * Creates an index of the rows already in a store
+     * @param listings The store to be indexed
+     */
+    public BitmapIndex(ListingStore listings) {
+        reset(listings);
+        indexRows(listings.size());
+    }
+
+    /**
+     * Takes in rows appended to the store, or starts again if they belong to another store
+     */
+    @Override
+    public synchronized void listingsAdded(ListingStore listings, int fromRow, int toRow) {
+        if (listings != this.listings) {
+            reset(listings);
+        }
+        indexRows(toRow);
+    }
+
+    /**
+     * Empties the index, ready to index another store
+     * @param listings The store to be indexed
+     */
+    private void reset(ListingStore listings) {
+        this.listings = listings;
+        roomTypes = new RowBitmap[0];
+        boroughs = new RowBitmap[0];
+        minimumNights = new NumericBuckets(listings::getMinimumNights);
+        numberOfReviews = new NumericBuckets(listings::getNumberOfReviews);
+        indexedRows = 0;
+    }
+
+    /**
+     * Adds every row from the last row indexed up to the given row
+     * @param toRow The index just past the last row to be indexed
+     */
+    private void indexRows(int toRow) {
+        for (int row = indexedRows; row < toRow; row++) {
+            roomTypes = add(roomTypes, listings.getRoomTypeCode(row), row);
+            boroughs = add(boroughs, listings.getNeighbourhoodCode(row), row);
+            minimumNights.add(row);
+            numberOfReviews.add(row);
+        }
+        indexedRows = Math.max(indexedRows, toRow);
+    }
+
+    /**
+     * Adds a row to the bitmap of a dictionary code, growing the bitmaps to fit it
+     * @return The bitmaps, which are a new array if they grew
+     */
+    private static RowBitmap[] add(RowBitmap[] bitmaps, int code, int row) {
+        if (code >= bitmaps.length) {
+            bitmaps = Arrays.copyOf(bitmaps, code + 1);
+        }
+        if (bitmaps[code] == null) {
+            bitmaps[code] = new RowBitmap();
+        }
+        bitmaps[code].add(row);
+        return bitmaps;
+    }
+
+    /**
+     * @return The store which is indexed
+     */
+    public synchronized ListingStore getListingStore() {
+        return listings;
+    }
+
+    /**
+     * @return A bitmap of every row indexed
+     */
+    public synchronized RowBitmap getAllRows() {
+        return RowBitmap.range(0, indexedRows);
+    }
+
+    /**
+     * @param roomType The ordinal of the room type
+     * @return A bitmap of the rows of the room type
+     */
+    public synchronized RowBitmap getRoomType(int roomType) {
+        return copyOf(roomTypes, roomType);
+    }
+
+    /**
+     * @param borough The ordinal of the borough
+     * @return A bitmap of the rows in the borough
+     */
+    public synchronized RowBitmap getBorough(int borough) {
+        return copyOf(boroughs, borough);
+    }
+
+    /**
+     * @param nights The number of nights
+     * @return A bitmap of the rows whose minimum number of nights is more than the given number
+     */
+    public synchronized RowBitmap getRowsAboveMinimumNights(int nights) {
+        return minimumNights.getRowsAbove(nights);
+    }
+
+    /**
+     * @param reviews The number of reviews
+     * @return A bitmap of the rows which have more reviews than the given number
+     */
+    public synchronized RowBitmap getRowsAboveNumberOfReviews(double reviews) {
+        // the reviews are whole numbers, so being above the number is being above its floor
+        return numberOfReviews.getRowsAbove((int) Math.max(Math.floor(reviews), Integer.MIN_VALUE));
+    }
+
+    /**
+     * @return A copy of the bitmap of a dictionary code, or an empty bitmap if it has no rows
+     */
+    private static RowBitmap copyOf(RowBitmap[] bitmaps, int code) {
+        if (code < 0 || code >= bitmaps.length || bitmaps[code] == null) {
+            return new RowBitmap();
+        }
+        return bitmaps[code].copy();
+    }
+
+    /**
+     * The bitmaps of one numeric column, with a bucket for each small value
+     */
+    private static class NumericBuckets {
+        private final IntUnaryOperator column;
+        private final RowBitmap[] values = new RowBitmap[BUCKETS];
+        private final RowBitmap larger = new RowBitmap();
+        private final RowBitmap negative = new RowBitmap();
+
+        NumericBuckets(IntUnaryOperator column) {
+            this.column = column;
+            for (int value = 0; value < BUCKETS; value++) {
+                values[value] = new RowBitmap();
+            }
+        }
+
+        private void add(int row) {
+            int value = column.applyAsInt(row);
+            if (value < 0) {
+                negative.add(row);
+            } else if (value < BUCKETS) {
+                values[value].add(row);
+            } else {
+                larger.add(row);
+            }
+        }
+
+        private RowBitmap getRowsAbove(int threshold) {
+            RowBitmap rows = threshold < -1 ? above(negative, threshold) : new RowBitmap();
+            for (int value = Math.max(threshold, -1) + 1; value < BUCKETS; value++) {
+                rows = rows.or(values[value]);
+            }
+            return rows.or(threshold < BUCKETS ? larger : above(larger, threshold));
+        }
+
+        /**
+         * Checks the rows of a bucket one by one, for a threshold falling within it
+         */
+        private RowBitmap above(RowBitmap bucket, int threshold) {
+            RowBitmap rows = new RowBitmap();
+            for (int row : bucket.toArray()) {
+                if (column.applyAsInt(row) > threshold) {
+                    rows.add(row);
+                }
+            }
+            return rows;
+        }
+    }
+}
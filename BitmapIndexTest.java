@@ -0,0 +1,104 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.util.BitSet;
+import java.util.Random;
+import java.util.function.IntPredicate;
+
+/**
+ * This file is part of "Property Hunter"
+ * - a London property viewing application.
+ *
+ * This class tests the bitmaps of a BitmapIndex against sets of rows picked out
+ * by a predicate, over enough rows to fill several containers, some indexed when
+ * the index is built and the rest as they are appended.
+ * 
+ * @author Ubayd Khan (k20044237), Mohammed Chowdhury (k21074018), Omar Ahmad (k210524117), Muhammad Beg (k21057641)
+ * @version 30.03.2022
+ */
+public class BitmapIndexTest
+{
+    private static final String[] ROOM_TYPES = {"Private room", "Shared room", "Entire home/apt", "Hotel room"};
+    private static final String[] BOROUGHS = {"Camden", "Westminster", "Hackney", "Barnet", "Bexley"};
+    // enough rows to fill several containers
+    private static final int ROWS = 150000;
+
+    private final Random random = new Random(TestRows.SEED);
+    private final TestRows rows = new TestRows();
+
+    @Test
+    public void testAgainstScan()
+    {
+        ListingStore store = new ListingStore();
+        addRows(store, ROWS / 3);
+        BitmapIndex index = new BitmapIndex(store);
+        store.addListener(index);
+        // appended a few at a time, then in one batch
+        for (int i = 0; i < 100; i++) {
+            addRows(store, 1 + random.nextInt(50));
+        }
+        ListingStore batch = new ListingStore();
+        addRows(batch, ROWS - store.size());
+        store.addAll(batch);
+
+        assertRows(allRows(store), index.getAllRows());
+        for (int code = 0; code < store.getRoomTypes().size(); code++) {
+            int roomType = code;
+            assertRows(scan(store, row -> store.getRoomTypeCode(row) == roomType), index.getRoomType(code));
+        }
+        for (int code = 0; code < store.getNeighbourhoods().size(); code++) {
+            int borough = code;
+            assertRows(scan(store, row -> store.getNeighbourhoodCode(row) == borough), index.getBorough(code));
+        }
+        int[] thresholds = {Integer.MIN_VALUE, -5, -1, 0, 1, 2, 30, 31, 32, 100, 5000};
+        for (int threshold : thresholds) {
+            assertRows(scan(store, row -> store.getMinimumNights(row) > threshold),
+                    index.getRowsAboveMinimumNights(threshold));
+            assertRows(scan(store, row -> store.getNumberOfReviews(row) > threshold),
+                    index.getRowsAboveNumberOfReviews(threshold));
+            assertRows(scan(store, row -> store.getNumberOfReviews(row) > threshold + 0.5),
+                    index.getRowsAboveNumberOfReviews(threshold + 0.5));
+        }
+        assertTrue(index.getRoomType(-1).isEmpty());
+        assertTrue(index.getBorough(store.getNeighbourhoods().size()).isEmpty());
+    }
+
+    private void addRows(ListingStore store, int count)
+    {
+        for (int i = 0; i < count; i++) {
+            // most values small, some large or negative, as the buckets of the index split them
+            int nights = random.nextInt(10) == 0 ? random.nextInt(400) - 10 : random.nextInt(35);
+            int reviews = random.nextInt(10) == 0 ? random.nextInt(1000) : random.nextInt(40);
+            rows.setHostId("host" + random.nextInt(500))
+                .setNeighbourhood(BOROUGHS[random.nextInt(BOROUGHS.length)])
+                .setRoomType(ROOM_TYPES[random.nextInt(ROOM_TYPES.length)])
+                .setPrice(random.nextInt(300))
+                .setMinimumNights(nights)
+                .setNumberOfReviews(reviews)
+                .setAvailability365(random.nextInt(366))
+                .addTo(store);
+        }
+    }
+
+    private BitSet allRows(ListingStore store)
+    {
+        BitSet rows = new BitSet();
+        rows.set(0, store.size());
+        return rows;
+    }
+
+    private BitSet scan(ListingStore store, IntPredicate predicate)
+    {
+        BitSet rows = new BitSet();
+        for (int row = 0; row < store.size(); row++) {
+            if (predicate.test(row)) {
+                rows.set(row);
+            }
+        }
+        return rows;
+    }
+
+    private void assertRows(BitSet expected, RowBitmap actual)
+    {
+        assertArrayEquals(expected.stream().toArray(), actual.toArray());
+    }
+}
@@ -0,0 +1,118 @@
+import java.util.Arrays;
+
+/**
+ * This file is part of "Property Hunter"
+ * - a London property viewing application.
+ *
+ * A BoroughIndex holds the rows of each borough, so that a query about one borough
+ * only visits that borough's rows instead of scanning the whole data set. Boroughs
+ * are identified by their ordinal, the dictionary code of the store, and each one has
+ * a compact array of its row indices in ascending order.
+ *
+ * The index is built once from the rows already in the store, then kept up to date as
+ * a ListingListener, taking in only the rows appended since. If it is told about the
+ * rows of a different store, the model has switched data sets, so it starts again.
+ *
+ * @author Ubayd Khan (k20044237), Mohammed Chowdhury (k21074018), Omar Ahmad (k210524117), Muhammad Beg (k21057641)
+ * @version 30.03.2022
+ */
+public class BoroughIndex implements ListingListener
+{
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int[] NO_ROWS = new int[0];
+
+    private ListingStore listings;
+    // the rows of each borough, indexed by ordinal; only the first counts[ordinal] are used
+    private int[][] rows = new int[0][];
+    private int[] counts = new int[0];
+    // the rows of the store below this have been indexed
+    private int indexedRows;
+
+    /**
+     * Creates an index of the rows already in a store
+     * @param listings The store to be indexed
+     */
+    public BoroughIndex(ListingStore listings) {
+        this.listings = listings;
+        indexRows(listings.size());
+    }
+
+    /**
+     * Takes in rows appended to the store, or starts again if they belong to another store
+     */
+    @Override
+    public synchronized void listingsAdded(ListingStore listings, int fromRow, int toRow) {
+        if (listings != this.listings) {
+            this.listings = listings;
+            rows = new int[0][];
+            counts = new int[0];
+            indexedRows = 0;
+        }
+        indexRows(toRow);
+    }
+
+    /**
+     * Adds every row from the last row indexed up to the given row
+     * @param toRow The index just past the last row to be indexed
+     */
+    private void indexRows(int toRow) {
+        for (int row = indexedRows; row < toRow; row++) {
+            int borough = listings.getNeighbourhoodCode(row);
+            if (borough >= counts.length) {
+                rows = Arrays.copyOf(rows, borough + 1);
+                counts = Arrays.copyOf(counts, borough + 1);
+            }
+            int[] boroughRows = rows[borough];
+            if (boroughRows == null) {
+                boroughRows = new int[INITIAL_CAPACITY];
+                rows[borough] = boroughRows;
+            } else if (counts[borough] == boroughRows.length) {
+                boroughRows = Arrays.copyOf(boroughRows, boroughRows.length * 2);
+                rows[borough] = boroughRows;
+            }
+            boroughRows[counts[borough]++] = row;
+        }
+        indexedRows = Math.max(indexedRows, toRow);
+    }
+
+    /**
+     * @return The store which is indexed
+     */
+    public synchronized ListingStore getListingStore() {
+        return listings;
+    }
+
+    /**
+     * @return The number of boroughs with at least one row, which is one more than the largest ordinal
+     */
+    public synchronized int getNumberOfBoroughs() {
+        return counts.length;
+    }
+
+    /**
+     * @param borough The ordinal of the borough
+     * @return The number of rows in the borough
+     */
+    public synchronized int getCount(int borough) {
+        return borough >= 0 && borough < counts.length ? counts[borough] : 0;
+    }
+
+    /**
+     * @param borough The ordinal of the borough
+     * @return The indices of the rows in the borough, in ascending order
+     */
+    public synchronized int[] getRows(int borough) {
+        if (borough < 0 || borough >= counts.length || counts[borough] == 0) {
+            return NO_ROWS;
+        }
+        return Arrays.copyOf(rows[borough], counts[borough]);
+    }
+
+    /**
+     * @param borough The name of the borough
+     * @return The indices of the rows in the borough, in ascending order
+     */
+    public synchronized int[] getRows(String borough) {
+        return getRows(listings.getNeighbourhoods().getCode(borough));
+    }
+}
@@ -0,0 +1,273 @@
+import java.nio.ByteBuffer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * This file is part of "Property Hunter"
+ * - a London property viewing application.
+ *
+ * A ChunkLayout splits the contents of a CSV file into chunks of roughly equal
+ * size, where every chunk begins at the start of a record, so that chunks can be
+ * parsed independently of each other. It also knows how many records each chunk
+ * holds, before any of them have been parsed.
+ *
+ * Quoted fields may contain commas and line breaks, so a line break only ends a
+ * record when it is outside of quotes. Within a field, a quote is escaped either
+ * by doubling it or with a backslash, by the same rule the CsvTokenizer follows
+ * (see CsvTokenizer.isEscape), so the two always agree on where quotes are.
+ *
+ * @author Ubayd Khan (k20044237), Mohammed Chowdhury (k21074018), Omar Ahmad (k210524117), Muhammad Beg (k21057641)
+ * @version 30.03.2022
+ */
+public class ChunkLayout
+{
+    // quote states used while looking for record boundaries
+    private static final int OUTSIDE_QUOTES = 0;
+    private static final int INSIDE_QUOTES = 1;
+
+    private final int[] starts;
+    private final int[] rowCounts;
+    private final int totalRows;
+
+    /**
+     * @param starts The chunk offsets, followed by the end offset of the last chunk
+     * @param rowCounts The number of records in each chunk
+     */
+    private ChunkLayout(int[] starts, int[] rowCounts) {
+        this.starts = starts;
+        this.rowCounts = rowCounts;
+        int total = 0;
+        for (int rows : rowCounts) {
+            total += rows;
+        }
+        this.totalRows = total;
+    }
+
+    /**
+     * Splits the data from the given offset to its limit into record-aligned chunks.
+     *
+     * The data is first cut into windows of chunkSize bytes. Each window is scanned
+     * in parallel twice, once assuming it begins outside of quotes and once assuming
+     * it begins inside them. The real quote state at the start of each window is then
+     * resolved in order, which selects one of the two scans without reading the data
+     * again. Each chunk starts at the first record boundary of a window.
+     *
+     * @param data The contents of the CSV file
+     * @param start The offset of the first record
+     * @param chunkSize The approximate number of bytes in a chunk
+     * @param pool The pool the scans are run on
+     * @return The layout of the chunks
+     */
+    public static ChunkLayout of(ByteBuffer data, int start, int chunkSize, ForkJoinPool pool) {
+        int length = data.limit();
+        int windowCount = Math.max(1, (length - start) / chunkSize);
+        int[] splits = new int[windowCount + 1];
+        for (int i = 0; i <= windowCount; i++) {
+            splits[i] = start + (int) ((long) (length - start) * i / windowCount);
+            // only split where the byte before says if the split is part way through a field
+            while (i > 0 && splits[i] < length && !isSplitPoint(data.get(splits[i] - 1))) {
+                splits[i]++;
+            }
+        }
+
+        BoundaryScanTask[] scans = new BoundaryScanTask[windowCount];
+        for (int i = 0; i < windowCount; i++) {
+            scans[i] = new BoundaryScanTask(data, splits[i], Math.max(splits[i], splits[i + 1]), i == 0);
+        }
+        for (BoundaryScanTask scan : scans) {
+            pool.execute(scan);
+        }
+        for (BoundaryScanTask scan : scans) {
+            scan.join();
+        }
+
+        // boundaries[j] is the number of record boundaries up to and including starts[j]
+        int[] starts = new int[windowCount + 1];
+        int[] boundaries = new int[windowCount + 1];
+        int count = 0;
+        int seen = 0;
+        int state = OUTSIDE_QUOTES;
+        starts[count++] = start;
+        for (int i = 0; i < windowCount; i++) {
+            int boundary = scans[i].firstBoundary[state];
+            if (i > 0 && boundary != -1 && boundary < length && boundary > starts[count - 1]) {
+                boundaries[count] = seen + 1;
+                starts[count++] = boundary;
+            }
+            seen += scans[i].boundaryCount[state];
+            state = scans[i].endState[state];
+        }
+        // a last record without a line break still counts
+        if (length > start && data.get(length - 1) != '\n') {
+            seen++;
+        }
+        boundaries[count] = seen;
+        starts[count] = length;
+
+        int[] chunkStarts = new int[count + 1];
+        int[] rowCounts = new int[count];
+        System.arraycopy(starts, 0, chunkStarts, 0, count + 1);
+        for (int j = 0; j < count; j++) {
+            rowCounts[j] = boundaries[j + 1] - boundaries[j];
+        }
+        return new ChunkLayout(chunkStarts, rowCounts);
+    }
+
+    /**
+     * Finds the offset just past the record starting at the given offset.
+     * @param data The contents of the CSV file
+     * @param from The offset of the start of the record
+     * @return The offset of the next record, or the data limit if there is none
+     */
+    public static int skipRecord(ByteBuffer data, int from) {
+        BoundaryScanTask scan = new BoundaryScanTask(data, from, data.limit(), true);
+        scan.scan(OUTSIDE_QUOTES, true);
+        int boundary = scan.firstBoundary[OUTSIDE_QUOTES];
+        return boundary == -1 ? data.limit() : boundary;
+    }
+
+    /**
+     * Finds the end of the last complete record at or after the given offset, so that a
+     * record which is still being written is left for later.
+     * @param data The contents of the CSV file
+     * @param from The offset of the start of a record
+     * @return The offset just past the last line break outside of quotes, or from if there is none
+     */
+    public static int findLastRecordEnd(ByteBuffer data, int from) {
+        BoundaryScanTask scan = new BoundaryScanTask(data, from, data.limit(), true);
+        scan.scan(OUTSIDE_QUOTES, false);
+        int boundary = scan.lastBoundary[OUTSIDE_QUOTES];
+        return boundary == -1 ? from : boundary;
+    }
+
+    /**
+     * A window may start after any byte but a quote, a backslash or a line break. After
+     * any other byte, whether the window starts part way through a field follows from
+     * whether it starts inside quotes, and no escape or pair of quotes crosses the split.
+     * @param previous The byte before the split
+     * @return If the data may be split after the byte
+     */
+    private static boolean isSplitPoint(byte previous) {
+        return previous != '"' && previous != '\\' && previous != '\n' && previous != '\r';
+    }
+
+    /**
+     * @return The number of chunks
+     */
+    public int getChunkCount() {
+        return rowCounts.length;
+    }
+
+    /**
+     * @param chunk The index of the chunk
+     * @return The offset of the first record of the chunk
+     */
+    public int getStart(int chunk) {
+        return starts[chunk];
+    }
+
+    /**
+     * @param chunk The index of the chunk
+     * @return The offset just past the last record of the chunk
+     */
+    public int getEnd(int chunk) {
+        return starts[chunk + 1];
+    }
+
+    /**
+     * @param chunk The index of the chunk
+     * @return The number of records in the chunk
+     */
+    public int getRowCount(int chunk) {
+        return rowCounts[chunk];
+    }
+
+    /**
+     * @return The number of records in every chunk
+     */
+    public int getTotalRows() {
+        return totalRows;
+    }
+
+    /**
+     * Scans a byte range for record boundaries, for both possible quote states at the
+     * start of the range. A record boundary is the offset just past a line break which
+     * is outside of quotes.
+     *
+     * Whether the scan is part way through a field is tracked as the tokenizer tracks it,
+     * since a backslash or a pair of quotes only escapes a quote within a field.
+     */
+    private static class BoundaryScanTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final ByteBuffer data;
+        private final int from;
+        private final int to;
+        // if the range starts at the start of a record rather than after a split point
+        private final boolean atRecordStart;
+
+        // indexed by the quote state at the start of the range
+        private final int[] firstBoundary = {-1, -1};
+        private final int[] lastBoundary = {-1, -1};
+        private final int[] boundaryCount = new int[2];
+        private final int[] endState = new int[2];
+
+        BoundaryScanTask(ByteBuffer data, int from, int to, boolean atRecordStart) {
+            this.data = data;
+            this.from = from;
+            this.to = to;
+            this.atRecordStart = atRecordStart;
+        }
+
+        @Override
+        protected void compute() {
+            scan(OUTSIDE_QUOTES, false);
+            scan(INSIDE_QUOTES, false);
+        }
+
+        private void scan(int initialState, boolean firstOnly) {
+            int limit = data.limit();
+            boolean inQuotes = initialState == INSIDE_QUOTES;
+            // after a split point, only a separator outside of quotes leaves the field
+            boolean inField = !atRecordStart && (inQuotes || data.get(from - 1) != ',');
+            int boundary = -1;
+            int last = -1;
+            int boundaries = 0;
+            int i = from;
+            while (i < to) {
+                byte b = data.get(i);
+                if (b == '"') {
+                    if (i + 1 < limit && CsvTokenizer.isDoubledQuote(data.get(i + 1), inQuotes, inField)) {
+                        i++;
+                    } else {
+                        inQuotes = !inQuotes;
+                    }
+                    inField = !inField;
+                } else if (b == '\\') {
+                    if (i + 1 < limit && CsvTokenizer.isEscape(data.get(i + 1), inQuotes, inField)) {
+                        i++;
+                    }
+                } else if (b == ',' && !inQuotes) {
+                    inField = false;
+                } else if (b == '\n' && !inQuotes) {
+                    inField = false;
+                    if (boundary == -1) {
+                        boundary = i + 1;
+                        if (firstOnly) {
+                            break;
+                        }
+                    }
+                    last = i + 1;
+                    boundaries++;
+                } else if (b != '\n' && b != '\r') {
+                    inField = true;
+                }
+                i++;
+            }
+            firstBoundary[initialState] = boundary;
+            lastBoundary[initialState] = last;
+            boundaryCount[initialState] = boundaries;
+            endState[initialState] = inQuotes ? INSIDE_QUOTES : OUTSIDE_QUOTES;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * This file is part of "Property Hunter"
+ * - a London property viewing application.
+ *
+ * This class tests that ChunkLayout splits CSV data at the same record boundaries
+ * the CsvTokenizer finds when it reads the data from start to end.
+ * 
+ * @author Ubayd Khan (k20044237), Mohammed Chowdhury (k21074018), Omar Ahmad (k210524117), Muhammad Beg (k21057641)
+ * @version 30.03.2022
+ */
+public class ChunkLayoutTest
+{
+    private ForkJoinPool pool;
+
+    /**
+     * Sets up the test fixture.
+     *
+     * Called before every test case method.
+     */
+    @BeforeEach
+    public void setUp()
+    {
+        pool = new ForkJoinPool(4);
+    }
+
+    /**
+     * Tears down the test fixture.
+     *
+     * Called after every test case method.
+     */
+    @AfterEach
+    public void tearDown()
+    {
+        pool.shutdown();
+    }
+
+    @Test
+    public void testEscapedQuoteInUnquotedField()
+    {
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < 40; i++) {
+            csv.append(i).append(",abc\\\"def,plain\n");
+            csv.append(i).append(",\"quoted, with \\\"escape\\\"\",x\n");
+        }
+        byte[] data = csv.toString().getBytes(StandardCharsets.UTF_8);
+        
+        // split the data at every offset before and after each escape
+        for (int chunkSize = 1; chunkSize <= 64; chunkSize++) {
+            assertSameRecords(data, chunkSize);
+        }
+    }
+    
+    @Test
+    public void testQuotedFieldsWithLineBreaks()
+    {
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < 30; i++) {
+            csv.append(i).append(",\"two\nlines\",\"doubled \"\" quote\",a\\\\b\r\n");
+            csv.append(i).append(",x\"y,\"\"\"\",£10\n");
+        }
+        byte[] data = csv.toString().getBytes(StandardCharsets.UTF_8);
+        
+        for (int chunkSize = 1; chunkSize <= 64; chunkSize++) {
+            assertSameRecords(data, chunkSize);
+        }
+    }
+    
+    @Test
+    public void testLastRecordEnd()
+    {
+        byte[] data = "1,abc\\\"def\n2,\"open\nquote".getBytes(StandardCharsets.UTF_8);
+        assertEquals(11, ChunkLayout.findLastRecordEnd(ByteBuffer.wrap(data), 0));
+        assertEquals(11, ChunkLayout.skipRecord(ByteBuffer.wrap(data), 0));
+    }
+    
+    /**
+     * Checks that every chunk starts at a record start found by the tokenizer, and
+     * that the chunks hold as many records as the tokenizer reads
+     */
+    private void assertSameRecords(byte[] data, int chunkSize)
+    {
+        List<Integer> recordStarts = new ArrayList<>();
+        CsvTokenizer tokenizer = new CsvTokenizer(data, 0, data.length);
+        while (tokenizer.nextRecord()) {
+            recordStarts.add(tokenizer.getRecordStart());
+        }
+        
+        ChunkLayout layout = ChunkLayout.of(ByteBuffer.wrap(data), 0, chunkSize, pool);
+        int rows = 0;
+        for (int chunk = 0; chunk < layout.getChunkCount(); chunk++) {
+            assertTrue(recordStarts.contains(layout.getStart(chunk)),
+                    "chunk " + chunk + " of size " + chunkSize + " starts at " + layout.getStart(chunk));
+            int chunkRows = 0;
+            CsvTokenizer chunkTokenizer = new CsvTokenizer(data, layout.getStart(chunk), layout.getEnd(chunk));
+            while (chunkTokenizer.nextRecord()) {
+                chunkRows++;
+            }
+            assertEquals(layout.getRowCount(chunk), chunkRows, "rows of chunk " + chunk + " of size " + chunkSize);
+            rows += chunkRows;
+        }
+        assertEquals(recordStarts.size(), rows);
+        assertEquals(recordStarts.size(), layout.getTotalRows());
+    }
+}
@@ -1,3 +1,4 @@
+import javafx.application.Platform;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.*;
@@ -5,6 +6,8 @@ import javafx.event.*;
 
 import javafx.fxml.FXML;
 
+import java.util.Set;
+
 /**
  * This file is part of "Property Hunter"
  * - a London property viewing application.
@@ -72,13 +75,28 @@ public class ComparisonController extends AbstractPanelController
     public void initModel(Model model) {
         setModel(model);
         comparisonHandler = model.getComparisonHandler();
+        model.getEventBus().subscribe(this::handleModelChange, Platform::runLater,
+                ModelChange.PRICE_RANGE, ModelChange.FAVOURITES);
+    }
+
+    /**
+     * Recomputes the comparison when the price range changes, and refreshes the borough
+     * choices when the favourite boroughs change
+     * @param changes The changes made to the model
+     */
+    private void handleModelChange(Set<ModelChange> changes) {
+        if (changes.contains(ModelChange.PRICE_RANGE)) {
+            updateLoadedListings();
+        }
+        if (changes.contains(ModelChange.FAVOURITES)) {
+            update();
+        }
     }
 
     /**
      * Clears any possible borough ChoiceBox selections, and updates them in
      * line with the current state of the user's favourite boroughs. This method is
-     * called every time the price range changes, or the Back/Next buttons are
-     * clicked.
+     * called every time the favourite boroughs change.
      */
     @Override
     public void update() {
@@ -88,6 +106,16 @@ public class ComparisonController extends AbstractPanelController
         comparisonHandler.getFavouriteBoroughs().forEach(b -> borough2.getItems().add(b));
     }
 
+    /**
+     * Recomputes the comparison in the table, if there is one, when more listings have been
+     * loaded. The borough selections are kept.
+     */
+    @Override
+    void updateLoadedListings() {
+        if (table.getItems().isEmpty()) { return; }
+        createListings();
+    }
+
     /**
      * Create a listing of each comparison type in the table.
      */
@@ -1,6 +1,7 @@
 import java.util.ArrayList;
 
 import java.util.HashSet;
+import java.util.PrimitiveIterator;
 
 /**
  * This file is part of "Property Hunter"
@@ -113,6 +114,7 @@ public class ComparisonHandler
         } else {
             favouriteBoroughs.add(borough);
         }
+        model.getEventBus().publish(ModelChange.FAVOURITES);
     }
     
     /**
@@ -135,7 +137,7 @@ public class ComparisonHandler
      * @return The number of properties within the borough
      */
     public String getNumberOfProperties(String borough) {
-        int count = priceRangeHandler.getListingsInPriceRangeFromBorough(borough).size();
+        int count = priceRangeHandler.getRowBitmapInPriceRangeFromBorough(model.getSnapshot(), borough).getCardinality();
         
         return Integer.toString(count);
     }
@@ -147,14 +149,17 @@ public class ComparisonHandler
      * @return The average price of each property within the borough
      */
     public String getAveragePrice(String borough) {
+        ModelSnapshot snapshot = model.getSnapshot();
+        ListingStore store = snapshot.getListingStore();
         double totalPrice = 0.0;
-        ArrayList<AirbnbListing> listings = priceRangeHandler.getListingsInPriceRangeFromBorough(borough);
+        RowBitmap rows = priceRangeHandler.getRowBitmapInPriceRangeFromBorough(snapshot, borough);
         
-        for (AirbnbListing listing : listings) {
-            totalPrice += listing.getPrice();
+        PrimitiveIterator.OfInt iterator = rows.iterator();
+        while (iterator.hasNext()) {
+            totalPrice += store.getPrice(iterator.nextInt());
         }
         
-        double average = totalPrice / listings.size();
+        double average = totalPrice / rows.getCardinality();
         
         average = ((double)Math.round(average * 100.0)) / 100.0;
         
@@ -169,14 +174,17 @@ public class ComparisonHandler
      * @return The average number of reviews within the borough
      */
     public String getAverageReviews(String borough) {
+        ModelSnapshot snapshot = model.getSnapshot();
+        ListingStore store = snapshot.getListingStore();
         double totalReviews = 0;
-        ArrayList<AirbnbListing> listings = priceRangeHandler.getListingsInPriceRangeFromBorough(borough);
+        RowBitmap rows = priceRangeHandler.getRowBitmapInPriceRangeFromBorough(snapshot, borough);
         
-        for (AirbnbListing listing : listings) {
-            totalReviews += listing.getNumberOfReviews();
+        PrimitiveIterator.OfInt iterator = rows.iterator();
+        while (iterator.hasNext()) {
+            totalReviews += store.getNumberOfReviews(iterator.nextInt());
         }
         
-        double average = totalReviews / listings.size();
+        double average = totalReviews / rows.getCardinality();
         
         average = ((double)Math.round(average * 100.0)) / 100.0;
         
@@ -191,10 +199,14 @@ public class ComparisonHandler
      * @return The total annual income of the borough
      */
     public String getAnnualIncome(String borough) {
+        ModelSnapshot snapshot = model.getSnapshot();
+        ListingStore store = snapshot.getListingStore();
         int totalIncome = 0;
         
-        for (AirbnbListing listing : priceRangeHandler.getListingsInPriceRangeFromBorough(borough)) {
-            totalIncome += listing.getPrice() * listing.getAvailability365();
+        PrimitiveIterator.OfInt rows = priceRangeHandler.getRowBitmapInPriceRangeFromBorough(snapshot, borough).iterator();
+        while (rows.hasNext()) {
+            int row = rows.nextInt();
+            totalIncome += store.getPrice(row) * store.getAvailability365(row);
         }
         
         return "£" + Integer.toString(totalIncome);
@@ -206,10 +218,13 @@ public class ComparisonHandler
      * @return The number of hosts participating in the borough
      */
     public String getNumberOfHosts(String borough) {
+        ModelSnapshot snapshot = model.getSnapshot();
+        ListingStore store = snapshot.getListingStore();
         HashSet<String> hosts = new HashSet<>();
         
-        for (AirbnbListing listing : priceRangeHandler.getListingsInPriceRangeFromBorough(borough)) {
-            hosts.add(listing.getHost_id());
+        PrimitiveIterator.OfInt rows = priceRangeHandler.getRowBitmapInPriceRangeFromBorough(snapshot, borough).iterator();
+        while (rows.hasNext()) {
+            hosts.add(store.getHostId(rows.nextInt()));
         }
         
         return Integer.toString(hosts.size());
@@ -221,10 +236,15 @@ public class ComparisonHandler
      * @return The number of private rooms in the borough
      */
     public String getNumberOfPrivateRooms(String borough) {
+        ModelSnapshot snapshot = model.getSnapshot();
+        ListingStore store = snapshot.getListingStore();
+        int ordinal = store.getNeighbourhoods().getCode(borough);
+        int privateRoom = store.getRoomTypes().getCode("Private room");
         int count = 0;
         
-        for (AirbnbListing listing : priceRangeHandler.getListingsInPriceRangeFromBorough(borough)) {
-            if (listing.getRoom_type().equals("Private room")) count += 1;
+        if (ordinal != ListingFilter.ANY && privateRoom != ListingFilter.ANY) {
+            ListingFilter filter = snapshot.getPriceFilter().withBorough(ordinal).withRoomType(privateRoom);
+            count = model.getFilterEngine().getRows(snapshot, filter).getCardinality();
         }
         
         return Integer.toString(count);
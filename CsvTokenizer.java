@@ -0,0 +1,535 @@
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+
+/**
+ * This file is part of "Property Hunter"
+ * - a London property viewing application.
+ *
+ * A CsvTokenizer splits the records of a CSV file held in a byte array into fields,
+ * without creating an object per field. The fields of the current record are decoded
+ * into one reusable buffer, from which numeric fields are parsed directly, so only the
+ * text fields which are asked for become Strings.
+ *
+ * Fields are decoded exactly as opencsv's default CSVParser and CSVReader decode them,
+ * so that the data set loads the same as it did through opencsv:
+ *  - a quote starts or ends a quoted section, in which commas and line breaks are kept
+ *  - within a field, two quotes in a row, or a backslash and a quote, are one quote,
+ *    and two backslashes are one backslash. Any other backslash is dropped
+ *  - a quote which is neither at the start nor the end of a field is also kept
+ *  - lines end with "\n", "\r\n" or "\r", and a line break within a quoted section
+ *    becomes "\n"
+ *
+ * @author Ubayd Khan (k20044237), Mohammed Chowdhury (k21074018), Omar Ahmad (k210524117), Muhammad Beg (k21057641)
+ * @version 30.03.2022
+ */
+public class CsvTokenizer
+{
+    private static final byte SEPARATOR = ',';
+    private static final byte QUOTE = '"';
+    private static final byte ESCAPE = '\\';
+
+    // the largest power of ten which a double holds exactly
+    private static final int MAX_EXACT_POWER = 22;
+    private static final double[] POWERS_OF_TEN = new double[MAX_EXACT_POWER + 1];
+    // the most significant digits whose value a double holds exactly
+    private static final int MAX_EXACT_DIGITS = 15;
+
+    static {
+        POWERS_OF_TEN[0] = 1.0;
+        for (int i = 1; i <= MAX_EXACT_POWER; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private final byte[] data;
+    private final int end;
+    private int position;
+    private int recordStart;
+
+    // the decoded fields of the current record, one after another
+    private byte[] fields = new byte[256];
+    private int fieldsLength;
+    private int[] fieldStarts = new int[16];
+    private int[] fieldEnds = new int[16];
+    private int fieldCount;
+
+    /**
+     * Creates a tokenizer over part of a CSV file, which must start at the start of a record
+     * @param data The contents of the CSV file
+     * @param from The offset of the first record
+     * @param to The offset just past the last record
+     */
+    public CsvTokenizer(byte[] data, int from, int to) {
+        this.data = data;
+        this.position = from;
+        this.end = to;
+    }
+
+    /**
+     * Decides if a backslash escapes the character after it. ChunkLayout follows the same
+     * rule when it looks for record boundaries, so both agree on where quotes are.
+     * @param next The character after the backslash
+     * @param inQuotes If the backslash is inside a quoted section
+     * @param inField If the backslash is part way through a field
+     * @return If the backslash and the next character are read as the next character
+     */
+    static boolean isEscape(byte next, boolean inQuotes, boolean inField) {
+        return (inQuotes || inField) && (next == QUOTE || next == ESCAPE);
+    }
+
+    /**
+     * Decides if a quote is the first of a pair, which is read as a single quote
+     * @param next The character after the quote
+     * @param inQuotes If the quote is inside a quoted section
+     * @param inField If the quote is part way through a field
+     * @return If the two quotes are read as one
+     */
+    static boolean isDoubledQuote(byte next, boolean inQuotes, boolean inField) {
+        return (inQuotes || inField) && next == QUOTE;
+    }
+
+    /**
+     * Reads the next record, replacing the fields of the current one
+     * @return If there was another record
+     */
+    public boolean nextRecord() {
+        if (position >= end) {
+            return false;
+        }
+        recordStart = position;
+        fieldsLength = 0;
+        fieldCount = 0;
+
+        boolean inQuotes = false;
+        // opencsv keeps whether it is part way through a field across the lines of a record
+        boolean inField = false;
+        int fieldStart = 0;
+
+        while (true) {
+            int lineStart = position;
+            int lineEnd = findLineEnd(lineStart);
+            int character = 0;
+            int i = lineStart;
+            while (i < lineEnd) {
+                byte b = data[i];
+                if (b == ESCAPE) {
+                    if (i + 1 < lineEnd && isEscape(data[i + 1], inQuotes, inField)) {
+                        append(data[++i]);
+                        character++;
+                    }
+                } else if (b == QUOTE) {
+                    if (i + 1 < lineEnd && isDoubledQuote(data[i + 1], inQuotes, inField)) {
+                        append(data[++i]);
+                        character++;
+                    } else {
+                        inQuotes = !inQuotes;
+                        // a quote inside a field, rather than around it, is part of the field
+                        if (character > 2 && data[i - 1] != SEPARATOR && i + 1 < lineEnd && data[i + 1] != SEPARATOR) {
+                            if (fieldsLength > fieldStart && isWhitespace(fieldStart, fieldsLength)) {
+                                fieldsLength = fieldStart;
+                            } else {
+                                append(b);
+                            }
+                        }
+                    }
+                    // opencsv turns this over for every quote, even one of a pair
+                    inField = !inField;
+                } else if (b == SEPARATOR && !inQuotes) {
+                    addField(fieldStart);
+                    fieldStart = fieldsLength;
+                    inField = false;
+                } else {
+                    append(b);
+                    inField = true;
+                }
+                i++;
+                // count characters rather than bytes, skipping the continuation bytes of UTF-8
+                while (i < lineEnd && (data[i] & 0xC0) == 0x80) {
+                    append(data[i++]);
+                }
+                character++;
+            }
+            position = skipLineBreak(lineEnd);
+
+            if (!inQuotes) {
+                addField(fieldStart);
+                return true;
+            }
+            if (position >= end) {
+                // an unterminated quote loses its field, as in opencsv
+                return true;
+            }
+            append((byte) '\n');
+            inQuotes = true;
+        }
+    }
+
+    /**
+     * @return The offset of the start of the current record
+     */
+    public int getRecordStart() {
+        return recordStart;
+    }
+
+    /**
+     * @return The number of fields in the current record
+     */
+    public int getFieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * Gets a field of the current record as a String
+     * @param field The index of the field
+     * @return The text of the field
+     */
+    public String getText(int field) {
+        checkField(field);
+        return new String(fields, fieldStarts[field], fieldEnds[field] - fieldStarts[field], StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Gets a field of the current record as a String, reusing a String from the cache
+     * if the same text has been seen recently. Suited to columns with few distinct values.
+     * @param field The index of the field
+     * @param cache The recently seen values of the column
+     * @return The text of the field
+     */
+    public String getText(int field, TextCache cache) {
+        checkField(field);
+        return cache.get(fields, fieldStarts[field], fieldEnds[field]);
+    }
+
+    /**
+     * Parses a field of the current record as an int, in the same way as Integer.parseInt
+     * @param field The index of the field
+     * @return The value of the field, or -1 if the field is empty or just whitespace
+     */
+    public int getInt(int field) {
+        checkField(field);
+        int from = fieldStarts[field];
+        int to = fieldEnds[field];
+        if (isBlank(from, to)) {
+            return -1;
+        }
+
+        int i = from;
+        boolean negative = fields[i] == '-';
+        if (negative || fields[i] == '+') {
+            i++;
+        }
+        // up to 9 digits cannot overflow; anything longer or unusual is left to Integer.parseInt
+        if (i == to || to - i > 9) {
+            return Integer.parseInt(toString(from, to));
+        }
+        int value = 0;
+        for (; i < to; i++) {
+            int digit = fields[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return Integer.parseInt(toString(from, to));
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Parses a field of the current record holding an ISO date, such as "2019-11-04",
+     * as the number of days since 1970-01-01
+     * @param field The index of the field
+     * @return The epoch day of the date, or Integer.MIN_VALUE if the field is empty or just whitespace
+     * @throws java.time.format.DateTimeParseException If the field does not hold a date
+     */
+    public int getEpochDay(int field) {
+        checkField(field);
+        int from = fieldStarts[field];
+        int to = fieldEnds[field];
+        if (isBlank(from, to)) {
+            return Integer.MIN_VALUE;
+        }
+
+        // anything but the usual yyyy-MM-dd is left to LocalDate.parse
+        if (to - from != 10 || fields[from + 4] != '-' || fields[from + 7] != '-'
+                || !isDigits(from, from + 4) || !isDigits(from + 5, from + 7) || !isDigits(from + 8, to)) {
+            return (int) LocalDate.parse(toString(from, to).trim()).toEpochDay();
+        }
+        int year = parseDigits(from, from + 4);
+        int month = parseDigits(from + 5, from + 7);
+        int day = parseDigits(from + 8, to);
+        try {
+            return (int) LocalDate.of(year, month, day).toEpochDay();
+        } catch (DateTimeException e) {
+            throw new DateTimeParseException(e.getMessage(), toString(from, to), 0, e);
+        }
+    }
+
+    /**
+     * Parses a field of the current record holding an amount of money, as a whole number.
+     * The number may follow a currency symbol and have commas between its digits, as in
+     * "$1,250.00"; a plain whole number is read as getInt reads it.
+     * @param field The index of the field
+     * @return The amount rounded to the nearest whole number, or -1 if the field is empty or just whitespace
+     * @throws NumberFormatException If the field does not hold an amount
+     */
+    public int getAmount(int field) {
+        checkField(field);
+        int from = fieldStarts[field];
+        int to = fieldEnds[field];
+        if (isBlank(from, to)) {
+            return -1;
+        }
+
+        // skip whitespace, a sign and a currency symbol, which may be several bytes of UTF-8
+        int i = from;
+        boolean negative = false;
+        while (i < to && !isDigit(fields[i])) {
+            byte b = fields[i];
+            if (b == '-') {
+                negative = true;
+            } else if (b != '+' && b != '$' && (b & 0xFF) > ' ' && (b & 0x80) == 0) {
+                break;
+            }
+            i++;
+        }
+
+        long value = 0;
+        int digits = 0;
+        for (; i < to && (isDigit(fields[i]) || fields[i] == ','); i++) {
+            if (fields[i] != ',') {
+                value = value * 10 + (fields[i] - '0');
+                digits++;
+                if (value > Integer.MAX_VALUE) {
+                    return Integer.parseInt(toString(from, to));
+                }
+            }
+        }
+        if (i < to && fields[i] == '.') {
+            i++;
+            if (i < to && isDigit(fields[i]) && fields[i] >= '5') {
+                value++;
+            }
+            while (i < to && isDigit(fields[i])) {
+                i++;
+            }
+        }
+        while (i < to && (fields[i] & 0xFF) <= ' ') {
+            i++;
+        }
+        if (i != to || digits == 0 || value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("For input string: \"" + toString(from, to) + "\"");
+        }
+        return (int) (negative ? -value : value);
+    }
+
+    /**
+     * Parses a field of the current record as a double, giving exactly the same value as
+     * Double.parseDouble. Plain decimals with up to 15 significant digits are converted
+     * with a single exact multiplication or division; any other form is left to
+     * Double.parseDouble.
+     * @param field The index of the field
+     * @return The value of the field, or -1.0 if the field is empty or just whitespace
+     */
+    public double getDouble(int field) {
+        checkField(field);
+        int from = fieldStarts[field];
+        int to = fieldEnds[field];
+        if (isBlank(from, to)) {
+            return -1.0;
+        }
+
+        // Double.parseDouble ignores surrounding whitespace
+        int i = from;
+        while ((fields[i] & 0xFF) <= ' ') i++;
+        int last = to;
+        while ((fields[last - 1] & 0xFF) <= ' ') last--;
+
+        boolean negative = fields[i] == '-';
+        if (negative || fields[i] == '+') {
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int significantDigits = 0;
+        int fractionDigits = 0;
+        boolean inFraction = false;
+        for (; i < last; i++) {
+            byte b = fields[i];
+            if (b == '.' && !inFraction) {
+                inFraction = true;
+                continue;
+            }
+            int digit = b - '0';
+            if (digit < 0 || digit > 9) {
+                return Double.parseDouble(toString(from, to));
+            }
+            digits++;
+            if (mantissa != 0 || digit != 0) {
+                significantDigits++;
+            }
+            mantissa = mantissa * 10 + digit;
+            if (inFraction) {
+                fractionDigits++;
+            }
+            if (significantDigits > MAX_EXACT_DIGITS || fractionDigits > MAX_EXACT_POWER) {
+                return Double.parseDouble(toString(from, to));
+            }
+        }
+        if (digits == 0) {
+            return Double.parseDouble(toString(from, to));
+        }
+
+        double value = (double) mantissa / POWERS_OF_TEN[fractionDigits];
+        return negative ? -value : value;
+    }
+
+    /**
+     * @param field The index of the field
+     * @return If the field is empty or just whitespace
+     */
+    public boolean isEmpty(int field) {
+        checkField(field);
+        return isBlank(fieldStarts[field], fieldEnds[field]);
+    }
+
+    /**
+     * Finds the end of the line starting at the given offset, not including its line break
+     */
+    private int findLineEnd(int from) {
+        int i = from;
+        while (i < end && data[i] != '\n' && data[i] != '\r') {
+            i++;
+        }
+        return i;
+    }
+
+    private boolean isDigits(int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (!isDigit(fields[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int parseDigits(int from, int to) {
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            value = value * 10 + (fields[i] - '0');
+        }
+        return value;
+    }
+
+    /**
+     * @return The offset just past the line break at the given offset, if there is one
+     */
+    private int skipLineBreak(int lineEnd) {
+        if (lineEnd < end && data[lineEnd] == '\r') {
+            lineEnd++;
+        }
+        if (lineEnd < end && data[lineEnd] == '\n') {
+            lineEnd++;
+        }
+        return lineEnd;
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    private void append(byte b) {
+        if (fieldsLength == fields.length) {
+            fields = Arrays.copyOf(fields, fields.length * 2);
+        }
+        fields[fieldsLength++] = b;
+    }
+
+    private void addField(int start) {
+        if (fieldCount == fieldStarts.length) {
+            fieldStarts = Arrays.copyOf(fieldStarts, fieldCount * 2);
+            fieldEnds = Arrays.copyOf(fieldEnds, fieldCount * 2);
+        }
+        fieldStarts[fieldCount] = start;
+        fieldEnds[fieldCount] = fieldsLength;
+        fieldCount++;
+    }
+
+    private void checkField(int field) {
+        if (field < 0 || field >= fieldCount) {
+            throw new IndexOutOfBoundsException("Field " + field + " of a record with " + fieldCount + " fields");
+        }
+    }
+
+    /**
+     * Checks whether decoded bytes are empty or only hold characters which String.trim removes
+     */
+    private boolean isBlank(int from, int to) {
+        for (int i = from; i < to; i++) {
+            if ((fields[i] & 0xFF) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether decoded bytes are all whitespace, according to Character.isWhitespace
+     * as opencsv checks it. Text beyond ASCII is checked as a String.
+     */
+    private boolean isWhitespace(int from, int to) {
+        for (int i = from; i < to; i++) {
+            int b = fields[i] & 0xFF;
+            if (b >= 0x80) {
+                return toString(from, to).chars().allMatch(Character::isWhitespace);
+            }
+            if (!Character.isWhitespace(b)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String toString(int from, int to) {
+        return new String(fields, from, to - from, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * A small cache of recently seen Strings, looked up by their UTF-8 bytes, so that a
+     * column with few distinct values does not create a new String for every row. Each
+     * slot holds one String; a new value replaces whatever was in its slot.
+     */
+    public static class TextCache {
+        private final byte[][] keys;
+        private final String[] values;
+        private final int mask;
+
+        /**
+         * @param slots The number of Strings kept, rounded up to a power of two
+         */
+        public TextCache(int slots) {
+            int size = Integer.highestOneBit(Math.max(1, slots - 1)) << 1;
+            keys = new byte[size][];
+            values = new String[size];
+            mask = size - 1;
+        }
+
+        String get(byte[] bytes, int from, int to) {
+            int hash = 1;
+            for (int i = from; i < to; i++) {
+                hash = 31 * hash + bytes[i];
+            }
+            int slot = (hash ^ (hash >>> 16)) & mask;
+
+            byte[] key = keys[slot];
+            if (key != null && Arrays.equals(key, 0, key.length, bytes, from, to)) {
+                return values[slot];
+            }
+            String value = new String(bytes, from, to - from, StandardCharsets.UTF_8);
+            keys[slot] = Arrays.copyOfRange(bytes, from, to);
+            values[slot] = value;
+            return value;
+        }
+    }
+}
@@ -0,0 +1,230 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import com.opencsv.CSVReader;
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * This file is part of "Property Hunter"
+ * - a London property viewing application.
+ *
+ * This class tests that CsvTokenizer reads records exactly as opencsv does, and that
+ * its number and date parsers agree with the parsers of the Java library.
+ * 
+ * @author Ubayd Khan (k20044237), Mohammed Chowdhury (k21074018), Omar Ahmad (k210524117), Muhammad Beg (k21057641)
+ * @version 30.03.2022
+ */
+public class CsvTokenizerTest
+{
+    private static final String[] PIECES = {
+        "a", "plain text", " spaced ", ",", "\"", "\"\"", "\\", "\\\"", "\\\\", "\n", "\r\n",
+        "£", "é", "日本", "😀", "x\"y", "'", ";", "\t", "0", "12.5"
+    };
+
+    @Test
+    public void testFixedRecords()
+    {
+        assertTrue(compareWithOpenCsv("id,name,price\n1,plain,10\n"));
+        assertTrue(compareWithOpenCsv("1,\"quoted, with comma\",\"doubled \"\" quote\"\n"));
+        assertTrue(compareWithOpenCsv("1,\"escaped \\\" quote\",abc\\\"def,a\\\\b,a\\b\n"));
+        assertTrue(compareWithOpenCsv("1,\"two\nlines\",\"three\r\nlines\r\nhere\",x\r\n2,y,z\r\n"));
+        assertTrue(compareWithOpenCsv("1,\"\"\"\",\"\",  \"padded\"  ,end\n"));
+        assertTrue(compareWithOpenCsv("1,Café £10 日本 😀,\"naïve, ok\"\n2,,,\n"));
+        assertTrue(compareWithOpenCsv("1,no line break at the end"));
+    }
+
+    @Test
+    public void testRandomRecords()
+    {
+        Random random = new Random(20220330);
+        int compared = 0;
+        for (int file = 0; file < 500; file++) {
+            StringBuilder csv = new StringBuilder();
+            int records = 1 + random.nextInt(8);
+            for (int record = 0; record < records; record++) {
+                int fields = 1 + random.nextInt(6);
+                for (int field = 0; field < fields; field++) {
+                    if (field > 0) {
+                        csv.append(',');
+                    }
+                    boolean quoted = random.nextInt(3) == 0;
+                    StringBuilder text = new StringBuilder();
+                    int pieces = random.nextInt(5);
+                    for (int piece = 0; piece < pieces; piece++) {
+                        String next = PIECES[random.nextInt(PIECES.length)];
+                        // a bare line break or quote outside quotes would end or open a field, but
+                        // an escaped quote part way through a field is kept
+                        boolean escapedInField = next.equals("\\\"") && text.length() > 0;
+                        if (!quoted && (next.contains("\n") || next.equals(",") || (next.contains("\"") && !escapedInField))) {
+                            next = "b";
+                        }
+                        if (quoted && (next.equals("\"") || next.equals("x\"y"))) {
+                            next = next.replace("\"", "\"\"");
+                        }
+                        text.append(next);
+                    }
+                    // a backslash at the end of a quoted field would escape the closing quote
+                    if (quoted && text.length() > 0 && text.charAt(text.length() - 1) == '\\') {
+                        text.append('c');
+                    }
+                    csv.append(quoted ? "\"" + text + "\"" : text);
+                }
+                csv.append(random.nextBoolean() ? "\n" : "\r\n");
+            }
+            if (compareWithOpenCsv(csv.toString())) {
+                compared++;
+            }
+        }
+        // only files opencsv rejects are skipped, which should be few
+        assertTrue(compared > 450, compared + " files compared");
+    }
+
+    @Test
+    public void testGetDouble()
+    {
+        String[] values = {"0", "1", "-1", "+2.5", "12.50", "0.1", "51.50831", "-0.12783", ".5", "5.",
+            "123456789012345", "1234567890123456", "0.000000000000000000000001", "1e10", "1.5E-3",
+            " 7.25 ", "00012.000", "9007199254740993", "4.35", "0.3"};
+        for (String value : values) {
+            assertEquals(Double.parseDouble(value), getDouble(value), value);
+        }
+        Random random = new Random(17);
+        for (int i = 0; i < 20000; i++) {
+            String value = randomDecimal(random);
+            assertEquals(Double.parseDouble(value), getDouble(value), value);
+        }
+        assertEquals(-1.0, getDouble(""));
+        assertEquals(-1.0, getDouble("  "));
+    }
+
+    @Test
+    public void testGetAmount()
+    {
+        String[] values = {"0", "10", "$10", "$1,250.00", "1,250", "$0.49", "$0.50", "$2.5", "-$3.50",
+            " $75.00 ", "$1,000,000.99", "12.4999", "£99"};
+        for (String value : values) {
+            assertEquals(expectedAmount(value), getAmount(value), value);
+        }
+        Random random = new Random(29);
+        for (int i = 0; i < 20000; i++) {
+            String value = "$" + String.format("%,d", random.nextInt(1000000)) + "." + random.nextInt(10) + random.nextInt(10);
+            assertEquals(expectedAmount(value), getAmount(value), value);
+        }
+        assertEquals(-1, getAmount(""));
+        assertThrows(NumberFormatException.class, () -> getAmount("$"));
+        assertThrows(NumberFormatException.class, () -> getAmount("ten"));
+    }
+
+    @Test
+    public void testGetEpochDay()
+    {
+        String[] values = {"1970-01-01", "2019-11-04", "2000-02-29", "1969-12-31", "2022-03-30", "0001-01-01"};
+        for (String value : values) {
+            assertEquals(LocalDate.parse(value).toEpochDay(), getEpochDay(value), value);
+        }
+        LocalDate date = LocalDate.of(1990, 1, 1);
+        for (int i = 0; i < 15000; i++) {
+            assertEquals(date.toEpochDay(), getEpochDay(date.toString()), date.toString());
+            date = date.plusDays(1);
+        }
+        assertEquals(Integer.MIN_VALUE, getEpochDay(""));
+        assertThrows(java.time.format.DateTimeParseException.class, () -> getEpochDay("2019-02-30"));
+        assertThrows(java.time.format.DateTimeParseException.class, () -> getEpochDay("04/11/2019"));
+    }
+
+    /**
+     * Checks that the tokenizer reads the same records and fields from the CSV as opencsv
+     * @return If opencsv could read the CSV, so that it was compared
+     */
+    private boolean compareWithOpenCsv(String csv)
+    {
+        byte[] data = csv.getBytes(StandardCharsets.UTF_8);
+        List<String[]> expected = new ArrayList<>();
+        try (CSVReader reader = new CSVReader(new InputStreamReader(new ByteArrayInputStream(data), StandardCharsets.UTF_8))) {
+            String[] record;
+            while ((record = reader.readNext()) != null) {
+                expected.add(record);
+            }
+        } catch (Exception e) {
+            // opencsv rejects a quote left open at the end of the file, where the tokenizer drops the field
+            return false;
+        }
+
+        CsvTokenizer tokenizer = new CsvTokenizer(data, 0, data.length);
+        for (String[] record : expected) {
+            assertTrue(tokenizer.nextRecord(), "missing record in " + csv);
+            String[] fields = new String[tokenizer.getFieldCount()];
+            for (int field = 0; field < fields.length; field++) {
+                fields[field] = tokenizer.getText(field);
+            }
+            assertArrayEquals(record, fields, csv);
+        }
+        assertFalse(tokenizer.nextRecord(), "extra record in " + csv);
+        return true;
+    }
+
+    /**
+     * @return A random decimal, with up to 18 digits either side of the point
+     */
+    private String randomDecimal(Random random)
+    {
+        StringBuilder value = new StringBuilder();
+        if (random.nextBoolean()) {
+            value.append('-');
+        }
+        int whole = 1 + random.nextInt(random.nextBoolean() ? 3 : 18);
+        for (int i = 0; i < whole; i++) {
+            value.append(random.nextInt(10));
+        }
+        int fraction = random.nextInt(random.nextBoolean() ? 6 : 18);
+        if (fraction > 0) {
+            value.append('.');
+            for (int i = 0; i < fraction; i++) {
+                value.append(random.nextInt(10));
+            }
+        }
+        return value.toString();
+    }
+
+    /**
+     * @return The amount rounded half up, worked out with BigDecimal
+     */
+    private int expectedAmount(String value)
+    {
+        String number = value.trim().replace("$", "").replace("£", "").replace(",", "");
+        return new BigDecimal(number).setScale(0, RoundingMode.HALF_UP).intValueExact();
+    }
+
+    private double getDouble(String value)
+    {
+        return tokenizerOf(value).getDouble(0);
+    }
+
+    private int getAmount(String value)
+    {
+        return tokenizerOf(value).getAmount(0);
+    }
+
+    private int getEpochDay(String value)
+    {
+        return tokenizerOf(value).getEpochDay(0);
+    }
+
+    /**
+     * @return A tokenizer whose current record is a single field holding the value
+     */
+    private CsvTokenizer tokenizerOf(String value)
+    {
+        byte[] data = ("\"" + value + "\"\n").getBytes(StandardCharsets.UTF_8);
+        CsvTokenizer tokenizer = new CsvTokenizer(data, 0, data.length);
+        assertTrue(tokenizer.nextRecord());
+        return tokenizer;
+    }
+}
@@ -0,0 +1,135 @@
+import java.net.URL;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * This file is part of "Property Hunter"
+ * - a London property viewing application.
+ *
+ * A DatasetRegistry knows of several data sets in the Airbnb CSV format, such as
+ * different cities or scrape dates, and loads each one only when it is first asked
+ * for. Loaded data sets stay resident so that switching back to one is instant, but
+ * only up to a memory budget: once the estimated size of the resident data sets goes
+ * over the budget, the least recently used ones are evicted. An evicted data set is
+ * loaded again if it is asked for later, from its snapshot if it has one.
+ *
+ * @author Ubayd Khan (k20044237), Mohammed Chowdhury (k21074018), Omar Ahmad (k210524117), Muhammad Beg (k21057641)
+ * @version 30.03.2022
+ */
+public class DatasetRegistry
+{
+    // by default resident data sets may take up a quarter of the heap
+    private static final int DEFAULT_HEAP_FRACTION = 4;
+
+    private final long maxResidentBytes;
+    private final LinkedHashMap<String, URL> sources = new LinkedHashMap<>();
+    // in order of use, least recently used first
+    private final LinkedHashMap<String, ListingStore> resident = new LinkedHashMap<>(16, 0.75f, true);
+    private final HashMap<String, Long> residentSizes = new HashMap<>();
+    private final HashMap<String, LoaderStats> loaderStats = new HashMap<>();
+    private long residentBytes;
+
+    /**
+     * Creates an empty registry whose resident data sets may take up a quarter of the heap
+     */
+    public DatasetRegistry() {
+        this(Runtime.getRuntime().maxMemory() / DEFAULT_HEAP_FRACTION);
+    }
+
+    /**
+     * Creates an empty registry
+     * @param maxResidentBytes The estimated number of bytes the resident data sets may take up
+     */
+    public DatasetRegistry(long maxResidentBytes) {
+        this.maxResidentBytes = maxResidentBytes;
+    }
+
+    /**
+     * Adds a data set to the registry, without loading it
+     * @param name The name the data set is asked for by, e.g. "London 2022-03"
+     * @param source The location of the data set's CSV file
+     */
+    public synchronized void register(String name, URL source) {
+        if (source == null) {
+            throw new IllegalArgumentException("No CSV file for data set " + name);
+        }
+        sources.put(name, source);
+    }
+
+    /**
+     * @return The names of every registered data set, in the order they were registered
+     */
+    public synchronized Set<String> getDatasetNames() {
+        return Collections.unmodifiableSet(new LinkedHashSet<>(sources.keySet()));
+    }
+
+    /**
+     * Gets the rows of a data set, loading it first if it is not resident. Loading may
+     * evict other data sets which have not been used recently.
+     * @param name The name of the data set
+     * @return The rows of the data set
+     */
+    public synchronized ListingStore get(String name) {
+        ListingStore listings = resident.get(name);
+        if (listings != null) {
+            return listings;
+        }
+        URL source = sources.get(name);
+        if (source == null) {
+            throw new IllegalArgumentException("Unknown data set " + name);
+        }
+
+        listings = new ListingStore();
+        loaderStats.put(name, new AirbnbDataLoader(source).load(listings));
+        long bytes = listings.getEstimatedBytes();
+        resident.put(name, listings);
+        residentSizes.put(name, bytes);
+        residentBytes += bytes;
+        evict(name);
+        return listings;
+    }
+
+    /**
+     * @param name The name of the data set
+     * @return If the data set is loaded, so that getting it is instant
+     */
+    public synchronized boolean isResident(String name) {
+        return resident.containsKey(name);
+    }
+
+    /**
+     * @param name The name of the data set
+     * @return How the data set's most recent load went, or null if it has never been loaded
+     */
+    public synchronized LoaderStats getLoaderStats(String name) {
+        return loaderStats.get(name);
+    }
+
+    /**
+     * @return The estimated number of bytes taken up by the resident data sets
+     */
+    public synchronized long getResidentBytes() {
+        return residentBytes;
+    }
+
+    /**
+     * Evicts the least recently used data sets until the resident ones fit the budget.
+     * The data set being used is never evicted, even if it alone is over the budget.
+     * @param inUse The name of the data set being used
+     */
+    private void evict(String inUse) {
+        Iterator<java.util.Map.Entry<String, ListingStore>> eldest = resident.entrySet().iterator();
+        while (residentBytes > maxResidentBytes && eldest.hasNext()) {
+            java.util.Map.Entry<String, ListingStore> entry = eldest.next();
+            if (entry.getKey().equals(inUse)) {
+                continue;
+            }
+            residentBytes -= residentSizes.remove(entry.getKey());
+            eldest.remove();
+        }
+    }
+}
@@ -0,0 +1,228 @@
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.PrimitiveIterator;
+import java.util.function.IntPredicate;
+
+/**
+ * This file is part of "Property Hunter"
+ * - a London property viewing application.
+ *
+ * A FilterEngine is the one place ListingFilters are evaluated, so every handler finds
+ * the rows of a filter the same way. The parts of a filter with an index are taken
+ * from the indices and combined as bitmaps: the price range from the PriceIndex, and
+ * the nights, reviews, room type and borough from the BitmapIndex. The remaining parts
+ * are then checked in a single pass over the rows which are left, with the predicate
+ * compiled from the filter.
+ *
+ * The rows of recent filters are kept in a cache, keyed by the normalised filter, so
+ * going back to a filter already seen costs a lookup rather than an evaluation. The
+ * cache holds the rows as compressed bitmaps, drops the least recently used filters
+ * once their bitmaps take up more than a budget of bytes, and is emptied whenever the
+ * model's snapshot takes in more rows or another store. The store's own size is not
+ * used, since it goes up before the indices are told about the new rows; the snapshot
+ * only takes in rows once every index has them, and rows past its size are left out.
+ *
+ * @author Ubayd Khan (k20044237), Mohammed Chowdhury (k21074018), Omar Ahmad (k210524117), Muhammad Beg (k21057641)
+ * @version 30.03.2022
+ */
+public class FilterEngine
+{
+    // the default number of bytes the cached rows may take up
+    public static final long DEFAULT_CACHE_BYTES = 16L * 1024 * 1024;
+
+    private final Model model;
+    private final long cacheBytes;
+
+    // the rows of recently evaluated filters, least recently used first
+    private final LinkedHashMap<ListingFilter, CachedRows> cache = new LinkedHashMap<>(16, 0.75f, true);
+    // the store and number of rows of the snapshot the cached filters were evaluated over
+    private ListingStore cachedListings;
+    private int cachedSize;
+    // the version of the newest snapshot seen
+    private long cachedVersion = -1;
+    private long cachedBytes;
+    private long hits;
+    private long misses;
+
+    /**
+     * Creates an engine which evaluates filters against the model's store and indices,
+     * with the default cache budget
+     * @param model The model object of the application
+     */
+    public FilterEngine(Model model) {
+        this(model, DEFAULT_CACHE_BYTES);
+    }
+
+    /**
+     * Creates an engine which evaluates filters against the model's store and indices
+     * @param model The model object of the application
+     * @param cacheBytes The number of bytes the cached rows may take up, or 0 for no cache
+     */
+    public FilterEngine(Model model, long cacheBytes) {
+        this.model = model;
+        this.cacheBytes = cacheBytes;
+    }
+
+    /**
+     * Finds the rows let through by a filter over the rows of the model's current snapshot
+     * @param filter The filter to be evaluated
+     * @return A bitmap of the rows let through, which must not be changed as it may be shared
+     */
+    public RowBitmap getRows(ListingFilter filter) {
+        return getRows(model.getSnapshot(), filter);
+    }
+
+    /**
+     * Finds the rows let through by a filter over the rows of a snapshot, reusing the cached
+     * rows if the filter has been seen. Only the newest snapshot seen is cached, so a caller
+     * still working on an older one has its filter evaluated afresh.
+     * @param snapshot The snapshot whose store and size bound the rows
+     * @param filter The filter to be evaluated
+     * @return A bitmap of the rows let through, which must not be changed as it may be shared
+     */
+    public synchronized RowBitmap getRows(ModelSnapshot snapshot, ListingFilter filter) {
+        ListingStore listings = snapshot.getListingStore();
+        int size = snapshot.getSize();
+        if (listings != cachedListings || size != cachedSize) {
+            if (snapshot.getVersion() < cachedVersion) {
+                misses++;
+                return evaluate(filter.normalise(), listings, size);
+            }
+            clear();
+            cachedListings = listings;
+            cachedSize = size;
+        }
+        cachedVersion = Math.max(cachedVersion, snapshot.getVersion());
+
+        ListingFilter key = filter.normalise();
+        CachedRows cached = cache.get(key);
+        if (cached != null) {
+            hits++;
+            return cached.rows;
+        }
+
+        misses++;
+        RowBitmap rows = evaluate(key, listings, size);
+        long bytes = rows.getSizeInBytes();
+        if (bytes <= cacheBytes) {
+            cache.put(key, new CachedRows(rows, bytes));
+            cachedBytes += bytes;
+            evict();
+        }
+        return rows;
+    }
+
+    /**
+     * Drops the least recently used filters until the cached rows are within the budget
+     */
+    private void evict() {
+        Iterator<CachedRows> eldest = cache.values().iterator();
+        while (cachedBytes > cacheBytes && eldest.hasNext()) {
+            cachedBytes -= eldest.next().bytes;
+            eldest.remove();
+        }
+    }
+
+    /**
+     * Empties the cache, keeping the counts of hits and misses
+     */
+    public synchronized void clear() {
+        cache.clear();
+        cachedBytes = 0;
+    }
+
+    /**
+     * @return The number of filters whose rows were found in the cache
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return The number of filters which had to be evaluated
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return The number of filters in the cache
+     */
+    public synchronized int getCachedFilters() {
+        return cache.size();
+    }
+
+    /**
+     * @return Roughly how many bytes the cached rows take up
+     */
+    public synchronized long getCachedBytes() {
+        return cachedBytes;
+    }
+
+    /**
+     * Evaluates a filter, from the indices and then row by row for the parts without an index.
+     * The indices may already hold rows past the given size, which are left out.
+     * @param filter The filter to be evaluated
+     * @param listings The store the filter is evaluated against
+     * @param size The number of rows of the store the filter is evaluated over
+     * @return A new bitmap of the rows let through
+     */
+    private RowBitmap evaluate(ListingFilter filter, ListingStore listings, int size) {
+        BitmapIndex bitmapIndex = model.getBitmapIndex();
+        PriceIndex priceIndex = model.getPriceIndex();
+        if (bitmapIndex.getListingStore() != listings || priceIndex.getListingStore() != listings) {
+            // the indices have moved on to another data set
+            return scan(filter.toPredicate(listings), RowBitmap.range(0, size));
+        }
+        RowBitmap rows = RowBitmap.range(0, size);
+
+        if (filter.hasPriceRange()) {
+            rows = rows.and(RowBitmap.of(priceIndex.getRows(filter.getFromPrice(), filter.getToPrice())));
+        }
+        if (filter.getBorough() != ListingFilter.ANY) {
+            rows = rows.and(bitmapIndex.getBorough(filter.getBorough()));
+        }
+        if (filter.getRoomType() != ListingFilter.ANY) {
+            rows = rows.and(bitmapIndex.getRoomType(filter.getRoomType()));
+        }
+        if (filter.getMinimumNights() != ListingFilter.UNSET) {
+            rows = rows.and(bitmapIndex.getRowsAboveMinimumNights(filter.getMinimumNights()));
+        }
+        if (filter.getMinimumReviews() != Double.NEGATIVE_INFINITY) {
+            rows = rows.and(bitmapIndex.getRowsAboveNumberOfReviews(filter.getMinimumReviews()));
+        }
+
+        if (!filter.hasUnindexedParts()) {
+            return rows;
+        }
+        return scan(filter.toPredicate(listings), rows);
+    }
+
+    /**
+     * @return A new bitmap of the rows which pass a check
+     */
+    private static RowBitmap scan(IntPredicate predicate, RowBitmap rows) {
+        RowBitmap checkedRows = new RowBitmap();
+        PrimitiveIterator.OfInt iterator = rows.iterator();
+        while (iterator.hasNext()) {
+            int row = iterator.nextInt();
+            if (predicate.test(row)) {
+                checkedRows.add(row);
+            }
+        }
+        return checkedRows;
+    }
+
+    /**
+     * The rows of a cached filter, with the bytes they took up when cached
+     */
+    private static class CachedRows {
+        private final RowBitmap rows;
+        private final long bytes;
+
+        private CachedRows(RowBitmap rows, long bytes) {
+            this.rows = rows;
+            this.bytes = bytes;
+        }
+    }
+}
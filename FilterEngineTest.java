@@ -0,0 +1,129 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.util.BitSet;
+import java.util.Random;
+
+/**
+ * This file is part of "Property Hunter"
+ * - a London property viewing application.
+ *
+ * This class tests the rows a FilterEngine finds and caches while rows are still being
+ * appended, including a query made after the store's size has gone up but before the
+ * indices have been told about the new rows, and from a snapshot older than the
+ * cached rows. It also tests the ends of a range of review dates.
+ * 
+ * @author Ubayd Khan (k20044237), Mohammed Chowdhury (k21074018), Omar Ahmad (k210524117), Muhammad Beg (k21057641)
+ * @version 30.03.2022
+ */
+public class FilterEngineTest
+{
+    private static final ListingFilter FILTER = ListingFilter.ALL.withFromPrice(50).withToPrice(150).withMinimumNights(2);
+
+    private final Random random = new Random(TestRows.SEED);
+    private final TestRows rows = new TestRows();
+
+    @Test
+    public void testQueryBeforeIndicesHaveNewRows()
+    {
+        ListingStore store = new ListingStore();
+        addRows(store, 1000);
+        Model[] model = new Model[1];
+        int[] queries = new int[1];
+        // told before the model, so it runs while the indices are missing the newest row
+        store.addListener((listings, fromRow, toRow) -> {
+            assertEquals(scan(store, fromRow), toBitSet(model[0].getFilterEngine().getRows(FILTER)));
+            queries[0]++;
+        });
+        model[0] = new Model(store);
+
+        // every appended row matches, so a row the cache misses changes the result
+        for (int i = 0; i < 500; i++) {
+            rows.setPrice(100).setMinimumNights(3).addTo(store);
+        }
+        assertEquals(500, queries[0]);
+        assertEquals(scan(store, store.size()), toBitSet(model[0].getFilterEngine().getRows(FILTER)));
+    }
+
+    @Test
+    public void testCacheClearedByNewRows()
+    {
+        ListingStore store = new ListingStore();
+        addRows(store, 1000);
+        Model model = new Model(store);
+        FilterEngine engine = model.getFilterEngine();
+
+        RowBitmap first = engine.getRows(FILTER);
+        assertSame(first, engine.getRows(FILTER.withFromPrice(50)));
+        assertEquals(1, engine.getHits());
+        assertEquals(1, engine.getMisses());
+
+        addRows(store, 10);
+        assertEquals(scan(store, store.size()), toBitSet(engine.getRows(FILTER)));
+        assertEquals(2, engine.getMisses());
+        assertEquals(1, engine.getCachedFilters());
+    }
+
+    @Test
+    public void testOlderSnapshot()
+    {
+        ListingStore store = new ListingStore();
+        addRows(store, 1000);
+        Model model = new Model(store);
+        FilterEngine engine = model.getFilterEngine();
+        ModelSnapshot older = model.getSnapshot();
+
+        addRows(store, 200);
+        RowBitmap rows = engine.getRows(FILTER);
+        // the older snapshot's rows stop at its size, and do not replace the newer cached rows
+        assertEquals(scan(store, older.getSize()), toBitSet(engine.getRows(older, FILTER)));
+        assertSame(rows, engine.getRows(FILTER));
+        assertEquals(scan(store, store.size()), toBitSet(rows));
+    }
+
+    @Test
+    public void testReviewDateRange()
+    {
+        ListingStore store = new ListingStore();
+        int never = rows.setLastReview("").addTo(store);
+        int epoch = rows.setLastReview("1970-01-01").addTo(store);
+        int later = rows.setLastReview("2019-06-01").addTo(store);
+        FilterEngine engine = new Model(store).getFilterEngine();
+        int unset = ListingFilter.UNSET;
+
+        // epoch day 0 is a real date, and a listing never reviewed is outside any range of dates
+        assertArrayEquals(new int[] {never, epoch, later}, engine.getRows(ListingFilter.ALL).toArray());
+        assertArrayEquals(new int[] {epoch, later}, engine.getRows(ListingFilter.ALL.withReviewDateRange(0, unset)).toArray());
+        assertArrayEquals(new int[] {epoch}, engine.getRows(ListingFilter.ALL.withReviewDateRange(unset, 0)).toArray());
+        assertArrayEquals(new int[] {later}, engine.getRows(ListingFilter.ALL.withReviewDateRange(1, unset)).toArray());
+    }
+
+    /**
+     * @return The rows below the given size which the filter lets through, found one by one
+     */
+    private BitSet scan(ListingStore store, int size)
+    {
+        BitSet expected = new BitSet();
+        for (int row = 0; row < size; row++) {
+            if (FILTER.toPredicate(store).test(row)) {
+                expected.set(row);
+            }
+        }
+        return expected;
+    }
+
+    private BitSet toBitSet(RowBitmap bitmap)
+    {
+        BitSet rows = new BitSet();
+        for (int row : bitmap.toArray()) {
+            rows.set(row);
+        }
+        return rows;
+    }
+
+    private void addRows(ListingStore store, int count)
+    {
+        for (int i = 0; i < count; i++) {
+            rows.setPrice(random.nextInt(200)).setMinimumNights(random.nextInt(5)).addTo(store);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+import java.util.Arrays;
+
+/**
+ * This file is part of "Property Hunter"
+ * - a London property viewing application.
+ *
+ * A HostIndex gives each host a dense integer id, numbered from 0 in the order the
+ * hosts are first seen, and holds the host of each row, the name of each host and the
+ * rows of each host. Looking up a host's name is then an array access rather than a
+ * scan of the listings, and totals kept per host can be primitive arrays indexed by
+ * host id instead of hash maps keyed by the host id strings of the data set.
+ *
+ * The index is built once from the rows already in the store, then kept up to date as
+ * a ListingListener, taking in only the rows appended since. If it is told about the
+ * rows of a different store, the model has switched data sets, so it starts again.
+ *
+ * @author Ubayd Khan (k20044237), Mohammed Chowdhury (k21074018), Omar Ahmad (k210524117), Muhammad Beg (k21057641)
+ * @version 30.03.2022
+ */
+public class HostIndex implements ListingListener
+{
+    private static final int INITIAL_CAPACITY = 4;
+    private static final int[] NO_ROWS = new int[0];
+
+    private ListingStore listings;
+    private StringDictionary hostIds;
+    // the host id of each row
+    private int[] hosts;
+    // the name of each host, taken from its last row
+    private String[] names;
+    // the rows of each host, indexed by host id; only the first counts[host] are used
+    private int[][] rows;
+    private int[] counts;
+    // the rows of the store below this have been indexed
+    private int indexedRows;
+
+    /**
+     * Creates an index of the rows already in a store
+     * @param listings The store to be indexed
+     */
+    public HostIndex(ListingStore listings) {
+        reset(listings);
+        indexRows(listings.size());
+    }
+
+    /**
+     * Takes in rows appended to the store, or starts again if they belong to another store
+     */
+    @Override
+    public synchronized void listingsAdded(ListingStore listings, int fromRow, int toRow) {
+        if (listings != this.listings) {
+            reset(listings);
+        }
+        indexRows(toRow);
+    }
+
+    /**
+     * Empties the index, ready to index another store
+     * @param listings The store to be indexed
+     */
+    private void reset(ListingStore listings) {
+        this.listings = listings;
+        hostIds = new StringDictionary(Integer.MAX_VALUE);
+        hosts = new int[Math.max(listings.size(), INITIAL_CAPACITY)];
+        names = new String[INITIAL_CAPACITY];
+        rows = new int[INITIAL_CAPACITY][];
+        counts = new int[INITIAL_CAPACITY];
+        indexedRows = 0;
+    }
+
+    /**
+     * Adds every row from the last row indexed up to the given row
+     * @param toRow The index just past the last row to be indexed
+     */
+    private void indexRows(int toRow) {
+        if (toRow > hosts.length) {
+            hosts = Arrays.copyOf(hosts, Math.max(toRow, hosts.length * 2));
+        }
+        for (int row = indexedRows; row < toRow; row++) {
+            int host = hostIds.encode(listings.getHostId(row));
+            if (host == counts.length) {
+                names = Arrays.copyOf(names, host * 2);
+                rows = Arrays.copyOf(rows, host * 2);
+                counts = Arrays.copyOf(counts, host * 2);
+            }
+            int[] hostRows = rows[host];
+            if (hostRows == null) {
+                hostRows = new int[INITIAL_CAPACITY];
+                rows[host] = hostRows;
+            } else if (counts[host] == hostRows.length) {
+                hostRows = Arrays.copyOf(hostRows, hostRows.length * 2);
+                rows[host] = hostRows;
+            }
+            hostRows[counts[host]++] = row;
+            names[host] = listings.getHostName(row);
+            hosts[row] = host;
+        }
+        indexedRows = Math.max(indexedRows, toRow);
+    }
+
+    /**
+     * @return The store which is indexed
+     */
+    public synchronized ListingStore getListingStore() {
+        return listings;
+    }
+
+    /**
+     * @return The number of hosts, which is one more than the largest host id
+     */
+    public synchronized int getNumberOfHosts() {
+        return hostIds.size();
+    }
+
+    /**
+     * @param row The index of the row
+     * @return The id of the row's host
+     */
+    public synchronized int getHost(int row) {
+        return hosts[row];
+    }
+
+    /**
+     * Looks up the hosts of many rows at once, taking in any rows the store has gained
+     * since it last told the index
+     * @param rows The indices of the rows
+     * @return The id of each row's host, in the same order as the rows
+     */
+    public synchronized int[] getHosts(int[] rows) {
+        int[] rowHosts = new int[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            if (rows[i] >= indexedRows) {
+                indexRows(listings.size());
+            }
+            rowHosts[i] = hosts[rows[i]];
+        }
+        return rowHosts;
+    }
+
+    /**
+     * @param hostId The host id of the data set
+     * @return The dense id of the host, or -1 if the host has no rows
+     */
+    public synchronized int getHost(String hostId) {
+        return hostIds.getCode(hostId);
+    }
+
+    /**
+     * @param host The dense id of the host
+     * @return The host id of the data set
+     */
+    public synchronized String getHostId(int host) {
+        return hostIds.getValue(host);
+    }
+
+    /**
+     * @param host The dense id of the host
+     * @return The name of the host
+     */
+    public synchronized String getHostName(int host) {
+        return names[host];
+    }
+
+    /**
+     * @param host The dense id of the host
+     * @return The number of rows of the host
+     */
+    public synchronized int getCount(int host) {
+        return host >= 0 && host < hostIds.size() ? counts[host] : 0;
+    }
+
+    /**
+     * @param host The dense id of the host
+     * @return The indices of the rows of the host, in ascending order
+     */
+    public synchronized int[] getRows(int host) {
+        if (host < 0 || host >= hostIds.size()) {
+            return NO_ROWS;
+        }
+        return Arrays.copyOf(rows[host], counts[host]);
+    }
+}
@@ -0,0 +1,57 @@
+/**
+ * This file is part of "Property Hunter"
+ * - a London property viewing application.
+ *
+ * The ListingColumn enumeration lists the columns of the CSV file which the application
+ * uses, with the header names they can appear under. The summary export of Inside
+ * Airbnb has just these columns, while the full export has many more, names the borough
+ * column "neighbourhood_cleansed" and formats prices as currency.
+ *
+ * @author Ubayd Khan (k20044237), Mohammed Chowdhury (k21074018), Omar Ahmad (k210524117), Muhammad Beg (k21057641)
+ * @version 30.03.2022
+ */
+public enum ListingColumn
+{
+    ID(true, "id"),
+    NAME(false, "name"),
+    HOST_ID(false, "host_id"),
+    HOST_NAME(false, "host_name"),
+    NEIGHBOURHOOD(true, "neighbourhood_cleansed", "neighbourhood"),
+    LATITUDE(true, "latitude"),
+    LONGITUDE(true, "longitude"),
+    ROOM_TYPE(true, "room_type"),
+    PRICE(true, "price"),
+    MINIMUM_NIGHTS(false, "minimum_nights"),
+    NUMBER_OF_REVIEWS(false, "number_of_reviews"),
+    LAST_REVIEW(false, "last_review"),
+    REVIEWS_PER_MONTH(false, "reviews_per_month"),
+    CALCULATED_HOST_LISTINGS_COUNT(false, "calculated_host_listings_count"),
+    AVAILABILITY_365(false, "availability_365");
+
+    /**
+     * The constructor of enum ListingColumn
+     * @param required If a data set without the column cannot be loaded
+     * @param headers The header names of the column, in order of preference
+     */
+    ListingColumn(boolean required, String... headers) {
+        this.required = required;
+        this.headers = headers;
+    }
+
+    private boolean required;
+    private String[] headers;
+
+    /**
+     * @return If a data set without the column cannot be loaded
+     */
+    public boolean isRequired() {
+        return required;
+    }
+
+    /**
+     * @return The header names of the column, in order of preference
+     */
+    public String[] getHeaders() {
+        return headers.clone();
+    }
+}
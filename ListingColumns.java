@@ -0,0 +1,75 @@
+import java.io.IOException;
+import java.util.HashMap;
+
+/**
+ * This file is part of "Property Hunter"
+ * - a London property viewing application.
+ *
+ * A ListingColumns maps each ListingColumn to its position in the records of one CSV
+ * file, as read from the file's header row. The loader then only converts the fields
+ * at those positions, so the other columns of a wide export cost no more than being
+ * stepped over, and never become Strings.
+ *
+ * @author Ubayd Khan (k20044237), Mohammed Chowdhury (k21074018), Omar Ahmad (k210524117), Muhammad Beg (k21057641)
+ * @version 30.03.2022
+ */
+public class ListingColumns
+{
+    /**
+     * The positions of the columns in the summary export, in which they appear in the
+     * same order as ListingColumn
+     */
+    public static final ListingColumns SUMMARY = new ListingColumns(summaryPositions());
+
+    // the position of each column, indexed by ordinal, or -1 if the file does not have it
+    private final int[] positions;
+
+    private ListingColumns(int[] positions) {
+        this.positions = positions;
+    }
+
+    /**
+     * Reads the column positions from a header row
+     * @param header A tokenizer positioned on the header row
+     * @return The positions of the columns
+     * @throws IOException If a required column is missing
+     */
+    public static ListingColumns fromHeader(CsvTokenizer header) throws IOException {
+        HashMap<String, Integer> headerPositions = new HashMap<>();
+        for (int field = header.getFieldCount() - 1; field >= 0; field--) {
+            headerPositions.put(header.getText(field).trim().toLowerCase(), field);
+        }
+
+        int[] positions = new int[ListingColumn.values().length];
+        for (ListingColumn column : ListingColumn.values()) {
+            positions[column.ordinal()] = -1;
+            for (String name : column.getHeaders()) {
+                Integer position = headerPositions.get(name);
+                if (position != null) {
+                    positions[column.ordinal()] = position;
+                    break;
+                }
+            }
+            if (positions[column.ordinal()] == -1 && column.isRequired()) {
+                throw new IOException("The data set has no " + column.getHeaders()[0] + " column");
+            }
+        }
+        return new ListingColumns(positions);
+    }
+
+    /**
+     * @param column The column
+     * @return The position of the column in each record, or -1 if the file does not have it
+     */
+    public int get(ListingColumn column) {
+        return positions[column.ordinal()];
+    }
+
+    private static int[] summaryPositions() {
+        int[] positions = new int[ListingColumn.values().length];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = i;
+        }
+        return positions;
+    }
+}
@@ -0,0 +1,124 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+
+/**
+ * This file is part of "Property Hunter"
+ * - a London property viewing application.
+ *
+ * A ListingFileWatcher follows the CSV file of the data set while the application
+ * runs, so that listings appended to the file appear without restarting. It remembers
+ * how many bytes of the file have been read, and whenever the file changes it reads
+ * only the records after that offset and appends them to the store. The store then
+ * tells its ListingListeners about the new rows.
+ *
+ * The watcher only understands a file which grows by having records appended to it.
+ * If the file shrinks it has been rewritten, and the watcher stops, since the rows
+ * already loaded may no longer be in it.
+ *
+ * @author Ubayd Khan (k20044237), Mohammed Chowdhury (k21074018), Omar Ahmad (k210524117), Muhammad Beg (k21057641)
+ * @version 30.03.2022
+ */
+public class ListingFileWatcher implements Closeable
+{
+    private final AirbnbDataLoader loader;
+    private final ListingStore listings;
+    private final Path csv;
+    private final WatchService watchService;
+    private final Thread thread;
+
+    // the number of bytes of the file read so far, only written by the watching thread
+    private volatile long offset;
+
+    /**
+     * Creates a watcher for the data set, which starts watching when start() is called
+     * @param loader The loader which reads the data set
+     * @param listings The store holding the rows read so far, which new rows are appended to
+     * @param offset The number of bytes of the file which the store already holds
+     */
+    public ListingFileWatcher(AirbnbDataLoader loader, ListingStore listings, long offset) throws IOException {
+        this.loader = loader;
+        this.listings = listings;
+        this.offset = offset;
+        this.csv = loader.getDatasetPath();
+        if (csv == null) {
+            throw new IOException("The data set is not a plain file, so cannot be watched");
+        }
+
+        watchService = FileSystems.getDefault().newWatchService();
+        // a WatchService can only watch directories
+        csv.getParent().register(watchService, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_CREATE);
+        thread = new Thread(this::watch, "listing-watcher");
+        thread.setDaemon(true);
+    }
+
+    /**
+     * Starts watching the file on a background thread. Anything appended since the
+     * store was loaded is read straight away.
+     */
+    public void start() {
+        thread.start();
+    }
+
+    /**
+     * Stops watching the file
+     */
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+    }
+
+    /**
+     * @return The number of bytes of the file read so far
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * Waits for changes to the directory of the file, and reads the new records
+     * whenever the file itself (or anything, if events were lost) has changed
+     */
+    private void watch() {
+        try {
+            readAppended();
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    changed |= event.kind() == StandardWatchEventKinds.OVERFLOW
+                            || csv.getFileName().equals(event.context());
+                }
+                if (changed) {
+                    readAppended();
+                }
+                if (!key.reset()) {
+                    return;
+                }
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            // stopped watching
+        } catch (IOException | RuntimeException e) {
+            // e.g. thrown by a ListingListener told about the new rows, which would otherwise end the thread unseen
+            System.out.println("Stopped watching " + csv + ": " + e);
+            try {
+                close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private void readAppended() throws IOException {
+        int before = listings.size();
+        offset = loader.loadAppended(listings, offset);
+        if (listings.size() > before) {
+            System.out.println("Loaded " + (listings.size() - before) + " appended records");
+        }
+    }
+}
@@ -0,0 +1,316 @@
+import java.util.Objects;
+import java.util.function.IntPredicate;
+
+/**
+ * This file is part of "Property Hunter"
+ * - a London property viewing application.
+ *
+ * A ListingFilter describes which listings a view is interested in: a price range, the
+ * least number of nights and reviews, a range of last review dates, a room type, a
+ * borough and the least availability. Each part is optional, and a filter with no parts
+ * set lets every listing through.
+ *
+ * Filters are immutable. Each with method returns a new filter with one part changed,
+ * so filters can be shared, compared with equals() and used as keys. A filter is
+ * evaluated by a FilterEngine, or compiled with toPredicate() into a single check of a
+ * row which tests every part at once.
+ *
+ * Room types and boroughs are given as ordinals, the dictionary codes of the store the
+ * filter is applied to. Review dates are epoch days, where UNSET leaves that end of
+ * the range open, as in StatisticsHandler. Once either end is set, listings which have
+ * never been reviewed are left out.
+ *
+ * @author Ubayd Khan (k20044237), Mohammed Chowdhury (k21074018), Omar Ahmad (k210524117), Muhammad Beg (k21057641)
+ * @version 30.03.2022
+ */
+public final class ListingFilter
+{
+    // the value of a numeric part which is not set
+    public static final int UNSET = Integer.MIN_VALUE;
+    // the value of a room type or borough which is not set
+    public static final int ANY = -1;
+
+    // the filter which lets every listing through
+    public static final ListingFilter ALL =
+            new ListingFilter(UNSET, UNSET, UNSET, Double.NEGATIVE_INFINITY, UNSET, UNSET, ANY, ANY, UNSET);
+
+    private final int fromPrice;
+    private final int toPrice;
+    private final int minimumNights;
+    private final double minimumReviews;
+    private final int reviewedFrom;
+    private final int reviewedTo;
+    private final int roomType;
+    private final int borough;
+    private final int minimumAvailability;
+
+    private ListingFilter(int fromPrice, int toPrice, int minimumNights, double minimumReviews,
+                          int reviewedFrom, int reviewedTo, int roomType, int borough, int minimumAvailability) {
+        this.fromPrice = fromPrice;
+        this.toPrice = toPrice;
+        this.minimumNights = minimumNights;
+        this.minimumReviews = minimumReviews;
+        this.reviewedFrom = reviewedFrom;
+        this.reviewedTo = reviewedTo;
+        this.roomType = roomType;
+        this.borough = borough;
+        this.minimumAvailability = minimumAvailability;
+    }
+
+    /**
+     * @param price The lowest price let through, or UNSET
+     * @return A filter like this one with the given lowest price
+     */
+    public ListingFilter withFromPrice(int price) {
+        return new ListingFilter(price, toPrice, minimumNights, minimumReviews,
+                reviewedFrom, reviewedTo, roomType, borough, minimumAvailability);
+    }
+
+    /**
+     * @param price The highest price let through, or UNSET
+     * @return A filter like this one with the given highest price
+     */
+    public ListingFilter withToPrice(int price) {
+        return new ListingFilter(fromPrice, price, minimumNights, minimumReviews,
+                reviewedFrom, reviewedTo, roomType, borough, minimumAvailability);
+    }
+
+    /**
+     * @param nights Only listings whose minimum number of nights is more than this are let through, or UNSET
+     * @return A filter like this one with the given number of nights
+     */
+    public ListingFilter withMinimumNights(int nights) {
+        return new ListingFilter(fromPrice, toPrice, nights, minimumReviews,
+                reviewedFrom, reviewedTo, roomType, borough, minimumAvailability);
+    }
+
+    /**
+     * @param reviews Only listings with more reviews than this are let through
+     * @return A filter like this one with the given number of reviews
+     */
+    public ListingFilter withMinimumReviews(double reviews) {
+        return new ListingFilter(fromPrice, toPrice, minimumNights, reviews,
+                reviewedFrom, reviewedTo, roomType, borough, minimumAvailability);
+    }
+
+    /**
+     * @param from The first epoch day a last review may fall on, or UNSET for no limit
+     * @param to The last epoch day a last review may fall on, or UNSET for no limit
+     * @return A filter like this one with the given range of review dates
+     */
+    public ListingFilter withReviewDateRange(int from, int to) {
+        return new ListingFilter(fromPrice, toPrice, minimumNights, minimumReviews,
+                from, to, roomType, borough, minimumAvailability);
+    }
+
+    /**
+     * @param roomType The ordinal of the only room type let through, or ANY
+     * @return A filter like this one with the given room type
+     */
+    public ListingFilter withRoomType(int roomType) {
+        return new ListingFilter(fromPrice, toPrice, minimumNights, minimumReviews,
+                reviewedFrom, reviewedTo, roomType, borough, minimumAvailability);
+    }
+
+    /**
+     * @param borough The ordinal of the only borough let through, or ANY
+     * @return A filter like this one with the given borough
+     */
+    public ListingFilter withBorough(int borough) {
+        return new ListingFilter(fromPrice, toPrice, minimumNights, minimumReviews,
+                reviewedFrom, reviewedTo, roomType, borough, minimumAvailability);
+    }
+
+    /**
+     * @param days Only listings available for at least this many days of the year are let through, or UNSET
+     * @return A filter like this one with the given availability
+     */
+    public ListingFilter withMinimumAvailability(int days) {
+        return new ListingFilter(fromPrice, toPrice, minimumNights, minimumReviews,
+                reviewedFrom, reviewedTo, roomType, borough, days);
+    }
+
+    /**
+     * Takes the price range from another filter, leaving the other parts of this one
+     * @param other The filter whose price range is used
+     * @return A filter like this one with the other filter's price range
+     */
+    public ListingFilter withPriceRangeOf(ListingFilter other) {
+        return withFromPrice(other.fromPrice).withToPrice(other.toPrice);
+    }
+
+    /**
+     * Drops the parts of the filter which have no effect, so that filters letting the same
+     * listings through for the same reasons are equal. At present this is a price range
+     * with only one end set, which does not apply.
+     * @return A filter like this one without the parts which have no effect
+     */
+    public ListingFilter normalise() {
+        if (hasPriceRange() || (fromPrice == UNSET && toPrice == UNSET)) {
+            return this;
+        }
+        return withFromPrice(UNSET).withToPrice(UNSET);
+    }
+
+    /**
+     * The price range only applies once both of its ends are set
+     * @return If the filter has a price range
+     */
+    public boolean hasPriceRange() {
+        return fromPrice != UNSET && toPrice != UNSET;
+    }
+
+    /**
+     * @return The lowest price let through, or UNSET
+     */
+    public int getFromPrice() {
+        return fromPrice;
+    }
+
+    /**
+     * @return The highest price let through, or UNSET
+     */
+    public int getToPrice() {
+        return toPrice;
+    }
+
+    /**
+     * @return The number of nights listings must require more than, or UNSET
+     */
+    public int getMinimumNights() {
+        return minimumNights;
+    }
+
+    /**
+     * @return The number of reviews listings must have more than
+     */
+    public double getMinimumReviews() {
+        return minimumReviews;
+    }
+
+    /**
+     * @return The first epoch day a last review may fall on, or UNSET for no limit
+     */
+    public int getReviewedFrom() {
+        return reviewedFrom;
+    }
+
+    /**
+     * @return The last epoch day a last review may fall on, or UNSET for no limit
+     */
+    public int getReviewedTo() {
+        return reviewedTo;
+    }
+
+    /**
+     * @return The ordinal of the only room type let through, or ANY
+     */
+    public int getRoomType() {
+        return roomType;
+    }
+
+    /**
+     * @return The ordinal of the only borough let through, or ANY
+     */
+    public int getBorough() {
+        return borough;
+    }
+
+    /**
+     * @return The number of days listings must be available for at least, or UNSET
+     */
+    public int getMinimumAvailability() {
+        return minimumAvailability;
+    }
+
+    /**
+     * @return If the filter checks parts which have no index, and so must be checked row by row
+     */
+    public boolean hasUnindexedParts() {
+        return reviewedFrom != UNSET || reviewedTo != UNSET || minimumAvailability != UNSET;
+    }
+
+    /**
+     * Compiles the filter into a single check of a row, which only tests the parts that are set
+     * @param listings The store whose rows are checked
+     * @return A check of whether a row is let through
+     */
+    public IntPredicate toPredicate(ListingStore listings) {
+        IntPredicate predicate = row -> true;
+        if (hasPriceRange()) {
+            int from = fromPrice;
+            int to = toPrice;
+            predicate = predicate.and(row -> listings.getPrice(row) >= from && listings.getPrice(row) <= to);
+        }
+        if (minimumNights != UNSET) {
+            int nights = minimumNights;
+            predicate = predicate.and(row -> listings.getMinimumNights(row) > nights);
+        }
+        if (minimumReviews != Double.NEGATIVE_INFINITY) {
+            double reviews = minimumReviews;
+            predicate = predicate.and(row -> listings.getNumberOfReviews(row) > reviews);
+        }
+        if (reviewedFrom != UNSET || reviewedTo != UNSET) {
+            predicate = predicate.and(row -> listings.getLastReviewDay(row) != ListingStore.NO_REVIEW);
+        }
+        if (reviewedFrom != UNSET) {
+            int from = reviewedFrom;
+            predicate = predicate.and(row -> listings.getLastReviewDay(row) >= from);
+        }
+        if (reviewedTo != UNSET) {
+            int to = reviewedTo;
+            predicate = predicate.and(row -> listings.getLastReviewDay(row) <= to);
+        }
+        if (roomType != ANY) {
+            int code = roomType;
+            predicate = predicate.and(row -> listings.getRoomTypeCode(row) == code);
+        }
+        if (borough != ANY) {
+            int code = borough;
+            predicate = predicate.and(row -> listings.getNeighbourhoodCode(row) == code);
+        }
+        if (minimumAvailability != UNSET) {
+            int days = minimumAvailability;
+            predicate = predicate.and(row -> listings.getAvailability365(row) >= days);
+        }
+        return predicate;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof ListingFilter)) {
+            return false;
+        }
+        ListingFilter filter = (ListingFilter) other;
+        return fromPrice == filter.fromPrice && toPrice == filter.toPrice
+                && minimumNights == filter.minimumNights
+                && Double.compare(minimumReviews, filter.minimumReviews) == 0
+                && reviewedFrom == filter.reviewedFrom && reviewedTo == filter.reviewedTo
+                && roomType == filter.roomType && borough == filter.borough
+                && minimumAvailability == filter.minimumAvailability;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(fromPrice, toPrice, minimumNights, minimumReviews,
+                reviewedFrom, reviewedTo, roomType, borough, minimumAvailability);
+    }
+
+    @Override
+    public String toString() {
+        return "ListingFilter{" +
+                "fromPrice=" + fromPrice +
+                ", toPrice=" + toPrice +
+                ", minimumNights=" + minimumNights +
+                ", minimumReviews=" + minimumReviews +
+                ", reviewedFrom=" + reviewedFrom +
+                ", reviewedTo=" + reviewedTo +
+                ", roomType=" + roomType +
+                ", borough=" + borough +
+                ", minimumAvailability=" + minimumAvailability +
+                '}';
+    }
+}
@@ -0,0 +1,24 @@
+/**
+ * This file is part of "Property Hunter"
+ * - a London property viewing application.
+ *
+ * A ListingListener is told whenever rows are appended to a ListingStore, so that
+ * anything derived from the rows, such as an index or a cached result, can take in
+ * just the new rows instead of being rebuilt from every row.
+ *
+ * Listeners are called on the thread which appended the rows, after the rows have
+ * been published, so they should return quickly and must not append rows themselves.
+ *
+ * @author Ubayd Khan (k20044237), Mohammed Chowdhury (k21074018), Omar Ahmad (k210524117), Muhammad Beg (k21057641)
+ * @version 30.03.2022
+ */
+public interface ListingListener
+{
+    /**
+     * Called after rows have been appended to a store
+     * @param listings The store the rows were appended to
+     * @param fromRow The index of the first new row
+     * @param toRow The index just past the last new row
+     */
+    void listingsAdded(ListingStore listings, int fromRow, int toRow);
+}
@@ -0,0 +1,274 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * This file is part of "Property Hunter"
+ * - a London property viewing application.
+ *
+ * A ListingSnapshot reads and writes a binary copy of the loaded data set, so that
+ * later startups can skip parsing the CSV file. The snapshot starts with a header
+ * holding a format version and the length and checksum of the CSV file it was made
+ * from, followed by fixed-width numeric columns and a table of distinct strings which
+ * the string columns refer to by index. A name which is read from the CSV file when
+ * asked for, rather than kept, has the index -1. The records which were rejected while
+ * parsing follow, so that the quarantine survives the next startup. The snapshot ends
+ * with a checksum of everything before it.
+ *
+ * A snapshot is read by memory-mapping it. Any snapshot which was made from a
+ * different CSV file, was written by another version or is damaged is ignored.
+ *
+ * @author Ubayd Khan (k20044237), Mohammed Chowdhury (k21074018), Omar Ahmad (k210524117), Muhammad Beg (k21057641)
+ * @version 30.03.2022
+ */
+public class ListingSnapshot
+{
+    private static final int MAGIC = 0x50485353; // "PHSS"
+    private static final int VERSION = 4;
+    private static final int HEADER_SIZE = 4 + 4 + 8 + 8 + 4 + 4 + 4 + 8;
+    // the offset, record number and reason of a rejected record
+    private static final int REJECTED_ROW_SIZE = 8 + 8 + 4;
+
+    private static final int INT_COLUMNS = 6;
+    private static final int DOUBLE_COLUMNS = 3;
+    private static final int LONG_COLUMNS = 1;
+    private static final int STRING_COLUMNS = 6;
+
+    /**
+     * Computes the checksum used to tell whether a snapshot belongs to a CSV file.
+     * @param data The contents of the CSV file
+     * @return The checksum of the data
+     */
+    public static long checksum(ByteBuffer data) {
+        CRC32 crc = new CRC32();
+        crc.update(data.duplicate().position(0));
+        return crc.getValue();
+    }
+
+    /**
+     * Reads the listings stored in a snapshot, as long as it was made from the given CSV file.
+     * @param snapshot The location of the snapshot
+     * @param sourceLength The length of the CSV file in bytes
+     * @param sourceChecksum The checksum of the CSV file
+     * @param quarantine The quarantine the rejected records are added to, if the snapshot is read
+     * @return The listings in the snapshot, or null if it is missing, stale or damaged
+     */
+    public static ListingStore read(Path snapshot, long sourceLength, long sourceChecksum,
+                                    LoadQuarantine quarantine) {
+        if (!Files.isRegularFile(snapshot)) {
+            return null;
+        }
+
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.limit() < HEADER_SIZE + 8 || !isIntact(buffer)) {
+                return null;
+            }
+
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION
+                    || buffer.getLong() != sourceLength || buffer.getLong() != sourceChecksum) {
+                return null;
+            }
+            int rows = buffer.getInt();
+            int stringCount = buffer.getInt();
+            int rejectedRows = buffer.getInt();
+            long rejectedCount = buffer.getLong();
+
+            int intColumns = buffer.position();
+            int doubleColumns = intColumns + INT_COLUMNS * rows * 4;
+            int longColumns = doubleColumns + DOUBLE_COLUMNS * rows * 8;
+            int stringColumns = longColumns + LONG_COLUMNS * rows * 8;
+            int rejectedColumns = stringColumns + STRING_COLUMNS * rows * 4;
+            buffer.position(rejectedColumns + rejectedRows * REJECTED_ROW_SIZE);
+            String[] strings = readStrings(buffer, stringCount);
+
+            ListingStore listings = new ListingStore(rows);
+            for (int row = 0; row < rows; row++) {
+                int name = buffer.getInt(stringColumns + (1 * rows + row) * 4);
+                listings.add(
+                        buffer.getLong(longColumns + row * 8),
+                        strings[buffer.getInt(stringColumns + (0 * rows + row) * 4)],
+                        name == -1 ? null : strings[name],
+                        strings[buffer.getInt(stringColumns + (2 * rows + row) * 4)],
+                        strings[buffer.getInt(stringColumns + (3 * rows + row) * 4)],
+                        strings[buffer.getInt(stringColumns + (4 * rows + row) * 4)],
+                        buffer.getDouble(doubleColumns + (0 * rows + row) * 8),
+                        buffer.getDouble(doubleColumns + (1 * rows + row) * 8),
+                        strings[buffer.getInt(stringColumns + (5 * rows + row) * 4)],
+                        buffer.getInt(intColumns + (0 * rows + row) * 4),
+                        buffer.getInt(intColumns + (1 * rows + row) * 4),
+                        buffer.getInt(intColumns + (2 * rows + row) * 4),
+                        buffer.getInt(intColumns + (5 * rows + row) * 4),
+                        buffer.getDouble(doubleColumns + (2 * rows + row) * 8),
+                        buffer.getInt(intColumns + (3 * rows + row) * 4),
+                        buffer.getInt(intColumns + (4 * rows + row) * 4)
+                );
+            }
+
+            for (int i = 0; i < rejectedRows; i++) {
+                int row = rejectedColumns + i * REJECTED_ROW_SIZE;
+                quarantine.add(new RejectedRow(buffer.getLong(row), buffer.getLong(row + 8),
+                        strings[buffer.getInt(row + 16)]));
+            }
+            quarantine.setRejectedCount(rejectedCount);
+            return listings;
+        } catch (IOException | RuntimeException e) {
+            // a damaged snapshot is treated as a missing one
+            return null;
+        }
+    }
+
+    /**
+     * Writes the listings loaded from one CSV file into a snapshot, replacing any snapshot
+     * already there. The store may hold rows of other data sets before them, which are
+     * left out, so the snapshot only ever holds the rows of its own CSV file.
+     * @param snapshot The location of the snapshot
+     * @param sourceLength The length of the CSV file the listings were loaded from
+     * @param sourceChecksum The checksum of the CSV file the listings were loaded from
+     * @param listings The store the listings were appended to
+     * @param fromRow The first row loaded from the CSV file, which is followed by the rest up to the store's size
+     * @param quarantine The records which were rejected while loading the listings
+     */
+    public static void write(Path snapshot, long sourceLength, long sourceChecksum, ListingStore listings,
+                             int fromRow, LoadQuarantine quarantine) throws IOException {
+        int toRow = listings.size();
+        int rows = toRow - fromRow;
+        HashMap<String, Integer> stringIndices = new HashMap<>();
+        ArrayList<byte[]> strings = new ArrayList<>();
+        int[][] stringColumns = new int[STRING_COLUMNS][rows];
+        int stringBytes = 0;
+
+        for (int row = fromRow; row < toRow; row++) {
+            String[] values = {
+                listings.getId(row), listings.getKeptName(row), listings.getHostId(row), listings.getHostName(row),
+                listings.getNeighbourhood(row), listings.getRoomType(row)
+            };
+            for (int column = 0; column < STRING_COLUMNS; column++) {
+                if (values[column] == null) {
+                    stringColumns[column][row - fromRow] = -1;
+                    continue;
+                }
+                Integer index = stringIndices.get(values[column]);
+                if (index == null) {
+                    byte[] bytes = values[column].getBytes(StandardCharsets.UTF_8);
+                    index = strings.size();
+                    stringIndices.put(values[column], index);
+                    strings.add(bytes);
+                    stringBytes += bytes.length;
+                }
+                stringColumns[column][row - fromRow] = index;
+            }
+        }
+
+        List<RejectedRow> rejectedRows = quarantine.getRows();
+        int[] reasons = new int[rejectedRows.size()];
+        for (int i = 0; i < reasons.length; i++) {
+            String reason = rejectedRows.get(i).getReason();
+            Integer index = stringIndices.get(reason);
+            if (index == null) {
+                byte[] bytes = reason.getBytes(StandardCharsets.UTF_8);
+                index = strings.size();
+                stringIndices.put(reason, index);
+                strings.add(bytes);
+                stringBytes += bytes.length;
+            }
+            reasons[i] = index;
+        }
+
+        long size = HEADER_SIZE + (long) rows * (INT_COLUMNS * 4 + DOUBLE_COLUMNS * 8 + LONG_COLUMNS * 8
+                + STRING_COLUMNS * 4)
+                + (long) reasons.length * REJECTED_ROW_SIZE + (strings.size() + 1) * 4L + stringBytes + 8;
+        ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(size));
+        buffer.putInt(MAGIC).putInt(VERSION).putLong(sourceLength).putLong(sourceChecksum);
+        buffer.putInt(rows).putInt(strings.size());
+        buffer.putInt(reasons.length).putLong(quarantine.getRejectedCount());
+
+        for (int row = fromRow; row < toRow; row++) buffer.putInt(listings.getPrice(row));
+        for (int row = fromRow; row < toRow; row++) buffer.putInt(listings.getMinimumNights(row));
+        for (int row = fromRow; row < toRow; row++) buffer.putInt(listings.getNumberOfReviews(row));
+        for (int row = fromRow; row < toRow; row++) buffer.putInt(listings.getCalculatedHostListingsCount(row));
+        for (int row = fromRow; row < toRow; row++) buffer.putInt(listings.getAvailability365(row));
+        for (int row = fromRow; row < toRow; row++) buffer.putInt(listings.getLastReviewDay(row));
+        for (int row = fromRow; row < toRow; row++) buffer.putDouble(listings.getLatitude(row));
+        for (int row = fromRow; row < toRow; row++) buffer.putDouble(listings.getLongitude(row));
+        for (int row = fromRow; row < toRow; row++) buffer.putDouble(listings.getReviewsPerMonth(row));
+        for (int row = fromRow; row < toRow; row++) buffer.putLong(listings.getRecordOffset(row));
+        for (int[] column : stringColumns) {
+            for (int index : column) {
+                buffer.putInt(index);
+            }
+        }
+        for (int i = 0; i < reasons.length; i++) {
+            RejectedRow row = rejectedRows.get(i);
+            buffer.putLong(row.getOffset()).putLong(row.getRecordNumber()).putInt(reasons[i]);
+        }
+
+        int offset = 0;
+        buffer.putInt(offset);
+        for (byte[] bytes : strings) {
+            offset += bytes.length;
+            buffer.putInt(offset);
+        }
+        for (byte[] bytes : strings) {
+            buffer.put(bytes);
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.position());
+        buffer.putLong(crc.getValue());
+        buffer.flip();
+
+        // write next to the snapshot first, so a reader never sees half a file
+        Path temporary = snapshot.resolveSibling(snapshot.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+        Files.move(temporary, snapshot, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Checks the trailing checksum of a snapshot against its contents.
+     * @param buffer The whole snapshot
+     * @return If the contents match the checksum
+     */
+    private static boolean isIntact(ByteBuffer buffer) {
+        int end = buffer.limit() - 8;
+        CRC32 crc = new CRC32();
+        crc.update(buffer.duplicate().limit(end));
+        return crc.getValue() == buffer.getLong(end);
+    }
+
+    /**
+     * Reads the string table, which is a list of end offsets followed by the UTF-8 bytes.
+     * @param buffer The snapshot, positioned at the start of the string table
+     * @param count The number of strings in the table
+     * @return The strings in the table
+     */
+    private static String[] readStrings(ByteBuffer buffer, int count) {
+        int offsets = buffer.position();
+        int bytes = offsets + (count + 1) * 4;
+        byte[] text = new byte[buffer.getInt(offsets + count * 4)];
+        buffer.get(bytes, text);
+
+        String[] strings = new String[count];
+        for (int i = 0; i < count; i++) {
+            int from = buffer.getInt(offsets + i * 4);
+            int to = buffer.getInt(offsets + (i + 1) * 4);
+            strings[i] = new String(text, from, to - from, StandardCharsets.UTF_8);
+        }
+        return strings;
+    }
+}
@@ -0,0 +1,622 @@
+import java.time.LocalDate;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.RandomAccess;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * This file is part of "Property Hunter"
+ * - a London property viewing application.
+ *
+ * A ListingStore holds the rows of the data set in columns, with one array per
+ * field rather than one object per row. Scans over a single field then read one
+ * contiguous array. Rows are identified by their index, and AirbnbListing objects
+ * are only created as lightweight views onto a row when one is asked for.
+ *
+ * Boroughs and room types are stored as codes from a StringDictionary, so filters
+ * on them can compare integers. Host names are interned, since most hosts have
+ * several listings. The date of the last review is stored as an epoch day, so time
+ * filters compare integers, with NO_REVIEW for properties which have never been reviewed.
+ *
+ * Each row also remembers the offset of its record in the CSV file. Property names
+ * are only looked at one at a time, so when the store has a RecordFieldReader they
+ * need not be kept: a row without a name reads it from its record when asked for.
+ *
+ * Rows are only ever appended, by one thread at a time, while any number of threads
+ * read. The number of rows is published as a watermark: a row's fields are written
+ * before the size which includes it, so every row below size() is complete. The
+ * columns are held together in one Columns object, which is replaced as a whole when
+ * the store grows and is itself published through a volatile field, so a reader sees
+ * arrays at least as new as the size it read. Readers should read size() once and then
+ * only visit the rows below it, and read the columns once per access. ListingListeners
+ * are told of each batch of appended rows once it has been published.
+ *
+ * @author Ubayd Khan (k20044237), Mohammed Chowdhury (k21074018), Omar Ahmad (k210524117), Muhammad Beg (k21057641)
+ * @version 30.03.2022
+ */
+public class ListingStore
+{
+    private static final int DEFAULT_CAPACITY = 1024;
+    private static final int MAX_NEIGHBOURHOODS = 1 << 16;
+    private static final int MAX_ROOM_TYPES = 1 << 8;
+
+    // the last review day of a property which has not been reviewed, which is before every other day
+    public static final int NO_REVIEW = Integer.MIN_VALUE;
+
+    // rough heap costs, in bytes, used to estimate the size of the store
+    private static final int REFERENCE_BYTES = 8;
+    private static final int STRING_OVERHEAD_BYTES = 40;
+
+    // the watermark below which rows are complete
+    private volatile int size;
+    // the number of rows the loader expects to add, or -1 if not yet known
+    private volatile int expectedSize = -1;
+    private volatile boolean complete;
+
+    // every column, replaced as a whole when the store grows
+    private volatile Columns columns;
+
+    private final StringDictionary neighbourhoods = new StringDictionary(MAX_NEIGHBOURHOODS);
+    private final StringDictionary roomTypes = new StringDictionary(MAX_ROOM_TYPES);
+    private final StringDictionary hostNames = new StringDictionary(Integer.MAX_VALUE);
+
+    private final List<ListingListener> listeners = new CopyOnWriteArrayList<>();
+
+    // reads names which are not kept, or null if every name is kept
+    private volatile RecordFieldReader nameReader;
+    private volatile int nameField = -1;
+
+    /**
+     * Creates an empty store
+     */
+    public ListingStore() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates an empty store with room for the given number of rows
+     * @param capacity The number of rows which can be added before the columns grow
+     */
+    public ListingStore(int capacity) {
+        columns = new Columns(Math.max(1, capacity));
+    }
+
+    /**
+     * Appends a row to the end of the store, which was not read from a CSV file
+     * @param lastReview The date of the last review as yyyy-MM-dd, or an empty string if there is none
+     * @return The index of the new row
+     */
+    public int add(String id, String name, String hostId,
+                   String hostName, String neighbourhood, double latitude,
+                   double longitude, String roomType, int price,
+                   int minimumNights, int numberOfReviews, String lastReview,
+                   double reviewsPerMonth, int calculatedHostListingsCount, int availability365) {
+        return add(-1, id, name, hostId, hostName, neighbourhood, latitude, longitude, roomType, price,
+                minimumNights, numberOfReviews, toReviewDay(lastReview), reviewsPerMonth, calculatedHostListingsCount,
+                availability365);
+    }
+
+    /**
+     * Appends a row to the end of the store
+     * @param recordOffset The offset of the row's record in the CSV file, or -1 if not known
+     * @param name The name of the property, or null if it should be read from the record when asked for
+     * @param lastReviewDay The epoch day of the last review, or NO_REVIEW if there is none
+     * @return The index of the new row
+     */
+    public int add(long recordOffset, String id, String name, String hostId,
+                   String hostName, String neighbourhood, double latitude,
+                   double longitude, String roomType, int price,
+                   int minimumNights, int numberOfReviews, int lastReviewDay,
+                   double reviewsPerMonth, int calculatedHostListingsCount, int availability365) {
+        ensureCapacity(size + 1);
+        Columns columns = this.columns;
+        int row = size;
+        columns.recordOffset[row] = recordOffset;
+        columns.id[row] = id;
+        columns.name[row] = name;
+        columns.hostId[row] = hostId;
+        columns.hostName[row] = hostNames.intern(hostName);
+        columns.neighbourhood[row] = (short) neighbourhoods.encode(neighbourhood);
+        columns.latitude[row] = latitude;
+        columns.longitude[row] = longitude;
+        columns.roomType[row] = (byte) roomTypes.encode(roomType);
+        columns.price[row] = price;
+        columns.minimumNights[row] = minimumNights;
+        columns.numberOfReviews[row] = numberOfReviews;
+        columns.lastReviewDay[row] = lastReviewDay;
+        columns.reviewsPerMonth[row] = reviewsPerMonth;
+        columns.calculatedHostListingsCount[row] = calculatedHostListingsCount;
+        columns.availability365[row] = availability365;
+        size++;
+        fireListingsAdded(row, row + 1);
+        return row;
+    }
+
+    /**
+     * Appends every row of another store to the end of this store, in order
+     * @param other The store whose rows are to be copied
+     */
+    public void addAll(ListingStore other) {
+        int count = other.size;
+        Columns source = other.columns;
+        ensureCapacity(size + count);
+        Columns target = columns;
+        System.arraycopy(source.price, 0, target.price, size, count);
+        System.arraycopy(source.minimumNights, 0, target.minimumNights, size, count);
+        System.arraycopy(source.numberOfReviews, 0, target.numberOfReviews, size, count);
+        System.arraycopy(source.availability365, 0, target.availability365, size, count);
+        System.arraycopy(source.calculatedHostListingsCount, 0, target.calculatedHostListingsCount, size, count);
+        System.arraycopy(source.latitude, 0, target.latitude, size, count);
+        System.arraycopy(source.longitude, 0, target.longitude, size, count);
+        System.arraycopy(source.reviewsPerMonth, 0, target.reviewsPerMonth, size, count);
+        System.arraycopy(source.id, 0, target.id, size, count);
+        System.arraycopy(source.name, 0, target.name, size, count);
+        System.arraycopy(source.recordOffset, 0, target.recordOffset, size, count);
+        System.arraycopy(source.hostId, 0, target.hostId, size, count);
+        System.arraycopy(source.lastReviewDay, 0, target.lastReviewDay, size, count);
+
+        // the other store numbered its dictionaries independently
+        int[] neighbourhoodCodes = neighbourhoods.translate(other.neighbourhoods);
+        int[] roomTypeCodes = roomTypes.translate(other.roomTypes);
+        for (int i = 0; i < count; i++) {
+            target.hostName[size + i] = hostNames.intern(source.hostName[i]);
+            target.neighbourhood[size + i] = (short) neighbourhoodCodes[source.neighbourhood[i] & 0xFFFF];
+            target.roomType[size + i] = (byte) roomTypeCodes[source.roomType[i] & 0xFF];
+        }
+        int from = size;
+        size += count;
+        if (count > 0) {
+            fireListingsAdded(from, from + count);
+        }
+    }
+
+    /**
+     * Registers a listener to be told of every row appended from now on
+     * @param listener The listener to be added
+     */
+    public void addListener(ListingListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * @param listener The listener to be removed
+     */
+    public void removeListener(ListingListener listener) {
+        listeners.remove(listener);
+    }
+
+    private void fireListingsAdded(int fromRow, int toRow) {
+        for (ListingListener listener : listeners) {
+            listener.listingsAdded(this, fromRow, toRow);
+        }
+    }
+
+    /**
+     * Records how many rows the loader expects the store to hold once it is complete,
+     * and makes room for them
+     * @param expectedSize The expected number of rows
+     */
+    public void setExpectedSize(int expectedSize) {
+        ensureCapacity(expectedSize);
+        this.expectedSize = expectedSize;
+    }
+
+    /**
+     * @return The number of rows the store is expected to hold once complete, or -1 if not yet known
+     */
+    public int getExpectedSize() {
+        return expectedSize;
+    }
+
+    /**
+     * Marks the store as complete, after which no more rows are added by the loader
+     */
+    public void markComplete() {
+        complete = true;
+    }
+
+    /**
+     * @return If the loader has finished adding rows to the store
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * Grows every column so that it can hold at least the given number of rows
+     * @param capacity The number of rows required
+     */
+    private void ensureCapacity(int capacity) {
+        Columns columns = this.columns;
+        if (capacity <= columns.capacity()) {
+            return;
+        }
+        // the rows are copied before the new columns are published
+        this.columns = new Columns(columns, Math.max(capacity, columns.capacity() * 2));
+    }
+
+    /**
+     * Estimates how much heap the store takes up, from the capacity of its columns and
+     * the length of its strings. Host names are shared between rows, so each distinct
+     * host name is only counted once.
+     * @return The estimated size of the store in bytes
+     */
+    public long getEstimatedBytes() {
+        int rows = size;
+        Columns columns = this.columns;
+        long bytes = (long) columns.capacity() * (6 * Integer.BYTES + 3 * Double.BYTES + Short.BYTES + Byte.BYTES
+                + Long.BYTES + 4 * REFERENCE_BYTES);
+        for (int row = 0; row < rows; row++) {
+            bytes += getStringBytes(columns.id[row]) + getStringBytes(columns.name[row])
+                    + getStringBytes(columns.hostId[row]);
+        }
+        for (int code = 0; code < hostNames.size(); code++) {
+            bytes += getStringBytes(hostNames.getValue(code));
+        }
+        return bytes;
+    }
+
+    private static long getStringBytes(String value) {
+        return value == null ? 0 : STRING_OVERHEAD_BYTES + value.length();
+    }
+
+    /**
+     * @return The number of complete rows in the store
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param row The index of the row
+     * @return A listing which reads its fields from the given row
+     */
+    public AirbnbListing getListing(int row) {
+        return new AirbnbListing(this, row);
+    }
+
+    /**
+     * @return A read-only list of every row currently in the store, as listings.
+     * Rows added later are not part of the list.
+     */
+    public List<AirbnbListing> asList() {
+        return new ListingList(size);
+    }
+
+    /**
+     * @param size The number of rows to be listed, such as the size of a model snapshot
+     * @return A read-only list of the first rows of the store, as listings
+     */
+    public List<AirbnbListing> asList(int size) {
+        return new ListingList(Math.min(size, this.size));
+    }
+
+    /**
+     * Creates a read-only list of the given rows, as listings
+     * @param rows The indices of the rows, in the order they should be listed
+     * @return A list of listings backed by the row indices
+     */
+    public List<AirbnbListing> asList(int[] rows) {
+        return new AbstractRowList() {
+            @Override
+            public AirbnbListing get(int index) {
+                return getListing(rows[index]);
+            }
+
+            @Override
+            public int size() {
+                return rows.length;
+            }
+        };
+    }
+
+    /**
+     * Creates a read-only list of the rows of a bitmap, as listings, without copying the rows
+     * out of the bitmap. The list is meant to be iterated; get() has to count its way to a row.
+     * @param rows The rows, listed in ascending order, which must not change
+     * @return A list of listings backed by the bitmap
+     */
+    public List<AirbnbListing> asList(RowBitmap rows) {
+        int size = rows.getCardinality();
+        return new AbstractList<AirbnbListing>() {
+            @Override
+            public AirbnbListing get(int index) {
+                if (index < 0 || index >= size) {
+                    throw new IndexOutOfBoundsException("Row " + index + " of " + size);
+                }
+                return getListing(rows.select(index));
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public Iterator<AirbnbListing> iterator() {
+                PrimitiveIterator.OfInt iterator = rows.iterator();
+                return new Iterator<AirbnbListing>() {
+                    @Override
+                    public boolean hasNext() {
+                        return iterator.hasNext();
+                    }
+
+                    @Override
+                    public AirbnbListing next() {
+                        return getListing(iterator.nextInt());
+                    }
+                };
+            }
+        };
+    }
+
+    public String getId(int row) {
+        return columns.id[row];
+    }
+
+    /**
+     * Gets the name of a property, reading it from the CSV file if it is not kept
+     * @param row The index of the row
+     * @return The name of the property
+     */
+    public String getName(int row) {
+        Columns columns = this.columns;
+        String value = columns.name[row];
+        RecordFieldReader reader = nameReader;
+        if (value == null && reader != null && columns.recordOffset[row] >= 0) {
+            return reader.read(columns.recordOffset[row], nameField);
+        }
+        return value;
+    }
+
+    /**
+     * @param row The index of the row
+     * @return The name of the property if the store keeps it, or null if it is read when asked for
+     */
+    public String getKeptName(int row) {
+        return columns.name[row];
+    }
+
+    /**
+     * Lets rows without a kept name read it from their record in the CSV file
+     * @param reader The reader of the CSV file
+     * @param field The position of the name within each record
+     */
+    public void setNameReader(RecordFieldReader reader, int field) {
+        this.nameField = field;
+        this.nameReader = reader;
+    }
+
+    /**
+     * @param row The index of the row
+     * @return The offset of the row's record in the CSV file, or -1 if not known
+     */
+    public long getRecordOffset(int row) {
+        return columns.recordOffset[row];
+    }
+
+    public String getHostId(int row) {
+        return columns.hostId[row];
+    }
+
+    public String getHostName(int row) {
+        return columns.hostName[row];
+    }
+
+    public String getNeighbourhood(int row) {
+        return neighbourhoods.getValue(columns.neighbourhood[row] & 0xFFFF);
+    }
+
+    /**
+     * @param row The index of the row
+     * @return The dictionary code of the row's borough
+     */
+    public int getNeighbourhoodCode(int row) {
+        return columns.neighbourhood[row] & 0xFFFF;
+    }
+
+    /**
+     * @return The dictionary of borough names
+     */
+    public StringDictionary getNeighbourhoods() {
+        return neighbourhoods;
+    }
+
+    public double getLatitude(int row) {
+        return columns.latitude[row];
+    }
+
+    public double getLongitude(int row) {
+        return columns.longitude[row];
+    }
+
+    public String getRoomType(int row) {
+        return roomTypes.getValue(columns.roomType[row] & 0xFF);
+    }
+
+    /**
+     * @param row The index of the row
+     * @return The dictionary code of the row's room type
+     */
+    public int getRoomTypeCode(int row) {
+        return columns.roomType[row] & 0xFF;
+    }
+
+    /**
+     * @return The dictionary of room types
+     */
+    public StringDictionary getRoomTypes() {
+        return roomTypes;
+    }
+
+    public int getPrice(int row) {
+        return columns.price[row];
+    }
+
+    public int getMinimumNights(int row) {
+        return columns.minimumNights[row];
+    }
+
+    public int getNumberOfReviews(int row) {
+        return columns.numberOfReviews[row];
+    }
+
+    /**
+     * @param row The index of the row
+     * @return The date of the last review as yyyy-MM-dd, or an empty string if there is none
+     */
+    public String getLastReview(int row) {
+        int day = columns.lastReviewDay[row];
+        return day == NO_REVIEW ? "" : LocalDate.ofEpochDay(day).toString();
+    }
+
+    /**
+     * @param row The index of the row
+     * @return The epoch day of the last review, or NO_REVIEW if there is none
+     */
+    public int getLastReviewDay(int row) {
+        return columns.lastReviewDay[row];
+    }
+
+    /**
+     * Converts a date as written in the CSV file to an epoch day
+     * @param lastReview The date as yyyy-MM-dd, or an empty string
+     * @return The epoch day of the date, or NO_REVIEW if there is no date
+     */
+    public static int toReviewDay(String lastReview) {
+        if (lastReview == null || lastReview.isBlank()) {
+            return NO_REVIEW;
+        }
+        return (int) LocalDate.parse(lastReview.trim()).toEpochDay();
+    }
+
+    public double getReviewsPerMonth(int row) {
+        return columns.reviewsPerMonth[row];
+    }
+
+    public int getCalculatedHostListingsCount(int row) {
+        return columns.calculatedHostListingsCount[row];
+    }
+
+    public int getAvailability365(int row) {
+        return columns.availability365[row];
+    }
+
+    /**
+     * The columns of the store, one array per field, all of the same capacity. The arrays
+     * are never replaced on their own, so a reader which loads the Columns once sees
+     * every field of a row from the same arrays.
+     */
+    private static final class Columns {
+        // numeric columns
+        final int[] price;
+        final int[] minimumNights;
+        final int[] numberOfReviews;
+        final int[] availability365;
+        final int[] calculatedHostListingsCount;
+        final double[] latitude;
+        final double[] longitude;
+        final double[] reviewsPerMonth;
+        final int[] lastReviewDay;
+        // where each row's record starts in the CSV file
+        final long[] recordOffset;
+
+        // text columns
+        final String[] id;
+        // null for rows whose name is read from the file when asked for
+        final String[] name;
+        final String[] hostId;
+        final String[] hostName;
+
+        // dictionary-encoded columns, read as unsigned codes
+        final short[] neighbourhood;
+        final byte[] roomType;
+
+        /**
+         * Creates empty columns
+         * @param capacity The number of rows the columns can hold
+         */
+        Columns(int capacity) {
+            price = new int[capacity];
+            minimumNights = new int[capacity];
+            numberOfReviews = new int[capacity];
+            availability365 = new int[capacity];
+            calculatedHostListingsCount = new int[capacity];
+            latitude = new double[capacity];
+            longitude = new double[capacity];
+            reviewsPerMonth = new double[capacity];
+            lastReviewDay = new int[capacity];
+            recordOffset = new long[capacity];
+            id = new String[capacity];
+            name = new String[capacity];
+            hostId = new String[capacity];
+            hostName = new String[capacity];
+            neighbourhood = new short[capacity];
+            roomType = new byte[capacity];
+        }
+
+        /**
+         * Creates larger columns holding the rows of smaller ones
+         * @param old The columns whose rows are copied
+         * @param capacity The number of rows the new columns can hold
+         */
+        Columns(Columns old, int capacity) {
+            price = Arrays.copyOf(old.price, capacity);
+            minimumNights = Arrays.copyOf(old.minimumNights, capacity);
+            numberOfReviews = Arrays.copyOf(old.numberOfReviews, capacity);
+            availability365 = Arrays.copyOf(old.availability365, capacity);
+            calculatedHostListingsCount = Arrays.copyOf(old.calculatedHostListingsCount, capacity);
+            latitude = Arrays.copyOf(old.latitude, capacity);
+            longitude = Arrays.copyOf(old.longitude, capacity);
+            reviewsPerMonth = Arrays.copyOf(old.reviewsPerMonth, capacity);
+            lastReviewDay = Arrays.copyOf(old.lastReviewDay, capacity);
+            recordOffset = Arrays.copyOf(old.recordOffset, capacity);
+            id = Arrays.copyOf(old.id, capacity);
+            name = Arrays.copyOf(old.name, capacity);
+            hostId = Arrays.copyOf(old.hostId, capacity);
+            hostName = Arrays.copyOf(old.hostName, capacity);
+            neighbourhood = Arrays.copyOf(old.neighbourhood, capacity);
+            roomType = Arrays.copyOf(old.roomType, capacity);
+        }
+
+        /**
+         * @return The number of rows the columns can hold
+         */
+        int capacity() {
+            return price.length;
+        }
+    }
+
+    /**
+     * The base of the read-only list views over the store
+     */
+    private abstract class AbstractRowList extends AbstractList<AirbnbListing> implements RandomAccess {
+    }
+
+    /**
+     * A read-only list view of the rows of the store below a watermark
+     */
+    private class ListingList extends AbstractRowList {
+        private final int size;
+
+        ListingList(int size) {
+            this.size = size;
+        }
+
+        @Override
+        public AirbnbListing get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Row " + index + " of " + size);
+            }
+            return getListing(index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+/**
+ * This file is part of "Property Hunter"
+ * - a London property viewing application.
+ *
+ * The LoadPhase enumeration names the phases of loading a data set which LoaderStats
+ * times. The first phases happen one after another and are timed by the clock. The
+ * last three are the steps of parsing a single record, which happen on every thread
+ * of the pool at once, so their times are processor time summed over the threads.
+ *
+ * @author Ubayd Khan (k20044237), Mohammed Chowdhury (k21074018), Omar Ahmad (k210524117), Muhammad Beg (k21057641)
+ * @version 30.03.2022
+ */
+public enum LoadPhase
+{
+    READ("read", true),
+    SNAPSHOT_READ("snapshot_read", true),
+    SPLIT("split", true),
+    PARSE("parse", true),
+    SNAPSHOT_WRITE("snapshot_write", true),
+    TOKENIZE("tokenize", false),
+    CONVERT("convert", false),
+    STORE("store", false);
+
+    /**
+     * The constructor of enum LoadPhase
+     * @param key The name of the phase in logs
+     * @param wallClock If the phase is timed by the clock, rather than summed over threads
+     */
+    LoadPhase(String key, boolean wallClock) {
+        this.key = key;
+        this.wallClock = wallClock;
+    }
+
+    private String key;
+    private boolean wallClock;
+
+    /**
+     * @return The name of the phase in logs
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * @return If the phase is timed by the clock, rather than summed over the threads of the pool
+     */
+    public boolean isWallClock() {
+        return wallClock;
+    }
+}
@@ -0,0 +1,132 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * This file is part of "Property Hunter"
+ * - a London property viewing application.
+ *
+ * A LoadQuarantine collects the records which could not be loaded from a data set,
+ * so that one malformed record does not stop the rest of the data set from loading,
+ * and the bad records can be looked at afterwards without loading the data set again.
+ *
+ * A dirty file could have any number of bad records, so only the first ones in the
+ * file are kept, up to a capacity; the rest are only counted. Records are rejected
+ * by several parsing threads at once, in no particular order, so record numbers are
+ * worked out afterwards from the rows which were loaded (see numberRecords).
+ *
+ * @author Ubayd Khan (k20044237), Mohammed Chowdhury (k21074018), Omar Ahmad (k210524117), Muhammad Beg (k21057641)
+ * @version 30.03.2022
+ */
+public class LoadQuarantine
+{
+    // the number of rejected records kept by default
+    public static final int DEFAULT_CAPACITY = 1000;
+
+    private final int capacity;
+    // the kept records, latest in the file first, so the latest can be swapped for an earlier one
+    private final PriorityQueue<RejectedRow> rows =
+            new PriorityQueue<>(Comparator.comparingLong(RejectedRow::getOffset).reversed());
+    private long rejectedCount;
+
+    /**
+     * Creates an empty quarantine which keeps DEFAULT_CAPACITY records
+     */
+    public LoadQuarantine() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates an empty quarantine
+     * @param capacity The number of rejected records kept
+     */
+    public LoadQuarantine(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Records a record which could not be loaded
+     * @param row The rejected record
+     */
+    public synchronized void add(RejectedRow row) {
+        rejectedCount++;
+        if (rows.size() < capacity) {
+            rows.add(row);
+        } else if (capacity > 0 && row.getOffset() < rows.peek().getOffset()) {
+            rows.poll();
+            rows.add(row);
+        }
+    }
+
+    /**
+     * Works out the number of each kept record, from the offsets of the rows which were
+     * loaded. Every record before a kept record is either a loaded row or another kept
+     * record, since the first records in the file are the ones kept.
+     * @param listings The store the data set was loaded into
+     * @param firstRow The first row of the store which came from the data set
+     */
+    public synchronized void numberRecords(ListingStore listings, int firstRow) {
+        List<RejectedRow> sorted = getSortedRows();
+        int size = listings.size();
+        for (int i = 0; i < sorted.size(); i++) {
+            RejectedRow row = sorted.get(i);
+            long loadedBefore = findFirstRowAt(listings, firstRow, size, row.getOffset()) - firstRow;
+            row.setRecordNumber(loadedBefore + i + 1);
+        }
+    }
+
+    /**
+     * Finds the first row whose record is at or after an offset, by binary search, since
+     * rows are loaded in file order
+     */
+    private static int findFirstRowAt(ListingStore listings, int from, int to, long offset) {
+        int low = from;
+        int high = to;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (listings.getRecordOffset(mid) < offset) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return The kept rejected records, in file order
+     */
+    public synchronized List<RejectedRow> getRows() {
+        return Collections.unmodifiableList(getSortedRows());
+    }
+
+    private List<RejectedRow> getSortedRows() {
+        ArrayList<RejectedRow> sorted = new ArrayList<>(rows);
+        sorted.sort(Comparator.comparingLong(RejectedRow::getOffset));
+        return sorted;
+    }
+
+    /**
+     * @return The number of records rejected, including those which were not kept
+     */
+    public synchronized long getRejectedCount() {
+        return rejectedCount;
+    }
+
+    /**
+     * Restores the count of rejected records, e.g. from a snapshot
+     * @param rejectedCount The number of records rejected, including those which were not kept
+     */
+    synchronized void setRejectedCount(long rejectedCount) {
+        this.rejectedCount = rejectedCount;
+    }
+
+    /**
+     * @return The number of rejected records which can be kept
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+}
@@ -0,0 +1,131 @@
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ForkJoinPool;
+import com.opencsv.CSVReader;
+
+/**
+ * This file is part of "Property Hunter"
+ * - a London property viewing application.
+ *
+ * A LoaderBenchmark compares how much memory parsing the data set allocates, and how
+ * long it takes, when parsed through opencsv with boxed number conversion (as the
+ * loader used to) and when parsed through a CsvTokenizer (as the loader does now).
+ * Both parse the whole file on the calling thread into a ListingStore, so that the
+ * allocations of that thread cover all of the work.
+ *
+ * Run it with: java LoaderBenchmark [iterations]
+ *
+ * @author Ubayd Khan (k20044237), Mohammed Chowdhury (k21074018), Omar Ahmad (k210524117), Muhammad Beg (k21057641)
+ * @version 30.03.2022
+ */
+public class LoaderBenchmark
+{
+    private static final String DATASET_RESOURCE = "airbnb-london.csv";
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int DEFAULT_ITERATIONS = 10;
+
+    private final byte[] data;
+    private final int start;
+    private final int rows;
+    private final com.sun.management.ThreadMXBean threads;
+
+    /**
+     * Reads the data set into memory, ready to be parsed
+     */
+    public LoaderBenchmark() throws IOException {
+        try (InputStream is = getClass().getResourceAsStream(DATASET_RESOURCE)) {
+            data = is.readAllBytes();
+        }
+        start = ChunkLayout.skipRecord(ByteBuffer.wrap(data), 0);
+        rows = ChunkLayout.of(ByteBuffer.wrap(data), start, Integer.MAX_VALUE, ForkJoinPool.commonPool()).getTotalRows();
+        threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    }
+
+    /**
+     * The entry point of the benchmark
+     * @param args The number of measured iterations, optionally
+     */
+    public static void main(String[] args) throws IOException {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_ITERATIONS;
+        LoaderBenchmark benchmark = new LoaderBenchmark();
+        System.out.println("Parsing " + benchmark.data.length + " bytes, " + iterations + " iterations");
+        benchmark.run("opencsv  ", benchmark::parseWithOpenCsv, iterations);
+        benchmark.run("tokenizer", benchmark::parseWithTokenizer, iterations);
+    }
+
+    /**
+     * Runs one way of parsing several times after warming up, and prints the average
+     * time, allocation per row and allocation rate
+     */
+    private void run(String label, Parser parser, int iterations) throws IOException {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            parser.parse();
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        long timeBefore = System.nanoTime();
+        int parsedRows = 0;
+        for (int i = 0; i < iterations; i++) {
+            parsedRows = parser.parse().size();
+        }
+        long nanos = System.nanoTime() - timeBefore;
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        double seconds = nanos / 1e9;
+        System.out.printf("%s: %8.1f ms/parse, %6d bytes/row, %8.1f MB allocated/parse, %8.1f MB/s allocation rate%n",
+                label, seconds * 1000 / iterations, allocated / ((long) parsedRows * iterations),
+                allocated / 1e6 / iterations, allocated / 1e6 / seconds);
+    }
+
+    /**
+     * Parses the data set as the loader did before it had a tokenizer
+     */
+    private ListingStore parseWithOpenCsv() throws IOException {
+        ListingStore listings = new ListingStore();
+        InputStream is = new ByteArrayInputStream(data, start, data.length - start);
+        CSVReader reader = new CSVReader(new InputStreamReader(is, StandardCharsets.UTF_8));
+
+        String [] line;
+        while ((line = reader.readNext()) != null) {
+            listings.add(line[0], line[1], line[2], line[3], line[4],
+                    convertDouble(line[5]), convertDouble(line[6]), line[7],
+                    convertInt(line[8]), convertInt(line[9]), convertInt(line[10]), line[11],
+                    convertDouble(line[12]), convertInt(line[13]), convertInt(line[14]));
+        }
+        return listings;
+    }
+
+    /**
+     * Parses the data set as the loader does, in one chunk
+     */
+    private ListingStore parseWithTokenizer() {
+        return new AirbnbDataLoader().parseChunk(ByteBuffer.wrap(data), start, data.length, rows);
+    }
+
+    private Double convertDouble(String doubleString){
+        if(doubleString != null && !doubleString.trim().equals("")){
+            return Double.parseDouble(doubleString);
+        }
+        return -1.0;
+    }
+
+    private Integer convertInt(String intString){
+        if(intString != null && !intString.trim().equals("")){
+            return Integer.parseInt(intString);
+        }
+        return -1;
+    }
+
+    /**
+     * One way of parsing the whole data set
+     */
+    private interface Parser {
+        ListingStore parse() throws IOException;
+    }
+}
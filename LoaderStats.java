@@ -0,0 +1,244 @@
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This file is part of "Property Hunter"
+ * - a London property viewing application.
+ *
+ * A LoaderStats records where the time and memory went while loading a data set, so
+ * that a slow start can be put down to reading, splitting or parsing, and regressions
+ * can be tracked as the data set grows. It holds the time of each LoadPhase, the bytes
+ * allocated by the threads doing the work, the number of rows and bytes loaded, and
+ * the LoadQuarantine of records which were rejected.
+ *
+ * Timing every record would slow parsing down noticeably, so only one record in
+ * SAMPLE_INTERVAL, on average, is timed step by step, and the totals of the parsing steps are
+ * scaled up from those samples to every record parsed. Rows read from a snapshot
+ * are not parsed, so have no parsing steps.
+ *
+ * The loader fills in the stats from several threads while it loads; once load()
+ * has returned them they no longer change.
+ *
+ * @author Ubayd Khan (k20044237), Mohammed Chowdhury (k21074018), Omar Ahmad (k210524117), Muhammad Beg (k21057641)
+ * @version 30.03.2022
+ */
+public class LoaderStats
+{
+    // one record in this many has its parsing steps timed; a power of two
+    public static final int SAMPLE_INTERVAL = 32;
+
+    // a sampled record taking longer than this was interrupted, e.g. by garbage collection,
+    // and would skew the totals once scaled up
+    private static final long MAX_SAMPLE_NANOS = 200_000;
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private final String dataset;
+    private final AtomicLongArray nanos = new AtomicLongArray(LoadPhase.values().length);
+    private final LongAdder sampledRows = new LongAdder();
+    private final LongAdder parsedRows = new LongAdder();
+    private final LongAdder allocatedBytes = new LongAdder();
+    private final LoadQuarantine quarantine = new LoadQuarantine();
+    private volatile long totalNanos;
+    private volatile long bytes;
+    private volatile int rows;
+    private volatile boolean successful;
+    // the name of the exception which ended the load, or null
+    private volatile String failure;
+
+    /**
+     * Creates empty stats for loading a data set
+     * @param dataset The name of the data set
+     */
+    public LoaderStats(String dataset) {
+        this.dataset = dataset;
+    }
+
+    /**
+     * @return The bytes allocated so far by the current thread, or 0 if the JVM does not count them
+     */
+    static long getCurrentThreadAllocatedBytes() {
+        if (THREADS instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) THREADS;
+            if (threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+                return threads.getCurrentThreadAllocatedBytes();
+            }
+        }
+        return 0;
+    }
+
+    void addNanos(LoadPhase phase, long phaseNanos) {
+        nanos.addAndGet(phase.ordinal(), phaseNanos);
+    }
+
+    /**
+     * Adds the time of the parsing steps of one sampled record, unless it was interrupted
+     */
+    void addSample(long tokenizeNanos, long convertNanos, long storeNanos) {
+        if (tokenizeNanos + convertNanos + storeNanos > MAX_SAMPLE_NANOS) {
+            return;
+        }
+        addNanos(LoadPhase.TOKENIZE, tokenizeNanos);
+        addNanos(LoadPhase.CONVERT, convertNanos);
+        addNanos(LoadPhase.STORE, storeNanos);
+        sampledRows.increment();
+    }
+
+    void addParsedRows(int parsed) {
+        parsedRows.add(parsed);
+    }
+
+    void addAllocatedBytes(long allocated) {
+        allocatedBytes.add(allocated);
+    }
+
+    void setTotalNanos(long totalNanos) {
+        this.totalNanos = totalNanos;
+    }
+
+    void setBytes(long bytes) {
+        this.bytes = bytes;
+    }
+
+    void setRows(int rows) {
+        this.rows = rows;
+    }
+
+    void setSuccessful(boolean successful) {
+        this.successful = successful;
+    }
+
+    void setFailure(Exception failure) {
+        this.failure = failure.getClass().getName();
+    }
+
+    /**
+     * @return The name of the data set
+     */
+    public String getDataset() {
+        return dataset;
+    }
+
+    /**
+     * Gets the time spent in a phase. Parsing steps are estimated from the sampled
+     * records, and are summed over every thread which parsed.
+     * @param phase The phase
+     * @return The time spent in the phase in nanoseconds
+     */
+    public long getNanos(LoadPhase phase) {
+        long phaseNanos = nanos.get(phase.ordinal());
+        if (phase.isWallClock()) {
+            return phaseNanos;
+        }
+        long samples = sampledRows.sum();
+        return samples == 0 ? 0 : phaseNanos * parsedRows.sum() / samples;
+    }
+
+    /**
+     * @return The time the whole load took in nanoseconds
+     */
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    /**
+     * @return The number of bytes of the CSV file read, which for a plain file ends with its last whole record
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * @return The number of rows loaded
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * @return The number of records which could not be loaded and were left out
+     */
+    public long getRejectedRows() {
+        return quarantine.getRejectedCount();
+    }
+
+    /**
+     * @return The records which could not be loaded, with why
+     */
+    public LoadQuarantine getQuarantine() {
+        return quarantine;
+    }
+
+    /**
+     * @return The bytes allocated on the heap by the threads doing the loading
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes.sum();
+    }
+
+    /**
+     * @return The bytes of the CSV file loaded per second
+     */
+    public double getBytesPerSecond() {
+        return totalNanos == 0 ? 0 : bytes * 1e9 / totalNanos;
+    }
+
+    /**
+     * @return The rows loaded per second
+     */
+    public double getRowsPerSecond() {
+        return totalNanos == 0 ? 0 : rows * 1e9 / totalNanos;
+    }
+
+    /**
+     * @return If the data set loaded without an error
+     */
+    public boolean isSuccessful() {
+        return successful;
+    }
+
+    /**
+     * @return The class name of the exception which ended the load, or null if there was none
+     */
+    public String getFailure() {
+        return failure;
+    }
+
+    /**
+     * Formats the stats as a single line of key=value pairs, so that logs can be
+     * searched and compared by machine
+     * @return The stats as a log line
+     */
+    public String toLogLine() {
+        StringBuilder line = new StringBuilder("loader-stats");
+        line.append(" dataset=").append(dataset);
+        line.append(" successful=").append(successful);
+        if (failure != null) {
+            line.append(" failure=").append(failure);
+        }
+        line.append(" rows=").append(rows);
+        line.append(" bytes=").append(bytes);
+        line.append(" rejected_rows=").append(getRejectedRows());
+        line.append(" total_ms=").append(toMillis(totalNanos));
+        for (LoadPhase phase : LoadPhase.values()) {
+            line.append(' ').append(phase.getKey()).append(phase.isWallClock() ? "_ms=" : "_cpu_ms=");
+            line.append(toMillis(getNanos(phase)));
+        }
+        line.append(" rows_per_sec=").append(Math.round(getRowsPerSecond()));
+        line.append(" bytes_per_sec=").append(Math.round(getBytesPerSecond()));
+        line.append(" allocated_bytes=").append(getAllocatedBytes());
+        return line.toString();
+    }
+
+    @Override
+    public String toString() {
+        return toLogLine();
+    }
+
+    private static String toMillis(long nanos) {
+        return String.format(Locale.ROOT, "%.1f", nanos / 1e6);
+    }
+}
@@ -16,7 +16,7 @@ import java.net.URL;
  */
 public class Main extends Application
 {
-    private Model model = new Model();
+    private Model model;
     
     /**
      * The entry point of the application
@@ -32,6 +32,8 @@ public class Main extends Application
      * @param stage The stage object of the application
      */
     public void start(Stage stage) throws Exception {
+        // the listings load in the background while the window is shown
+        model = Model.loadInBackground(true);
 
         URL url = getClass().getResource("/MainWindow.fxml");
         FXMLLoader loader = new FXMLLoader(url);
@@ -8,6 +8,12 @@ import javafx.scene.control.Alert;
 import javafx.fxml.FXMLLoader;
 import javafx.fxml.FXML;
 
+import javafx.application.Platform;
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.util.Duration;
+
 /**
  * This file is part of "Property Hunter"
  * - a London property viewing application.
@@ -37,6 +43,12 @@ public class MainWindowController
     private final int priceSelectionInterval = 25;
     private final int intervals = 12; 
     
+    // how often the panels are refreshed while listings are still loading
+    private static final double LOADING_REFRESH_MILLIS = 250;
+    
+    private Timeline loadingTimeline;
+    private int loadedListings = -1;
+    
     @FXML private ChoiceBox<String> fromBox;
     
     @FXML private ChoiceBox<String> toBox;
@@ -72,6 +84,48 @@ public class MainWindowController
         setPanelLoaders();
         setPriceSelectionChoices();
         updatePanel();
+        watchLoading();
+    }
+    
+    /**
+     * Refreshes the panels at a fixed rate while the model is still loading listings in the
+     * background, so that they show partial results. The refresh runs on the JavaFX thread
+     * but only reads the listings loaded so far, so it never waits for the loader. Once
+     * loaded, the panels are refreshed whenever listings are appended to the data set.
+     */
+    private void watchLoading() {
+        loadingTimeline = new Timeline(new KeyFrame(Duration.millis(LOADING_REFRESH_MILLIS), event -> refreshLoadedListings()));
+        loadingTimeline.setCycleCount(Animation.INDEFINITE);
+        loadingTimeline.play();
+        refreshLoadedListings();
+        
+        // listings appended to the data set after loading arrive one batch at a time
+        model.addListingListener((listings, fromRow, toRow) -> {
+            if (model.isLoaded()) {
+                Platform.runLater(this::refreshLoadedListings);
+            }
+        });
+    }
+    
+    /**
+     * Updates the panels if more listings have been loaded since the last refresh, and
+     * stops refreshing once every listing has been loaded
+     */
+    private void refreshLoadedListings() {
+        // check for completion first, so the last rows are never missed
+        boolean loaded = model.isLoaded();
+        int listings = model.getListingStore().size();
+        
+        if (listings != loadedListings || loaded) {
+            loadedListings = listings;
+            for (AbstractPanelController controller : panelControllers) {
+                controller.updateLoadedListings();
+            }
+        }
+        
+        if (loaded) {
+            loadingTimeline.stop();
+        }
     }
     
     /**
@@ -141,8 +195,8 @@ public class MainWindowController
             showInvalidRangeAlert();
         }
 
+        // the panels hear about the new price range on the model's event bus
         updateDirectionButtons();
-        updatePanelControllers();
 
     }
     
@@ -173,7 +227,6 @@ public class MainWindowController
         }
 
         updateDirectionButtons();
-        updatePanelControllers();
 
     }
     
@@ -218,7 +271,6 @@ public class MainWindowController
         }
         
         updatePanel();
-        updatePanelControllers();
     }
     
     /**
@@ -232,7 +284,6 @@ public class MainWindowController
         }
         
         updatePanel();
-        updatePanelControllers();
     }
     
     /**
@@ -244,13 +295,4 @@ public class MainWindowController
         stage.setTitle("Property Hunter - " + panelTypes[panelIndex].toString());
 
     }
-    
-    /**
-     * Calls the update method on all panel controller objects
-     */
-    private void updatePanelControllers() {
-        for (AbstractPanelController controller : panelControllers) {
-            controller.update();
-        }
-    }
 }
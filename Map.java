@@ -1,6 +1,7 @@
 import javafx.application.Platform;
 
 import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
 import java.awt.*;
 import java.awt.geom.Path2D;
 import java.util.ArrayList;
@@ -100,8 +101,8 @@ public class Map extends JPanel implements Runnable {
 
     // Price range data
     private Model model;
-    private PriceRangeHandler priceRangeHandler;
-    private HashMap<String, Double> brightnessIndexes;
+    // the model's state the map was last drawn from, read without locking as the model publishes new ones
+    private volatile ModelSnapshot snapshot;
 
 
     private MapPanelController controller;
@@ -127,8 +128,7 @@ public class Map extends JPanel implements Runnable {
         addMouseMotionListener(mouseMotionInput);
 
         this.model = model;
-        priceRangeHandler = this.model.getPriceRangeHandler();
-        brightnessIndexes = priceRangeHandler.getBoroughPriceRangeIndices();
+        snapshot = this.model.getSnapshot();
 
         startMapThread();
     }
@@ -148,10 +148,13 @@ public class Map extends JPanel implements Runnable {
     public void run() {
         generateBoroughCoords();
         generateBoroughLabels();
-        generateBoroughs();
+
+        // the boroughs are recoloured on the Swing thread only when the price range or listings change
+        model.getEventBus().subscribe(changes -> updatePriceRanges(), SwingUtilities::invokeLater,
+                ModelChange.PRICE_RANGE, ModelChange.LISTINGS);
+        updatePriceRanges();
 
         while (mapThread != null) {
-            brightnessIndexes = priceRangeHandler.getBoroughPriceRangeIndices();
             repaint();
             userInputUpdate();
 
@@ -668,13 +671,14 @@ public class Map extends JPanel implements Runnable {
      * @param boroughName Name of the borough
      * @return Returns a new scaled colour relative to the most populated borough
      */
-    private Color generateBoroughColor(String boroughName) {
+    private Color generateBoroughColor(ModelSnapshot snapshot, String boroughName) {
 
         int value;
+        Double boroughIndex = snapshot.getBoroughPriceRangeIndex(boroughName);
 
-        if (brightnessIndexes.get(boroughName) != null) {
+        if (boroughIndex != null) {
             // Meaning that the borough has properties
-            double brightnessIndex =  0.1 + (brightnessIndexes.get(boroughName) / 1.2); // to prevent map looking too bland
+            double brightnessIndex =  0.1 + (boroughIndex / 1.2); // to prevent map looking too bland
             value = (int)((1 - brightnessIndex) * 255);
 
         } else {
@@ -695,41 +699,43 @@ public class Map extends JPanel implements Runnable {
      */
     private void generateBoroughs() {
 
+        // every borough is coloured from the same snapshot, even if the model changes meanwhile
+        ModelSnapshot current = snapshot;
         boroughs = new ArrayList<>();
 
-        boroughs.add(new Borough(new Point[] {p[59],p[60],p[61],p[62],p[63],p[64],p[66],p[118]}, "Barking and Dagenham", generateBoroughColor("Barking and Dagenham"), labels[0], new String[] {"Barking and", " Dagenham"}));
-        boroughs.add(new Borough(new Point[] {p[2],p[3],p[53],p[52],p[51],p[50],p[49],p[48],p[47],p[46]}, "Barnet", generateBoroughColor("Barnet"), labels[1]));
-        boroughs.add(new Borough(new Point[] {p[17],p[18],p[19],p[69],p[68],p[67],p[66],p[64],p[65]}, "Bexley", generateBoroughColor("Bexley"), labels[2]));
-        boroughs.add(new Borough(new Point[] {p[44],p[45],p[46],p[47],p[48],p[49],p[50],p[97],p[96],p[95],p[94],p[93],p[92]}, "Brent", generateBoroughColor("Brent"), labels[3]));
-        boroughs.add(new Borough(new Point[] {p[19],p[20],p[21],p[22],p[23],p[24],p[72],p[71],p[70],p[69]}, "Bromley", generateBoroughColor("Bromley"), labels[4]));
-        boroughs.add(new Borough(new Point[] {p[50],p[51],p[102],p[101],p[100],p[99],p[98],p[97]}, "Camden", generateBoroughColor("Camden"), labels[5]));
-        boroughs.add(new Borough(new Point[] {p[101],p[105],p[106],p[107],p[125],p[100]}, "City of London", generateBoroughColor("City of London"), labels[6], new String[] {"City"}));
-        boroughs.add(new Borough(new Point[] {p[24],p[25],p[26],p[27],p[75],p[74],p[73],p[72]}, "Croydon", generateBoroughColor("Croydon"), labels[7]));
-        boroughs.add(new Borough(new Point[] {p[43],p[44],p[92],p[93],p[94],p[140],p[87],p[88],p[89],p[90],p[91]}, "Ealing", generateBoroughColor("Ealing"), labels[8]));
-        boroughs.add(new Borough(new Point[] {p[3],p[4],p[5],p[6],p[7],p[54],p[52],p[53]}, "Enfield", generateBoroughColor("Enfield"), labels[9]));
-        boroughs.add(new Borough(new Point[] {p[66],p[67],p[68],p[69],p[70],p[119],p[120],p[110],p[111],p[112],p[115],p[116],p[117],p[118]}, "Greenwich", generateBoroughColor("Greenwich"), labels[10]));
-        boroughs.add(new Borough(new Point[] {p[55],p[56],p[114],p[106],p[105],p[104],p[103]}, "Hackney", generateBoroughColor("Hackney"), labels[11]));
-        boroughs.add(new Borough(new Point[] {p[94],p[95],p[139],p[133],p[132],p[131],p[141],p[86],p[87],p[140]}, "Hammersmith and Fulham", generateBoroughColor("Hammersmith and Fulham"), labels[12], new String[] {"H&F"}));
-        boroughs.add(new Borough(new Point[] {p[51],p[52],p[54],p[55],p[103],p[102]}, "Haringey", generateBoroughColor("Haringey"), labels[13]));
-        boroughs.add(new Borough(new Point[] {p[1],p[2],p[46],p[45],p[44],p[43]}, "Harrow", generateBoroughColor("Harrow"), labels[14]));
-        boroughs.add(new Borough(new Point[] {p[11],p[12],p[13],p[14],p[15],p[16],p[17],p[65],p[64],p[63],p[62],p[61]}, "Havering", generateBoroughColor("Havering"), labels[15]));
-        boroughs.add(new Borough(new Point[] {p[0],p[1],p[43],p[91],p[90],p[89],p[39],p[40],p[41],p[42]}, "Hillingdon", generateBoroughColor("Hillingdon"), labels[16]));
-        boroughs.add(new Borough(new Point[] {p[37],p[38],p[39],p[89],p[88],p[87],p[86],p[85],p[84],p[80],p[81],p[82],p[83]}, "Hounslow", generateBoroughColor("Hounslow"), labels[17]));
-        boroughs.add(new Borough(new Point[] {p[101],p[102],p[103],p[104],p[105]}, "Islington", generateBoroughColor("Islington"), labels[18]));
-        boroughs.add(new Borough(new Point[] {p[95],p[96],p[138],p[137],p[136],p[133],p[139]}, "Kensington and Chelsea", generateBoroughColor("Kensington and Chelsea"), labels[19], new String[] {"K&C"}));
-        boroughs.add(new Borough(new Point[] {p[30],p[31],p[32],p[33],p[34],p[79],p[78],p[77],p[76]}, "Kingston upon Thames", generateBoroughColor("Kingston upon Thames"), labels[20], new String[] {"Kingston", "upon", "Thames"}));
-        boroughs.add(new Borough(new Point[] {p[134],p[135],p[125],p[123],p[124],p[72],p[73],p[126]}, "Lambeth", generateBoroughColor("Lambeth"), labels[21]));
-        boroughs.add(new Borough(new Point[] {p[109],p[110],p[120],p[119],p[70],p[71],p[72],p[121],p[122]}, "Lewisham", generateBoroughColor("Lewisham"), labels[22]));
-        boroughs.add(new Borough(new Point[] {p[73],p[74],p[76],p[77],p[129],p[128],p[127],p[126]}, "Merton", generateBoroughColor("Merton"), labels[23]));
-        boroughs.add(new Borough(new Point[] {p[56],p[57],p[58],p[59],p[118],p[117],p[116],p[115],p[113],p[114],}, "Newham", generateBoroughColor("Newham"), labels[24]));
-        boroughs.add(new Borough(new Point[] {p[9],p[10],p[11],p[61],p[60],p[59],p[58],p[57]}, "Redbridge", generateBoroughColor("Redbridge"), labels[25]));
-        boroughs.add(new Borough(new Point[] {p[34],p[35],p[36],p[37],p[83],p[82],p[81],p[80],p[84],p[85],p[86],p[141],p[131],p[130],p[129],p[77],p[78],p[79]}, "Richmond upon Thames", generateBoroughColor("Richmond upon Thames"), labels[26], new String[] {"Richmond upon", "Thames"}));
-        boroughs.add(new Borough(new Point[] {p[125],p[107],p[108],p[109],p[122],p[121],p[72],p[124],p[123]}, "Southwark", generateBoroughColor("Southwark"), labels[27]));
-        boroughs.add(new Borough(new Point[] {p[27],p[28],p[29],p[30],p[76],p[74],p[75]}, "Sutton", generateBoroughColor("Sutton"), labels[28]));
-        boroughs.add(new Borough(new Point[] {p[106],p[107],p[108],p[109],p[110],p[111],p[112],p[115],p[113],p[114]}, "Tower Hamlets", generateBoroughColor("Tower Hamlets"), labels[29], new String[] {"Tower", "Hamlets"}));
-        boroughs.add(new Borough(new Point[] {p[7],p[8],p[9],p[57],p[56],p[55],p[54]}, "Waltham Forest", generateBoroughColor("Waltham Forest"), labels[30], new String[] {"Waltham", " Forest"}));
-        boroughs.add(new Borough(new Point[] {p[126],p[127],p[128],p[129],p[130],p[131],p[132],p[133],p[136],p[135],p[134]}, "Wandsworth", generateBoroughColor("Wandsworth"), labels[31]));
-        boroughs.add(new Borough(new Point[] {p[96],p[97],p[98],p[99],p[100],p[125],p[135],p[136],p[137],p[138]}, "Westminster", generateBoroughColor("Westminster"), labels[32], new String[] {"West","-minster"}));
+        boroughs.add(new Borough(new Point[] {p[59],p[60],p[61],p[62],p[63],p[64],p[66],p[118]}, "Barking and Dagenham", generateBoroughColor(current, "Barking and Dagenham"), labels[0], new String[] {"Barking and", " Dagenham"}));
+        boroughs.add(new Borough(new Point[] {p[2],p[3],p[53],p[52],p[51],p[50],p[49],p[48],p[47],p[46]}, "Barnet", generateBoroughColor(current, "Barnet"), labels[1]));
+        boroughs.add(new Borough(new Point[] {p[17],p[18],p[19],p[69],p[68],p[67],p[66],p[64],p[65]}, "Bexley", generateBoroughColor(current, "Bexley"), labels[2]));
+        boroughs.add(new Borough(new Point[] {p[44],p[45],p[46],p[47],p[48],p[49],p[50],p[97],p[96],p[95],p[94],p[93],p[92]}, "Brent", generateBoroughColor(current, "Brent"), labels[3]));
+        boroughs.add(new Borough(new Point[] {p[19],p[20],p[21],p[22],p[23],p[24],p[72],p[71],p[70],p[69]}, "Bromley", generateBoroughColor(current, "Bromley"), labels[4]));
+        boroughs.add(new Borough(new Point[] {p[50],p[51],p[102],p[101],p[100],p[99],p[98],p[97]}, "Camden", generateBoroughColor(current, "Camden"), labels[5]));
+        boroughs.add(new Borough(new Point[] {p[101],p[105],p[106],p[107],p[125],p[100]}, "City of London", generateBoroughColor(current, "City of London"), labels[6], new String[] {"City"}));
+        boroughs.add(new Borough(new Point[] {p[24],p[25],p[26],p[27],p[75],p[74],p[73],p[72]}, "Croydon", generateBoroughColor(current, "Croydon"), labels[7]));
+        boroughs.add(new Borough(new Point[] {p[43],p[44],p[92],p[93],p[94],p[140],p[87],p[88],p[89],p[90],p[91]}, "Ealing", generateBoroughColor(current, "Ealing"), labels[8]));
+        boroughs.add(new Borough(new Point[] {p[3],p[4],p[5],p[6],p[7],p[54],p[52],p[53]}, "Enfield", generateBoroughColor(current, "Enfield"), labels[9]));
+        boroughs.add(new Borough(new Point[] {p[66],p[67],p[68],p[69],p[70],p[119],p[120],p[110],p[111],p[112],p[115],p[116],p[117],p[118]}, "Greenwich", generateBoroughColor(current, "Greenwich"), labels[10]));
+        boroughs.add(new Borough(new Point[] {p[55],p[56],p[114],p[106],p[105],p[104],p[103]}, "Hackney", generateBoroughColor(current, "Hackney"), labels[11]));
+        boroughs.add(new Borough(new Point[] {p[94],p[95],p[139],p[133],p[132],p[131],p[141],p[86],p[87],p[140]}, "Hammersmith and Fulham", generateBoroughColor(current, "Hammersmith and Fulham"), labels[12], new String[] {"H&F"}));
+        boroughs.add(new Borough(new Point[] {p[51],p[52],p[54],p[55],p[103],p[102]}, "Haringey", generateBoroughColor(current, "Haringey"), labels[13]));
+        boroughs.add(new Borough(new Point[] {p[1],p[2],p[46],p[45],p[44],p[43]}, "Harrow", generateBoroughColor(current, "Harrow"), labels[14]));
+        boroughs.add(new Borough(new Point[] {p[11],p[12],p[13],p[14],p[15],p[16],p[17],p[65],p[64],p[63],p[62],p[61]}, "Havering", generateBoroughColor(current, "Havering"), labels[15]));
+        boroughs.add(new Borough(new Point[] {p[0],p[1],p[43],p[91],p[90],p[89],p[39],p[40],p[41],p[42]}, "Hillingdon", generateBoroughColor(current, "Hillingdon"), labels[16]));
+        boroughs.add(new Borough(new Point[] {p[37],p[38],p[39],p[89],p[88],p[87],p[86],p[85],p[84],p[80],p[81],p[82],p[83]}, "Hounslow", generateBoroughColor(current, "Hounslow"), labels[17]));
+        boroughs.add(new Borough(new Point[] {p[101],p[102],p[103],p[104],p[105]}, "Islington", generateBoroughColor(current, "Islington"), labels[18]));
+        boroughs.add(new Borough(new Point[] {p[95],p[96],p[138],p[137],p[136],p[133],p[139]}, "Kensington and Chelsea", generateBoroughColor(current, "Kensington and Chelsea"), labels[19], new String[] {"K&C"}));
+        boroughs.add(new Borough(new Point[] {p[30],p[31],p[32],p[33],p[34],p[79],p[78],p[77],p[76]}, "Kingston upon Thames", generateBoroughColor(current, "Kingston upon Thames"), labels[20], new String[] {"Kingston", "upon", "Thames"}));
+        boroughs.add(new Borough(new Point[] {p[134],p[135],p[125],p[123],p[124],p[72],p[73],p[126]}, "Lambeth", generateBoroughColor(current, "Lambeth"), labels[21]));
+        boroughs.add(new Borough(new Point[] {p[109],p[110],p[120],p[119],p[70],p[71],p[72],p[121],p[122]}, "Lewisham", generateBoroughColor(current, "Lewisham"), labels[22]));
+        boroughs.add(new Borough(new Point[] {p[73],p[74],p[76],p[77],p[129],p[128],p[127],p[126]}, "Merton", generateBoroughColor(current, "Merton"), labels[23]));
+        boroughs.add(new Borough(new Point[] {p[56],p[57],p[58],p[59],p[118],p[117],p[116],p[115],p[113],p[114],}, "Newham", generateBoroughColor(current, "Newham"), labels[24]));
+        boroughs.add(new Borough(new Point[] {p[9],p[10],p[11],p[61],p[60],p[59],p[58],p[57]}, "Redbridge", generateBoroughColor(current, "Redbridge"), labels[25]));
+        boroughs.add(new Borough(new Point[] {p[34],p[35],p[36],p[37],p[83],p[82],p[81],p[80],p[84],p[85],p[86],p[141],p[131],p[130],p[129],p[77],p[78],p[79]}, "Richmond upon Thames", generateBoroughColor(current, "Richmond upon Thames"), labels[26], new String[] {"Richmond upon", "Thames"}));
+        boroughs.add(new Borough(new Point[] {p[125],p[107],p[108],p[109],p[122],p[121],p[72],p[124],p[123]}, "Southwark", generateBoroughColor(current, "Southwark"), labels[27]));
+        boroughs.add(new Borough(new Point[] {p[27],p[28],p[29],p[30],p[76],p[74],p[75]}, "Sutton", generateBoroughColor(current, "Sutton"), labels[28]));
+        boroughs.add(new Borough(new Point[] {p[106],p[107],p[108],p[109],p[110],p[111],p[112],p[115],p[113],p[114]}, "Tower Hamlets", generateBoroughColor(current, "Tower Hamlets"), labels[29], new String[] {"Tower", "Hamlets"}));
+        boroughs.add(new Borough(new Point[] {p[7],p[8],p[9],p[57],p[56],p[55],p[54]}, "Waltham Forest", generateBoroughColor(current, "Waltham Forest"), labels[30], new String[] {"Waltham", " Forest"}));
+        boroughs.add(new Borough(new Point[] {p[126],p[127],p[128],p[129],p[130],p[131],p[132],p[133],p[136],p[135],p[134]}, "Wandsworth", generateBoroughColor(current, "Wandsworth"), labels[31]));
+        boroughs.add(new Borough(new Point[] {p[96],p[97],p[98],p[99],p[100],p[125],p[135],p[136],p[137],p[138]}, "Westminster", generateBoroughColor(current, "Westminster"), labels[32], new String[] {"West","-minster"}));
 
     }
 
@@ -781,8 +787,7 @@ public class Map extends JPanel implements Runnable {
      * each borough
      */
     public void updatePriceRanges() {
-        priceRangeHandler = model.getPriceRangeHandler();
-        brightnessIndexes = priceRangeHandler.getBoroughPriceRangeIndices();
+        snapshot = model.getSnapshot();
         generateBoroughs();
 
     }
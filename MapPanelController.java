@@ -1,4 +1,5 @@
 
+import javafx.application.Platform;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
 import javafx.scene.layout.Pane;
@@ -33,9 +34,10 @@ public class MapPanelController extends AbstractPanelController {
 
     private PropertyListingController controller;
 
+    /**
+     * Updates the listing window, if one is open. The map recolours itself when the price range changes.
+     */
     public void update() {
-        map.updatePriceRanges();
-
         if (controller == null) {
             return;
 
@@ -60,6 +62,7 @@ public class MapPanelController extends AbstractPanelController {
     public void initModel(Model model) {
         setModel(model);
         createSwingNode(swingNode);
+        model.getEventBus().subscribe(changes -> update(), Platform::runLater, ModelChange.PRICE_RANGE);
 
         // temp
         //showListingWindow();
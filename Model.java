@@ -1,5 +1,9 @@
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.UnaryOperator;
 
 /**
  * This file is part of "Property Hunter"
@@ -10,30 +14,275 @@ import java.util.HashMap;
  * the price range handler, statistics handler and comparison handler by
  * providing getter methods for other objects to retrieve these objects.
  *
+ * The data set, the filters of the handlers and the values derived from them are
+ * published as an immutable ModelSnapshot through a single volatile reference. Each
+ * change makes a new snapshot from the last one, so threads such as the map's render
+ * thread read a consistent view without locking (see getSnapshot).
+ *
  * @author Ubayd Khan (k20044237), Mohammed Chowdhury (k21074018), Omar Ahmad (k210524117), Muhammad Beg (k21057641)
  * @version 30.03.2022
  */
 public class Model
 {
-    private ArrayList<AirbnbListing> listings;
+    private volatile ListingStore listings;
+    private volatile ListingFileWatcher watcher;
+    private volatile LoaderStats loaderStats;
+    private DatasetRegistry datasets;
+
+    // the model's listeners hear about rows added to whichever store is current
+    private final List<ListingListener> listeners = new CopyOnWriteArrayList<>();
+    private final ListingListener forwarder = this::fireListingsAdded;
+    private final BoroughIndex boroughIndex;
+    private final PriceIndex priceIndex;
+    private final BitmapIndex bitmapIndex;
+    private final HostIndex hostIndex;
+    private final SpatialIndex spatialIndex;
+    private final FilterEngine filterEngine;
+    // the current state, replaced as a whole on every change
+    private volatile ModelSnapshot snapshot;
+    // views hear about changes to the state here
+    private final ModelEventBus eventBus = new ModelEventBus();
     
     private PriceRangeHandler priceRangeHandler;
     private StatisticsHandler statisticsHandler;
     private ComparisonHandler comparisonHandler;
 
+    /**
+     * Creates a model holding every listing, loading them before returning
+     */
     public Model() {
-        AirbnbDataLoader loader = new AirbnbDataLoader();
-        listings = loader.load();
+        this(new ListingStore());
+        loaderStats = new AirbnbDataLoader().load(listings);
+    }
+
+    /**
+     * Creates a model over a store, which may still be loading
+     * @param listings The store holding the property listings
+     */
+    Model(ListingStore listings) {
+        this.listings = listings;
+        boroughIndex = new BoroughIndex(listings);
+        priceIndex = new PriceIndex(listings);
+        bitmapIndex = new BitmapIndex(listings);
+        hostIndex = new HostIndex(listings);
+        spatialIndex = new SpatialIndex(listings);
+        // the indices are told first, so listeners already find the new rows in them
+        addListingListener(boroughIndex);
+        addListingListener(priceIndex);
+        addListingListener(bitmapIndex);
+        addListingListener(hostIndex);
+        addListingListener(spatialIndex);
+        listings.addListener(forwarder);
+        filterEngine = new FilterEngine(this);
 
         priceRangeHandler = new PriceRangeHandler(this);
         statisticsHandler = new StatisticsHandler(this);
         comparisonHandler = new ComparisonHandler(this);
+        int size = listings.size();
+        snapshot = new ModelSnapshot(0, listings, size, ListingFilter.ALL, StatisticsHandler.DEFAULT_FILTER,
+                priceRangeHandler.getBoroughPriceRangeIndices(listings, size, ListingFilter.ALL));
+    }
+
+    /**
+     * Creates a model holding one data set of a registry, loading it first if it is not
+     * resident. The model can then switch to the registry's other data sets.
+     * @param datasets The registry of data sets
+     * @param name The name of the data set to start with
+     */
+    public Model(DatasetRegistry datasets, String name) {
+        this(datasets.get(name));
+        this.datasets = datasets;
+        loaderStats = datasets.getLoaderStats(name);
+    }
+
+    /**
+     * Creates a model straight away and loads the listings into it on a background thread.
+     * Until loading is complete the model holds the listings loaded so far, and the
+     * handlers give results over those.
+     * @return The model, which is still loading
+     */
+    public static Model loadInBackground() {
+        return loadInBackground(false);
+    }
+
+    /**
+     * Creates a model straight away and loads the listings into it on a background thread,
+     * as loadInBackground() does. Once loaded, the model can then keep following the CSV
+     * file, appending any records which are added to the end of it (see ListingFileWatcher).
+     * @param watchForAppends If records appended to the CSV file should be added to the model
+     * @return The model, which is still loading
+     */
+    public static Model loadInBackground(boolean watchForAppends) {
+        Model model = new Model(new ListingStore());
+        Thread loader = new Thread(() -> model.load(watchForAppends), "listing-loader");
+        loader.setDaemon(true);
+        loader.start();
+        return model;
+    }
+
+    /**
+     * Loads every listing, then starts watching for appended records if asked to
+     */
+    private void load(boolean watchForAppends) {
+        AirbnbDataLoader loader = new AirbnbDataLoader();
+        loaderStats = loader.load(listings);
+        if (!watchForAppends || !loaderStats.isSuccessful() || loader.isCompressed()) {
+            return;
+        }
+        try {
+            // the load ended with the last whole record, so a record being written then is read by the watcher
+            watcher = new ListingFileWatcher(loader, listings, loaderStats.getBytes());
+            watcher.start();
+        } catch (IOException e) {
+            System.out.println("Not watching for appended listings: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Stops adding records appended to the CSV file, if the model was following it
+     */
+    public void stopWatching() throws IOException {
+        if (watcher != null) {
+            watcher.close();
+        }
+    }
+
+    /**
+     * Switches the model to another data set of its registry, loading it first unless it is
+     * resident. Listeners are told about every row of the new data set, with its store, so
+     * anything derived from the old store's rows can tell that it must start again.
+     * Records appended to the previous data set's CSV file are no longer followed.
+     * @param name The name of the data set
+     */
+    public void useDataset(String name) throws IOException {
+        if (datasets == null) {
+            throw new IllegalStateException("The model was not created from a DatasetRegistry");
+        }
+        ListingStore next = datasets.get(name);
+        if (next == listings) {
+            return;
+        }
+        stopWatching();
+        listings.removeListener(forwarder);
+        listings = next;
+        loaderStats = datasets.getLoaderStats(name);
+        next.addListener(forwarder);
+        fireListingsAdded(next, 0, next.size());
+    }
+
+    /**
+     * Registers a listener to be told whenever listings are added to the model, whether
+     * by the initial load, because they were appended to the CSV file later, or because
+     * the model switched data sets. The listener is called on the thread which added the
+     * listings.
+     * @param listener The listener to be added
+     */
+    public void addListingListener(ListingListener listener) {
+        listeners.add(listener);
+    }
+
+    private void fireListingsAdded(ListingStore store, int fromRow, int toRow) {
+        for (ListingListener listener : listeners) {
+            listener.listingsAdded(store, fromRow, toRow);
+        }
+        publishRows(store, toRow);
+    }
+
+    /**
+     * @return The current state of the model, which does not change once read
+     */
+    public ModelSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Publishes a snapshot holding rows added to the store, or the rows of a new store
+     * @param store The store the rows were added to
+     * @param size The number of rows of the store now loaded
+     */
+    private synchronized void publishRows(ListingStore store, int size) {
+        ModelSnapshot current = snapshot;
+        if (current == null || store != listings) {
+            // still being constructed, or the rows belong to a store the model has left
+            return;
+        }
+        if (store == current.getListingStore()) {
+            size = Math.max(size, current.getSize());
+        }
+        snapshot = current.withRows(current.getVersion() + 1, store, size,
+                priceRangeHandler.getBoroughPriceRangeIndices(store, size, current.getPriceFilter()));
+        eventBus.publish(ModelChange.LISTINGS);
+    }
+
+    /**
+     * @return The bus the handlers publish their changes on, for views to subscribe to
+     */
+    public ModelEventBus getEventBus() {
+        return eventBus;
+    }
+
+    /**
+     * Publishes a snapshot with a changed price filter, for the PriceRangeHandler
+     * @param change Makes the new filter from the current one
+     */
+    public synchronized void updatePriceFilter(UnaryOperator<ListingFilter> change) {
+        ModelSnapshot current = snapshot;
+        ListingFilter filter = change.apply(current.getPriceFilter());
+        HashMap<String, Double> indices = priceRangeHandler.getBoroughPriceRangeIndices(current.getListingStore(),
+                current.getSize(), filter);
+        snapshot = current.withPriceFilter(current.getVersion() + 1, filter, indices);
+    }
+
+    /**
+     * Publishes a snapshot with a changed statistics filter, for the StatisticsHandler
+     * @param change Makes the new filter from the current one
+     */
+    public synchronized void updateStatisticsFilter(UnaryOperator<ListingFilter> change) {
+        ModelSnapshot current = snapshot;
+        snapshot = current.withStatisticsFilter(current.getVersion() + 1,
+                change.apply(current.getStatisticsFilter()));
+    }
+
+    /**
+     * @return If every listing has been loaded
+     */
+    public boolean isLoaded() {
+        return listings.isComplete();
+    }
+
+    /**
+     * @return Where the time and memory went while loading the listings, or null if the
+     * listings are still loading
+     */
+    public LoaderStats getLoaderStats() {
+        return loaderStats;
+    }
+
+    /**
+     * @return The fraction of the listings loaded so far, from 0 to 1
+     */
+    public double getLoadProgress() {
+        if (listings.isComplete()) {
+            return 1.0;
+        }
+        int expectedSize = listings.getExpectedSize();
+        if (expectedSize <= 0) {
+            return 0.0;
+        }
+        return Math.min(1.0, (double) listings.size() / expectedSize);
     }
     
     /**
-     * @return An array list of property listings
+     * @return A read-only list of the property listings loaded so far
+     */
+    public List<AirbnbListing> getListings() {
+        return listings.asList();
+    }
+
+    /**
+     * @return The columns holding every property listing, for scans by row index
      */
-    public ArrayList<AirbnbListing> getListings() {
+    public ListingStore getListingStore() {
         return listings;
     }
     
@@ -56,12 +305,90 @@ public class Model
     }
 
     /**
-     * Takes in an array list of property listings and returns a hashmap where each key is a name of a borough
-     * and its value associated with it is an array list of property listings that belong to the borough
+     * @return The index of the rows of each borough
+     */
+    public BoroughIndex getBoroughIndex() {
+        return boroughIndex;
+    }
+
+    /**
+     * @return The index of the rows sorted by price
+     */
+    public PriceIndex getPriceIndex() {
+        return priceIndex;
+    }
+
+    /**
+     * @return The index of the bitmaps of the rows sharing each room type, borough and filtered value
+     */
+    public BitmapIndex getBitmapIndex() {
+        return bitmapIndex;
+    }
+
+    /**
+     * @return The index of the dense id, name and rows of each host
+     */
+    public HostIndex getHostIndex() {
+        return hostIndex;
+    }
+
+    /**
+     * @return The index of the rows by location
+     */
+    public SpatialIndex getSpatialIndex() {
+        return spatialIndex;
+    }
+
+    /**
+     * @return The engine every handler evaluates its ListingFilter with
+     */
+    public FilterEngine getFilterEngine() {
+        return filterEngine;
+    }
+
+    /**
+     * Gets the ordinal of a borough, which listings in the borough share, so that loops
+     * can compare boroughs as integers
+     * @param borough The name of the borough
+     * @return The ordinal of the borough, or -1 if no listing is in the borough
+     */
+    public int getBoroughOrdinal(String borough) {
+        return listings.getNeighbourhoods().getCode(borough);
+    }
+
+    /**
+     * @param ordinal The ordinal of a borough
+     * @return The name of the borough
+     */
+    public String getBoroughName(int ordinal) {
+        return listings.getNeighbourhoods().getValue(ordinal);
+    }
+
+    /**
+     * @return The number of boroughs with at least one listing, which is one more than the largest ordinal
+     */
+    public int getNumberOfBoroughs() {
+        return listings.getNeighbourhoods().size();
+    }
+
+    /**
+     * Gets the ordinal of a room type, which listings of the room type share, so that loops
+     * can compare room types as integers
+     * @param roomType The room type, e.g. "Private room"
+     * @return The ordinal of the room type, or -1 if no listing has the room type
+     */
+    public int getRoomTypeOrdinal(String roomType) {
+        return listings.getRoomTypes().getCode(roomType);
+    }
+
+    /**
+     * Takes in a list of property listings and returns a hashmap where each key is a name of a borough
+     * and its value associated with it is an array list of property listings that belong to the borough.
+     * To look up the listings of one borough, getBoroughIndex() is faster.
      * @param listings The listings to be sorted into a hash map
      * @return A hash map of listings grouped by borough
      */
-    public HashMap<String, ArrayList<AirbnbListing>> getListingsByBoroughs(ArrayList<AirbnbListing> listings) {
+    public HashMap<String, ArrayList<AirbnbListing>> getListingsByBoroughs(List<AirbnbListing> listings) {
         HashMap<String, ArrayList<AirbnbListing>> listingsByBoroughs = new HashMap<String, ArrayList<AirbnbListing>>();
         for (AirbnbListing listing : listings) {
             String borough = listing.getNeighbourhood();
@@ -0,0 +1,22 @@
+/**
+ * This file is part of "Property Hunter"
+ * - a London property viewing application.
+ *
+ * The ModelChange enumeration names the kinds of change to the model which are
+ * published on the ModelEventBus, so that each view can subscribe to only the
+ * changes it shows.
+ *
+ * @author Ubayd Khan (k20044237), Mohammed Chowdhury (k21074018), Omar Ahmad (k210524117), Muhammad Beg (k21057641)
+ * @version 30.03.2022
+ */
+public enum ModelChange
+{
+    // the from or to price of the PriceRangeHandler
+    PRICE_RANGE,
+    // a threshold of the StatisticsHandler, such as the minimum nights or reviews
+    THRESHOLDS,
+    // the favourite boroughs of the ComparisonHandler
+    FAVOURITES,
+    // rows added to the data set, or a new data set
+    LISTINGS
+}
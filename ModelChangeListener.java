@@ -0,0 +1,21 @@
+import java.util.Set;
+
+/**
+ * This file is part of "Property Hunter"
+ * - a London property viewing application.
+ *
+ * A ModelChangeListener is told about changes to the model it has subscribed to on
+ * the ModelEventBus. Changes are coalesced, so a burst of changes made before the
+ * listener is called reaches it as a single call.
+ *
+ * @author Ubayd Khan (k20044237), Mohammed Chowdhury (k21074018), Omar Ahmad (k210524117), Muhammad Beg (k21057641)
+ * @version 30.03.2022
+ */
+public interface ModelChangeListener
+{
+    /**
+     * Called once for every burst of changes the listener subscribed to
+     * @param changes The kinds of change made since the listener was last called
+     */
+    void modelChanged(Set<ModelChange> changes);
+}
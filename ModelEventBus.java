@@ -0,0 +1,101 @@
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+
+/**
+ * This file is part of "Property Hunter"
+ * - a London property viewing application.
+ *
+ * A ModelEventBus carries ModelChanges from the handlers which make them to the views
+ * which show them, so views are told when something they show has changed instead of
+ * polling the model or being refreshed by hand.
+ *
+ * Each listener subscribes to some kinds of change, along with the executor it is
+ * called on, such as Platform::runLater for a JavaFX view. Changes are coalesced per
+ * listener: the first change schedules a call, and any further changes made before
+ * that call runs are added to it, so a burst of changes costs each listener one
+ * recomputation.
+ *
+ * @author Ubayd Khan (k20044237), Mohammed Chowdhury (k21074018), Omar Ahmad (k210524117), Muhammad Beg (k21057641)
+ * @version 30.03.2022
+ */
+public class ModelEventBus
+{
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    /**
+     * Subscribes a listener to some kinds of change
+     * @param listener The listener to be told about the changes
+     * @param executor The executor the listener is called on
+     * @param changes The kinds of change the listener is told about
+     */
+    public void subscribe(ModelChangeListener listener, Executor executor, ModelChange... changes) {
+        EnumSet<ModelChange> kinds = EnumSet.noneOf(ModelChange.class);
+        Collections.addAll(kinds, changes);
+        subscriptions.add(new Subscription(listener, executor, kinds));
+    }
+
+    /**
+     * Tells every listener subscribed to a kind of change that it has happened
+     * @param change The kind of change made
+     */
+    public void publish(ModelChange change) {
+        for (Subscription subscription : subscriptions) {
+            subscription.post(change);
+        }
+    }
+
+    /**
+     * A listener with the kinds of change it subscribed to, and the changes it is yet to be told about
+     */
+    private static class Subscription
+    {
+        private final ModelChangeListener listener;
+        private final Executor executor;
+        private final Set<ModelChange> kinds;
+        // the changes since the listener was last called, or null when no call is scheduled
+        private EnumSet<ModelChange> pending;
+
+        private Subscription(ModelChangeListener listener, Executor executor, Set<ModelChange> kinds) {
+            this.listener = listener;
+            this.executor = executor;
+            this.kinds = kinds;
+        }
+
+        /**
+         * Adds a change to the pending changes, scheduling a call if none is scheduled yet
+         * @param change The kind of change made
+         */
+        private void post(ModelChange change) {
+            if (!kinds.contains(change)) {
+                return;
+            }
+            boolean schedule;
+            synchronized (this) {
+                schedule = pending == null;
+                if (schedule) {
+                    pending = EnumSet.noneOf(ModelChange.class);
+                }
+                pending.add(change);
+            }
+            if (schedule) {
+                executor.execute(this::deliver);
+            }
+        }
+
+        /**
+         * Calls the listener with every change pending, and starts collecting the next burst
+         */
+        private void deliver() {
+            Set<ModelChange> changes;
+            synchronized (this) {
+                changes = Collections.unmodifiableSet(pending);
+                pending = null;
+            }
+            listener.modelChanged(changes);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+import java.util.Collections;
+import java.util.HashMap;
+
+/**
+ * This file is part of "Property Hunter"
+ * - a London property viewing application.
+ *
+ * A ModelSnapshot is one version of the state of a Model: the data set and how many of
+ * its rows are loaded, the filters of the handlers, and values derived from them such
+ * as the price range index of each borough. Snapshots are immutable, and the model
+ * publishes each new one through a single volatile reference, so any thread can read
+ * a consistent view of the state without a lock, and keep working on the version it
+ * started with while the model moves on.
+ *
+ * Rows of a store are never changed once added, so the rows of the store below the
+ * snapshot's size are fixed for the life of the snapshot.
+ *
+ * @author Ubayd Khan (k20044237), Mohammed Chowdhury (k21074018), Omar Ahmad (k210524117), Muhammad Beg (k21057641)
+ * @version 30.03.2022
+ */
+public final class ModelSnapshot
+{
+    private final long version;
+    private final ListingStore listings;
+    private final int size;
+    private final ListingFilter priceFilter;
+    private final ListingFilter statisticsFilter;
+    private final java.util.Map<String, Double> boroughPriceRangeIndices;
+
+    /**
+     * Creates a snapshot of the model's state
+     * @param version The version of the snapshot, one more than the snapshot it replaces
+     * @param listings The store of the data set
+     * @param size The number of rows of the store in the snapshot
+     * @param priceFilter The filter of the PriceRangeHandler
+     * @param statisticsFilter The filter of the StatisticsHandler, without the price range
+     * @param boroughPriceRangeIndices The price range index of each borough under the price filter
+     */
+    public ModelSnapshot(long version, ListingStore listings, int size, ListingFilter priceFilter,
+                         ListingFilter statisticsFilter, HashMap<String, Double> boroughPriceRangeIndices) {
+        this(version, listings, size, priceFilter, statisticsFilter,
+                Collections.unmodifiableMap(new HashMap<>(boroughPriceRangeIndices)));
+    }
+
+    /**
+     * Creates a snapshot sharing the read-only price range indices of another snapshot
+     */
+    private ModelSnapshot(long version, ListingStore listings, int size, ListingFilter priceFilter,
+                          ListingFilter statisticsFilter, java.util.Map<String, Double> boroughPriceRangeIndices) {
+        this.version = version;
+        this.listings = listings;
+        this.size = size;
+        this.priceFilter = priceFilter;
+        this.statisticsFilter = statisticsFilter;
+        this.boroughPriceRangeIndices = boroughPriceRangeIndices;
+    }
+
+    /**
+     * @return The version of the snapshot, which goes up by one with each change to the model
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return The store of the data set
+     */
+    public ListingStore getListingStore() {
+        return listings;
+    }
+
+    /**
+     * @return The number of rows of the store in the snapshot
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * @return The filter of the PriceRangeHandler, which only holds a price range
+     */
+    public ListingFilter getPriceFilter() {
+        return priceFilter;
+    }
+
+    /**
+     * @return The filter of the StatisticsHandler, without the price range
+     */
+    public ListingFilter getStatisticsFilter() {
+        return statisticsFilter;
+    }
+
+    /**
+     * @param borough The name of the borough
+     * @return The price range index of the borough, from 0 to 1, or null if none of its listings are in the price range
+     */
+    public Double getBoroughPriceRangeIndex(String borough) {
+        return boroughPriceRangeIndices.get(borough);
+    }
+
+    /**
+     * @return A new hash map of the boroughs with their price range indices
+     */
+    public HashMap<String, Double> getBoroughPriceRangeIndices() {
+        return new HashMap<>(boroughPriceRangeIndices);
+    }
+
+    /**
+     * @param version The version of the new snapshot
+     * @param listings The store of the data set
+     * @param size The number of rows of the store in the new snapshot
+     * @param boroughPriceRangeIndices The price range index of each borough over those rows
+     * @return A snapshot like this one over other rows
+     */
+    public ModelSnapshot withRows(long version, ListingStore listings, int size,
+                                  HashMap<String, Double> boroughPriceRangeIndices) {
+        return new ModelSnapshot(version, listings, size, priceFilter, statisticsFilter, boroughPriceRangeIndices);
+    }
+
+    /**
+     * @param version The version of the new snapshot
+     * @param priceFilter The new filter of the PriceRangeHandler
+     * @param boroughPriceRangeIndices The price range index of each borough under the new filter
+     * @return A snapshot like this one with another price filter
+     */
+    public ModelSnapshot withPriceFilter(long version, ListingFilter priceFilter,
+                                         HashMap<String, Double> boroughPriceRangeIndices) {
+        return new ModelSnapshot(version, listings, size, priceFilter, statisticsFilter, boroughPriceRangeIndices);
+    }
+
+    /**
+     * @param version The version of the new snapshot
+     * @param statisticsFilter The new filter of the StatisticsHandler
+     * @return A snapshot like this one with another statistics filter
+     */
+    public ModelSnapshot withStatisticsFilter(long version, ListingFilter statisticsFilter) {
+        return new ModelSnapshot(version, listings, size, priceFilter, statisticsFilter, boroughPriceRangeIndices);
+    }
+}
@@ -0,0 +1,262 @@
+import java.util.Arrays;
+
+/**
+ * This file is part of "Property Hunter"
+ * - a London property viewing application.
+ *
+ * A PriceIndex holds the rows of the store sorted by price, so that the rows within a
+ * price range are found by two binary searches and form one contiguous slice of the
+ * sorted rows, rather than being found by scanning every row. Rows of equal price are
+ * in ascending order.
+ *
+ * The index is told about appended rows as a ListingListener, but only sorts them in
+ * when it is next asked for, so a load does not re-sort the index for every chunk.
+ * Rows of a different store replace the index.
+ *
+ * The index also holds the sorted prices of each borough's rows. The position of a
+ * price within them is the number of the borough's rows costing less, so the number
+ * of rows of every borough within a price range takes two binary searches per borough.
+ *
+ * @author Ubayd Khan (k20044237), Mohammed Chowdhury (k21074018), Omar Ahmad (k210524117), Muhammad Beg (k21057641)
+ * @version 30.03.2022
+ */
+public class PriceIndex implements ListingListener
+{
+    private ListingStore listings;
+    // the rows of the store below this have been told about
+    private int addedRows;
+    // the rows below this are in the sorted arrays
+    private int sortedRowCount;
+    private int[] sortedRows = new int[0];
+    // the price of each sorted row, so that searches read one array
+    private int[] sortedPrices = new int[0];
+    // the sorted prices of the rows of each borough, by ordinal, or null until next asked for
+    private int[][] boroughPrices;
+
+    /**
+     * Creates an index of the rows already in a store
+     * @param listings The store to be indexed
+     */
+    public PriceIndex(ListingStore listings) {
+        this.listings = listings;
+        addedRows = listings.size();
+    }
+
+    /**
+     * Notes rows appended to the store, or starts again if they belong to another store
+     */
+    @Override
+    public synchronized void listingsAdded(ListingStore listings, int fromRow, int toRow) {
+        if (listings != this.listings) {
+            this.listings = listings;
+            sortedRowCount = 0;
+            sortedRows = new int[0];
+            sortedPrices = new int[0];
+            boroughPrices = null;
+            addedRows = 0;
+        }
+        addedRows = Math.max(addedRows, toRow);
+    }
+
+    /**
+     * Sorts the rows appended since the index was last asked for, and merges them into the sorted rows
+     */
+    private void sortAddedRows() {
+        int count = addedRows - sortedRowCount;
+        if (count == 0) {
+            return;
+        }
+        // price in the high half and row in the low half, so sorting the keys sorts by price then row
+        long[] keys = new long[count];
+        for (int i = 0; i < count; i++) {
+            int row = sortedRowCount + i;
+            keys[i] = ((long) listings.getPrice(row) << 32) | row;
+        }
+        Arrays.sort(keys);
+
+        int total = sortedRowCount + count;
+        int[] rows = new int[total];
+        int[] prices = new int[total];
+        int old = 0;
+        int added = 0;
+        for (int i = 0; i < total; i++) {
+            // the added rows come after every old row, so an old row of equal price goes first
+            if (added == count || (old < sortedRowCount && sortedPrices[old] <= (int) (keys[added] >> 32))) {
+                rows[i] = sortedRows[old];
+                prices[i] = sortedPrices[old];
+                old++;
+            } else {
+                rows[i] = (int) keys[added];
+                prices[i] = (int) (keys[added] >> 32);
+                added++;
+            }
+        }
+        sortedRows = rows;
+        sortedPrices = prices;
+        sortedRowCount = total;
+        boroughPrices = null;
+    }
+
+    /**
+     * Splits the sorted prices by borough, which keeps each borough's prices sorted
+     * @return The sorted prices of the rows of each borough, by ordinal
+     */
+    private int[][] getBoroughPrices() {
+        sortAddedRows();
+        if (boroughPrices != null) {
+            return boroughPrices;
+        }
+        int[] counts = new int[0];
+        for (int i = 0; i < sortedRowCount; i++) {
+            int borough = listings.getNeighbourhoodCode(sortedRows[i]);
+            if (borough >= counts.length) {
+                counts = Arrays.copyOf(counts, borough + 1);
+            }
+            counts[borough]++;
+        }
+        int[][] prices = new int[counts.length][];
+        for (int borough = 0; borough < counts.length; borough++) {
+            prices[borough] = new int[counts[borough]];
+        }
+        int[] filled = new int[counts.length];
+        for (int i = 0; i < sortedRowCount; i++) {
+            int borough = listings.getNeighbourhoodCode(sortedRows[i]);
+            prices[borough][filled[borough]++] = sortedPrices[i];
+        }
+        boroughPrices = prices;
+        return prices;
+    }
+
+    /**
+     * @return The store which is indexed
+     */
+    public synchronized ListingStore getListingStore() {
+        return listings;
+    }
+
+    /**
+     * Gets the rows within a price range, in order of price
+     * @param fromPrice The lowest price, inclusive
+     * @param toPrice The highest price, inclusive
+     * @return A new array of the indices of the rows in the price range
+     */
+    public synchronized int[] getRows(int fromPrice, int toPrice) {
+        sortAddedRows();
+        return Arrays.copyOfRange(sortedRows, findFirst(fromPrice), findEnd(fromPrice, toPrice));
+    }
+
+    /**
+     * @param fromPrice The lowest price, inclusive
+     * @param toPrice The highest price, inclusive
+     * @return The number of rows within the price range
+     */
+    public synchronized int getCount(int fromPrice, int toPrice) {
+        sortAddedRows();
+        return findEnd(fromPrice, toPrice) - findFirst(fromPrice);
+    }
+
+    /**
+     * Counts the rows of each borough within a price range
+     * @param fromPrice The lowest price, inclusive
+     * @param toPrice The highest price, inclusive
+     * @return The number of rows in the price range, indexed by borough ordinal
+     */
+    public synchronized int[] getBoroughCounts(int fromPrice, int toPrice) {
+        int[][] prices = getBoroughPrices();
+        int[] counts = new int[prices.length];
+        for (int borough = 0; borough < prices.length; borough++) {
+            int[] boroughPrices = prices[borough];
+            int first = search(boroughPrices, boroughPrices.length, fromPrice);
+            int end = toPrice == Integer.MAX_VALUE ? boroughPrices.length
+                                                  : search(boroughPrices, boroughPrices.length, toPrice + 1);
+            counts[borough] = Math.max(0, end - first);
+        }
+        return counts;
+    }
+
+    /**
+     * Gets the rows within a price range among the first rows of a store, such as the rows
+     * of a model snapshot, in order of price
+     * @param listings The store the rows belong to
+     * @param size The number of rows of the store to be searched
+     * @param fromPrice The lowest price, inclusive
+     * @param toPrice The highest price, inclusive
+     * @return A new array of the indices of the rows in the price range, or null if the index does not hold those rows
+     */
+    public synchronized int[] getRows(ListingStore listings, int size, int fromPrice, int toPrice) {
+        if (listings != this.listings || size > addedRows) {
+            return null;
+        }
+        int[] rows = getRows(fromPrice, toPrice);
+        if (size == addedRows) {
+            return rows;
+        }
+        int count = 0;
+        for (int row : rows) {
+            if (row < size) {
+                rows[count++] = row;
+            }
+        }
+        return Arrays.copyOf(rows, count);
+    }
+
+    /**
+     * Counts the rows of each borough within a price range among the first rows of a store.
+     * If the index holds rows past them, the rows in the range are counted one by one.
+     * @param listings The store the rows belong to
+     * @param size The number of rows of the store to be counted
+     * @param fromPrice The lowest price, inclusive
+     * @param toPrice The highest price, inclusive
+     * @return The number of rows in the price range, indexed by borough ordinal, or null if the index
+     * does not hold those rows
+     */
+    public synchronized int[] getBoroughCounts(ListingStore listings, int size, int fromPrice, int toPrice) {
+        if (listings != this.listings || size > addedRows) {
+            return null;
+        }
+        if (size == addedRows) {
+            return getBoroughCounts(fromPrice, toPrice);
+        }
+        int[] counts = new int[listings.getNeighbourhoods().size()];
+        for (int row : getRows(listings, size, fromPrice, toPrice)) {
+            counts[listings.getNeighbourhoodCode(row)]++;
+        }
+        return counts;
+    }
+
+    /**
+     * @return The position of the first sorted row costing at least the price
+     */
+    private int findFirst(int price) {
+        return search(sortedPrices, sortedRowCount, price);
+    }
+
+    /**
+     * @return The position just past the last sorted row costing at most toPrice, and not before fromPrice's rows
+     */
+    private int findEnd(int fromPrice, int toPrice) {
+        int end = toPrice == Integer.MAX_VALUE ? sortedRowCount : search(sortedPrices, sortedRowCount, toPrice + 1);
+        return Math.max(end, findFirst(fromPrice));
+    }
+
+    /**
+     * Finds the first position in the sorted prices holding at least a price, by binary search
+     * @param prices The sorted prices
+     * @param length The number of prices to search
+     * @param price The price
+     * @return The position of the first price which is at least the price, or length if there is none
+     */
+    static int search(int[] prices, int length, int price) {
+        int low = 0;
+        int high = length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (prices[mid] < price) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
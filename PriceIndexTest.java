@@ -0,0 +1,141 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * This file is part of "Property Hunter"
+ * - a London property viewing application.
+ *
+ * This class tests the price ranges a PriceIndex answers against a linear scan,
+ * querying between batches of appended rows so that each batch is merged into the
+ * sorted rows before the next arrives, and the queries bounded to the first rows of
+ * the store as a model snapshot makes them.
+ * 
+ * @author Ubayd Khan (k20044237), Mohammed Chowdhury (k21074018), Omar Ahmad (k210524117), Muhammad Beg (k21057641)
+ * @version 30.03.2022
+ */
+public class PriceIndexTest
+{
+    private static final String[] BOROUGHS = {"Camden", "Westminster", "Hackney", "Barnet", "Bexley"};
+    private static final int[][] RANGES = {
+        {0, 100}, {50, 150}, {100, 100}, {0, Integer.MAX_VALUE}, {Integer.MIN_VALUE, 20},
+        {250, 299}, {300, 1000}, {150, 50}, {1, 1}
+    };
+
+    private final Random random = new Random(TestRows.SEED);
+    private final TestRows rows = new TestRows();
+
+    @Test
+    public void testAgainstScan()
+    {
+        ListingStore store = new ListingStore();
+        addRows(store, 2000);
+        PriceIndex index = new PriceIndex(store);
+        store.addListener(index);
+        assertSameAsScan(store, index);
+
+        // queries between appends make the index merge each batch into the sorted rows
+        for (int batch = 0; batch < 30; batch++) {
+            addRows(store, random.nextInt(500));
+            if (batch % 3 == 0) {
+                assertSameAsScan(store, index);
+            }
+        }
+        ListingStore other = new ListingStore();
+        addRows(other, 5000);
+        store.addAll(other);
+        assertSameAsScan(store, index);
+    }
+
+    @Test
+    public void testBoundedBySize()
+    {
+        ListingStore store = new ListingStore();
+        addRows(store, 3000);
+        PriceIndex index = new PriceIndex(store);
+        store.addListener(index);
+
+        // the first rows of the store, as a snapshot taken before the later rows sees them
+        for (int size : new int[] {0, 1, 1500, 2999, 3000}) {
+            for (int[] range : RANGES) {
+                int from = range[0];
+                int to = range[1];
+                int[] expected = scan(store, size, from, to);
+                assertArrayEquals(expected, index.getRows(store, size, from, to),
+                        size + " rows, " + from + " to " + to);
+
+                int[] counts = index.getBoroughCounts(store, size, from, to);
+                int[] boroughCounts = new int[store.getNeighbourhoods().size()];
+                for (int row : expected) {
+                    boroughCounts[store.getNeighbourhoodCode(row)]++;
+                }
+                for (int borough = 0; borough < boroughCounts.length; borough++) {
+                    assertEquals(boroughCounts[borough], borough < counts.length ? counts[borough] : 0,
+                            "borough " + borough + ", " + size + " rows, " + from + " to " + to);
+                }
+            }
+        }
+
+        // rows the index was not told about, or rows of another store, cannot be answered
+        assertNull(index.getRows(store, 3001, 0, 100));
+        ListingStore other = new ListingStore();
+        addRows(other, 10);
+        assertNull(index.getRows(other, 10, 0, 100));
+        assertNull(index.getBoroughCounts(other, 10, 0, 100));
+    }
+
+    /**
+     * Checks every query of the index against a scan of the store
+     */
+    private void assertSameAsScan(ListingStore store, PriceIndex index)
+    {
+        for (int[] range : RANGES) {
+            int from = range[0];
+            int to = range[1];
+            int[] expected = scan(store, store.size(), from, to);
+            assertArrayEquals(expected, index.getRows(from, to), from + " to " + to);
+            assertEquals(expected.length, index.getCount(from, to));
+
+            int[] boroughCounts = new int[store.getNeighbourhoods().size()];
+            for (int row : expected) {
+                boroughCounts[store.getNeighbourhoodCode(row)]++;
+            }
+            int[] counts = index.getBoroughCounts(from, to);
+            for (int borough = 0; borough < boroughCounts.length; borough++) {
+                assertEquals(boroughCounts[borough], borough < counts.length ? counts[borough] : 0,
+                        "borough " + borough + " from " + from + " to " + to);
+            }
+        }
+    }
+
+    /**
+     * @return The rows below the size within the price range, in order of price and then of row
+     */
+    private int[] scan(ListingStore store, int size, int from, int to)
+    {
+        long[] keys = new long[size];
+        int count = 0;
+        for (int row = 0; row < size; row++) {
+            int price = store.getPrice(row);
+            if (price >= from && price <= to) {
+                keys[count++] = ((long) price << 32) | row;
+            }
+        }
+        keys = Arrays.copyOf(keys, count);
+        Arrays.sort(keys);
+        int[] rows = new int[count];
+        for (int i = 0; i < count; i++) {
+            rows[i] = (int) keys[i];
+        }
+        return rows;
+    }
+
+    private void addRows(ListingStore store, int count)
+    {
+        for (int i = 0; i < count; i++) {
+            // many rows share a price, so the order of equal prices is checked too
+            rows.setNeighbourhood(BOROUGHS[random.nextInt(BOROUGHS.length)]).setPrice(random.nextInt(300)).addTo(store);
+        }
+    }
+}
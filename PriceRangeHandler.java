@@ -1,6 +1,7 @@
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -19,10 +20,8 @@ import java.util.Map;
 
 public class PriceRangeHandler
 {
+    // the price range is held by the model's snapshot, in a filter with only a price range set
     private Model model;
-
-    private Integer fromPrice;
-    private Integer toPrice;
     
     /**
      * The constructor of the PriceRangeHandler class
@@ -38,7 +37,8 @@ public class PriceRangeHandler
      * @param price The price to set the from price to
      */
     public void setFromPrice(int price) {
-        fromPrice = price;  
+        model.updatePriceFilter(filter -> filter.withFromPrice(price));
+        model.getEventBus().publish(ModelChange.PRICE_RANGE);
     }
     
     /**
@@ -46,21 +46,31 @@ public class PriceRangeHandler
      * @param price The price to set the to price to
      */
     public void setToPrice(int price) {
-        toPrice = price;
+        model.updatePriceFilter(filter -> filter.withToPrice(price));
+        model.getEventBus().publish(ModelChange.PRICE_RANGE);
     }
     
     /**
      * @return The from price
      */
     public Integer getFromPrice() {
-        return fromPrice;
+        ListingFilter filter = getListingFilter();
+        return filter.getFromPrice() == ListingFilter.UNSET ? null : filter.getFromPrice();
     }
     
     /**
      * @return The to price
      */
     public Integer getToPrice() {
-        return toPrice;
+        ListingFilter filter = getListingFilter();
+        return filter.getToPrice() == ListingFilter.UNSET ? null : filter.getToPrice();
+    }
+
+    /**
+     * @return The filter holding the price range, which other filters can take the price range from
+     */
+    public ListingFilter getListingFilter() {
+        return model.getSnapshot().getPriceFilter();
     }
     
     /**
@@ -68,72 +78,178 @@ public class PriceRangeHandler
      * @return If the price range has been set
      */
     public boolean isPriceRangeSet() {
-        return (fromPrice != null && toPrice != null);
+        return getListingFilter().hasPriceRange();
     }
     
     /**
-     * Checks if the listing passed in satisfies the price range that has been set
-     * @param listing The listing whose price is to be checked
-     * @return If the listing is in the price range
+     * Checks if the row passed in satisfies the price range that has been set
+     * @param row The index of the row whose price is to be checked
+     * @return If the row is in the price range, which rows past the model's snapshot are not
      */
-    private boolean isListingInPriceRange(AirbnbListing listing) {
-        int price = listing.getPrice();
-
-        if (fromPrice == null || toPrice == null){
-            return true;//returns all listings when fromPrice and toPrice are null
+    public boolean isRowInPriceRange(int row) {
+        ModelSnapshot snapshot = model.getSnapshot();
+        ListingFilter filter = snapshot.getPriceFilter();
+        if (row >= snapshot.getSize()) {
+            return false;
+        }
+        if (!filter.hasPriceRange()){
+            return true;//returns all listings when fromPrice and toPrice are not set
         }//This is before the user sets it.
 
-        return price >= fromPrice && price <= toPrice;
+        int price = snapshot.getListingStore().getPrice(row);
+        return price >= filter.getFromPrice() && price <= filter.getToPrice();
     }
     
     /**
-     * Groups all the listings that satisfy the price range into an array list and returns it
-     * @return An array list of listings which satisfy the price range
+     * Gets the indices of every row which satisfies the price range, from the rows sorted by price
+     * @return A new array of the indices of the rows in the price range, in ascending order
+     * when no price range is set and in order of price otherwise
      */
-    public ArrayList<AirbnbListing> getListingsInPriceRange() {
-        // return all listings if no price range set
-        if (fromPrice == null || toPrice == null) {
-            return model.getListings();
+    public int[] getRowsInPriceRange() {
+        ModelSnapshot snapshot = model.getSnapshot();
+        ListingStore store = snapshot.getListingStore();
+        ListingFilter filter = snapshot.getPriceFilter();
+        if (!filter.hasPriceRange()) {
+            int[] rows = new int[snapshot.getSize()];
+            for (int row = 0; row < rows.length; row++) {
+                rows[row] = row;
+            }
+            return rows;
         }
-
-        ArrayList<AirbnbListing> listings = new ArrayList<AirbnbListing>();
         
-        for (AirbnbListing listing : model.getListings()) {
-            if (isListingInPriceRange(listing)) {
-                listings.add(listing);
+        int[] rows = model.getPriceIndex().getRows(store, snapshot.getSize(), filter.getFromPrice(), filter.getToPrice());
+        if (rows != null) {
+            return rows;
+        }
+        // the index has moved on to another data set, so the rows are sorted here, by price then row
+        long[] keys = new long[snapshot.getSize()];
+        int count = 0;
+        for (int row = 0; row < keys.length; row++) {
+            int price = store.getPrice(row);
+            if (price >= filter.getFromPrice() && price <= filter.getToPrice()) {
+                keys[count++] = ((long) price << 32) | row;
             }
         }
-        
-        return listings;
+        Arrays.sort(keys, 0, count);
+        rows = new int[count];
+        for (int i = 0; i < count; i++) {
+            rows[i] = (int) keys[i];
+        }
+        return rows;
     }
-
-    public ArrayList<AirbnbListing> getListingsInPriceRangeFromBorough(String borough) {
-        ArrayList<AirbnbListing> listings = new ArrayList<AirbnbListing>();
-        
-        for (AirbnbListing listing : getListingsInPriceRange()) {
-            if (listing.getNeighbourhood().equals(borough)) listings.add(listing);
+    
+    /**
+     * Gets the rows which satisfy the price range as a bitmap, ready to be combined with other filters
+     * @return A bitmap of the rows in the price range, which must not be changed
+     */
+    public RowBitmap getRowBitmapInPriceRange() {
+        return getRowBitmapInPriceRange(model.getSnapshot());
+    }
+    
+    /**
+     * Gets the rows of a snapshot which satisfy its price range as a bitmap
+     * @param snapshot The snapshot of the model to be read
+     * @return A bitmap of the rows in the price range, which must not be changed
+     */
+    public RowBitmap getRowBitmapInPriceRange(ModelSnapshot snapshot) {
+        return model.getFilterEngine().getRows(snapshot, snapshot.getPriceFilter());
+    }
+    
+    /**
+     * Gets the rows which satisfy the price range and are within the borough, as a bitmap
+     * @param borough The borough to be queried
+     * @return A bitmap of the matching rows, which must not be changed
+     */
+    public RowBitmap getRowBitmapInPriceRangeFromBorough(String borough) {
+        return getRowBitmapInPriceRangeFromBorough(model.getSnapshot(), borough);
+    }
+    
+    /**
+     * Gets the rows of a snapshot which satisfy its price range and are within the borough, as a bitmap
+     * @param snapshot The snapshot of the model to be read
+     * @param borough The borough to be queried
+     * @return A bitmap of the matching rows, which must not be changed
+     */
+    public RowBitmap getRowBitmapInPriceRangeFromBorough(ModelSnapshot snapshot, String borough) {
+        int ordinal = snapshot.getListingStore().getNeighbourhoods().getCode(borough);
+        if (ordinal == ListingFilter.ANY) {
+            return new RowBitmap();
         }
         
-        return listings;
+        return model.getFilterEngine().getRows(snapshot, snapshot.getPriceFilter().withBorough(ordinal));
+    }
+    
+    /**
+     * Gets the indices of every row which satisfies the price range and is within the borough
+     * @param borough The borough to be queried
+     * @return The indices of the matching rows, in ascending order
+     */
+    public int[] getRowsInPriceRangeFromBorough(String borough) {
+        return getRowBitmapInPriceRangeFromBorough(borough).toArray();
+    }
+    
+    /**
+     * Gets a read-only view of the listings that satisfy the price range, without copying them
+     * @return A list of listings which satisfy the price range, in file order
+     */
+    public List<AirbnbListing> getListingsInPriceRange() {
+        ModelSnapshot snapshot = model.getSnapshot();
+        ListingStore store = snapshot.getListingStore();
+        // return all listings if no price range set
+        if (!snapshot.getPriceFilter().hasPriceRange()) {
+            return store.asList(snapshot.getSize());
+        }
+
+        return store.asList(getRowBitmapInPriceRange(snapshot));
+    }
+
+    /**
+     * Gets a read-only view of the listings that satisfy the price range and are within the borough,
+     * backed by the bitmap of their rows rather than a copy of them
+     * @param borough The borough to be queried
+     * @return A list of listings within the borough which satisfy the price range
+     */
+    public List<AirbnbListing> getListingsInPriceRangeFromBorough(String borough) {
+        ModelSnapshot snapshot = model.getSnapshot();
+        return snapshot.getListingStore().asList(getRowBitmapInPriceRangeFromBorough(snapshot, borough));
     }
     
     //Borough with most properties has a value of 1 and borough with least properties have a value of 0 (within the price range)
     /**
      * Returns a hash map of boroughs with its associated price range index, a value from 0 - 1, where 0 represents
-     * the cheapest borough and 1 represents the most expensive borough
+     * the cheapest borough and 1 represents the most expensive borough. The indices are worked out whenever the
+     * price range or the listings change, and kept in the model's snapshot.
      * @return A hash map of boroughs with its associated price range index
      */
     public HashMap<String, Double> getBoroughPriceRangeIndices() {
-        ArrayList<AirbnbListing> listingsInPriceRange = getListingsInPriceRange();
-        HashMap<String, ArrayList<AirbnbListing>> listingsByBoroughs = model.getListingsByBoroughs(listingsInPriceRange);
+        return model.getSnapshot().getBoroughPriceRangeIndices();
+    }
+    
+    /**
+     * Works out the price range index of each borough under a filter, as getBoroughPriceRangeIndices() returns,
+     * over the first rows of a store
+     * @param listings The store of the rows
+     * @param size The number of rows of the store to be counted
+     * @param filter The filter holding the price range
+     * @return A hash map of boroughs with its associated price range index
+     */
+    public HashMap<String, Double> getBoroughPriceRangeIndices(ListingStore listings, int size, ListingFilter filter) {
+        HashMap<String, Integer> listingsByBoroughs = new HashMap<String, Integer>();
+        int[] boroughCounts = getNumberOfListingsInPriceRangeByBorough(listings, size, filter);
+        
+        for (int ordinal = 0; ordinal < boroughCounts.length; ordinal++) {
+            if (boroughCounts[ordinal] > 0) {
+                listingsByBoroughs.put(listings.getNeighbourhoods().getValue(ordinal), boroughCounts[ordinal]);
+            }
+        }
         
         HashMap<String, Double> indices = new HashMap<String, Double>();
         
         int largestNumber = getLargestNumberOfListingsInBorough(listingsByBoroughs);
         
-        for (Map.Entry<String, ArrayList<AirbnbListing>> entry : listingsByBoroughs.entrySet()) {
+        for (Map.Entry<String, Integer> entry : listingsByBoroughs.entrySet()) {
             String borough = entry.getKey();
-            double numberOfListings = entry.getValue().size();   
+            double numberOfListings = entry.getValue();   
             double index = numberOfListings / largestNumber;
             indices.put(borough, index);
         }
@@ -141,16 +257,53 @@ public class PriceRangeHandler
         return indices;
     }
 
+    /**
+     * Counts the listings of each borough which satisfy the price range, with a few binary
+     * searches per borough rather than by visiting the listings
+     * @return The number of listings in the price range, indexed by borough ordinal
+     */
+    public int[] getNumberOfListingsInPriceRangeByBorough() {
+        ModelSnapshot snapshot = model.getSnapshot();
+        return getNumberOfListingsInPriceRangeByBorough(snapshot.getListingStore(), snapshot.getSize(),
+                snapshot.getPriceFilter());
+    }
+    
+    /**
+     * Counts the listings of each borough which satisfy the price range of a filter, among the first rows of a store
+     * @param listings The store of the rows
+     * @param size The number of rows of the store to be counted
+     * @param filter The filter holding the price range
+     * @return The number of listings in the price range, indexed by borough ordinal
+     */
+    private int[] getNumberOfListingsInPriceRangeByBorough(ListingStore listings, int size, ListingFilter filter) {
+        int fromPrice = filter.hasPriceRange() ? filter.getFromPrice() : Integer.MIN_VALUE;
+        int toPrice = filter.hasPriceRange() ? filter.getToPrice() : Integer.MAX_VALUE;
+        int[] counts = model.getPriceIndex().getBoroughCounts(listings, size, fromPrice, toPrice);
+        if (counts != null) {
+            return counts;
+        }
+        
+        // the index has moved on to another data set, so the rows are counted one by one
+        counts = new int[listings.getNeighbourhoods().size()];
+        for (int row = 0; row < size; row++) {
+            int price = listings.getPrice(row);
+            if (price >= fromPrice && price <= toPrice) {
+                counts[listings.getNeighbourhoodCode(row)]++;
+            }
+        }
+        return counts;
+    }
+
     /**
      * Gets the borough with the most number of listings 
-     * @param listingsByBoroughs A hash map holding lists of properties grouped by boroughs
+     * @param listingsByBoroughs A hash map holding the number of properties in each borough
      * @return The borough with the most number of listings
      */
-    private int getLargestNumberOfListingsInBorough(HashMap<String, ArrayList<AirbnbListing>> listingsByBoroughs) {
+    private int getLargestNumberOfListingsInBorough(HashMap<String, Integer> listingsByBoroughs) {
         int largestNumber = 0;
         
-        for (Map.Entry<String, ArrayList<AirbnbListing>> entry : listingsByBoroughs.entrySet()) {
-            int numberOfListings = entry.getValue().size();
+        for (Map.Entry<String, Integer> entry : listingsByBoroughs.entrySet()) {
+            int numberOfListings = entry.getValue();
             if (numberOfListings > largestNumber) {
                 largestNumber = numberOfListings;
             }
@@ -16,7 +16,7 @@ import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.List;
 
 /**
  * This file is part of "Property Hunter"
@@ -32,6 +32,9 @@ import java.util.HashMap;
 
 public class PropertyListingController extends AbstractPanelController {
 
+    // listings within this many metres of a property are counted as nearby
+    private static final double NEARBY_RADIUS = 500;
+
     // define fields
     private ComparisonHandler comparisonHandler; // local comparisonHandler for dealing with favourites
     
@@ -112,16 +115,13 @@ public class PropertyListingController extends AbstractPanelController {
      */
     @Override
     void update() {
-        // get listings in price range
-        HashMap<String, ArrayList<AirbnbListing>> listings = getModel().getListingsByBoroughs(
-                getModel().getPriceRangeHandler().getListingsInPriceRange()
-        );
-        // get listings within specified borough
-        ArrayList<AirbnbListing> boroughListings = listings.get(selectedBorough);
+        // get listings in price range within specified borough
+        List<AirbnbListing> boroughListings = getModel().getPriceRangeHandler()
+                .getListingsInPriceRangeFromBorough(selectedBorough);
         // remove any items there already
         table.getItems().clear();
 
-        if (boroughListings == null) { return; }
+        if (boroughListings.isEmpty()) { return; }
         boroughListings.forEach(l -> table.getItems().add(l));
 
         table.sort();
@@ -167,7 +167,7 @@ public class PropertyListingController extends AbstractPanelController {
      *
      * @param listings All listings within the selected borough.
      */
-    private void updateListingCount(ArrayList<AirbnbListing> listings) {
+    private void updateListingCount(List<AirbnbListing> listings) {
         count.setText(listings.size() + " properties available");
     }
 
@@ -209,9 +209,10 @@ public class PropertyListingController extends AbstractPanelController {
             list.add("Latitude: " + listing.getLatitude());
             list.add("Review count: " + listing.getNumberOfReviews());
             list.add("Reviews per month: " + listing.getReviewsPerMonth());
-            list.add("Last review: " + listing.getLastReview());
+            list.add("Last review: " + (listing.getLastReviewDay() == ListingStore.NO_REVIEW ? "None" : listing.getLastReview()));
             list.add("Host name: " + listing.getHost_name());
             list.add("Host listings: " + listing.getCalculatedHostListingsCount());
+            list.add("Other listings within " + (int) NEARBY_RADIUS + "m: " + countNearbyListings(listing));
 
             listView.setItems(list);
 
@@ -220,6 +221,19 @@ public class PropertyListingController extends AbstractPanelController {
         }
     }
 
+    /**
+     * Counts the other listings near a property, using the spatial index.
+     *
+     * @param listing A given property listing.
+     * @return The number of other listings within NEARBY_RADIUS metres.
+     */
+    private int countNearbyListings(AirbnbListing listing) {
+        int[] rows = getModel().getSpatialIndex()
+                .getRowsWithin(listing.getLatitude(), listing.getLongitude(), NEARBY_RADIUS);
+        // the property itself is always within the radius
+        return Math.max(rows.length - 1, 0);
+    }
+
     /**
      * Sorts the listing table in a selected sorting order from the ChoiceBox.
      * Called when the sorting ChoiceBox selection is changed.
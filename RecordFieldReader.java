@@ -0,0 +1,73 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This file is part of "Property Hunter"
+ * - a London property viewing application.
+ *
+ * A RecordFieldReader reads one field of one record straight from the CSV file, given
+ * the offset the record starts at. Text columns which are rarely looked at, such as
+ * the name of a property, are then not kept in memory at all: the loader only keeps
+ * each row's record offset, and the field is read from the file when it is shown.
+ *
+ * The file is read a small window at a time, growing the window until it holds the
+ * whole record, so that fetching a field costs a single small read.
+ *
+ * @author Ubayd Khan (k20044237), Mohammed Chowdhury (k21074018), Omar Ahmad (k210524117), Muhammad Beg (k21057641)
+ * @version 30.03.2022
+ */
+public class RecordFieldReader
+{
+    // most records are a few hundred bytes long
+    private static final int INITIAL_WINDOW = 4096;
+
+    private final Path csv;
+
+    /**
+     * @param csv The CSV file the records are read from
+     */
+    public RecordFieldReader(Path csv) {
+        this.csv = csv;
+    }
+
+    /**
+     * Reads a field of the record starting at the given offset
+     * @param offset The offset of the start of the record in the file
+     * @param field The position of the field within the record
+     * @return The text of the field, or an empty string if the record has no such field
+     * or the file can no longer be read
+     */
+    public String read(long offset, int field) {
+        try (FileChannel channel = FileChannel.open(csv, StandardOpenOption.READ)) {
+            long remaining = channel.size() - offset;
+            int window = INITIAL_WINDOW;
+            while (remaining > 0) {
+                ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(window, remaining));
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer, offset + buffer.position()) < 0) {
+                        break;
+                    }
+                }
+                buffer.flip();
+
+                // the record is whole once a line break outside of quotes has been read, or the file has ended
+                boolean endOfFile = buffer.limit() == remaining || buffer.limit() < buffer.capacity();
+                if (endOfFile || ChunkLayout.findLastRecordEnd(buffer, 0) > 0) {
+                    CsvTokenizer tokenizer = new CsvTokenizer(buffer.array(), 0, ChunkLayout.skipRecord(buffer, 0));
+                    if (!tokenizer.nextRecord() || field >= tokenizer.getFieldCount()) {
+                        return "";
+                    }
+                    return tokenizer.getText(field);
+                }
+                window *= 2;
+            }
+            return "";
+        } catch (IOException e) {
+            System.out.println("Could not read from " + csv + ": " + e.getMessage());
+            return "";
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/**
+ * This file is part of "Property Hunter"
+ * - a London property viewing application.
+ *
+ * A RejectedRow is a record of the CSV file which could not be loaded, such as one
+ * with a price which is not a number, kept by a LoadQuarantine so that it can be
+ * found and fixed later.
+ *
+ * @author Ubayd Khan (k20044237), Mohammed Chowdhury (k21074018), Omar Ahmad (k210524117), Muhammad Beg (k21057641)
+ * @version 30.03.2022
+ */
+public class RejectedRow
+{
+    private final long offset;
+    private final String reason;
+    private volatile long recordNumber;
+
+    /**
+     * Creates a rejected row whose record number is not yet known
+     * @param offset The offset of the record in the CSV file
+     * @param reason Why the record could not be loaded
+     */
+    public RejectedRow(long offset, String reason) {
+        this(offset, -1, reason);
+    }
+
+    /**
+     * Creates a rejected row
+     * @param offset The offset of the record in the CSV file
+     * @param recordNumber The number of the record, counting the first record after the header as 1, or -1 if not known
+     * @param reason Why the record could not be loaded
+     */
+    public RejectedRow(long offset, long recordNumber, String reason) {
+        this.offset = offset;
+        this.recordNumber = recordNumber;
+        this.reason = reason;
+    }
+
+    /**
+     * @return The offset of the record in the CSV file, or in the decompressed file if it is compressed
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * @return The number of the record, counting the first record after the header as 1, or -1 if not known
+     */
+    public long getRecordNumber() {
+        return recordNumber;
+    }
+
+    void setRecordNumber(long recordNumber) {
+        this.recordNumber = recordNumber;
+    }
+
+    /**
+     * @return Why the record could not be loaded
+     */
+    public String getReason() {
+        return reason;
+    }
+
+    @Override
+    public String toString() {
+        return "Record " + recordNumber + " (byte " + offset + "): " + reason;
+    }
+}
@@ -0,0 +1,591 @@
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * This file is part of "Property Hunter"
+ * - a London property viewing application.
+ *
+ * A RowBitmap is a compressed set of row indices, laid out in the style of a roaring
+ * bitmap. The rows are split into chunks of 65536 by their upper bits, and each chunk
+ * which holds a row has a container of its lower bits. A sparse chunk keeps a sorted
+ * array of 16-bit values, and a chunk with more than 4096 rows keeps a bitmap of 1024
+ * words instead, so no container is ever larger than 8 kilobytes.
+ *
+ * Bitmaps are combined with and() and or(), which work a container at a time, and
+ * counted with getCardinality() and andCardinality(), which count bits rather than
+ * visiting rows. Combining two bitmaps always makes a new one, so results can be
+ * handed out while the bitmaps they came from keep growing. The rows can be read
+ * without copying them out, with iterator() in ascending order or select() by position.
+ *
+ * @author Ubayd Khan (k20044237), Mohammed Chowdhury (k21074018), Omar Ahmad (k210524117), Muhammad Beg (k21057641)
+ * @version 30.03.2022
+ */
+public class RowBitmap
+{
+    // a container holding more than this many values is kept as a bitmap
+    private static final int ARRAY_LIMIT = 4096;
+    private static final int BITMAP_WORDS = 1024;
+
+    // the upper 16 bits of the rows in each container, in ascending order
+    private int[] keys = new int[4];
+    // the sorted lower bits of an array container, or null for a bitmap container
+    private char[][] arrays = new char[4][];
+    // the words of a bitmap container, or null for an array container
+    private long[][] bitmaps = new long[4][];
+    private int[] cardinalities = new int[4];
+    private int containers;
+
+    /**
+     * Creates an empty bitmap
+     */
+    public RowBitmap() {
+    }
+
+    /**
+     * Creates a bitmap of the given rows
+     * @param rows The indices of the rows, in any order
+     * @return A new bitmap holding the rows
+     */
+    public static RowBitmap of(int[] rows) {
+        int[] sorted = rows.clone();
+        Arrays.sort(sorted);
+        RowBitmap bitmap = new RowBitmap();
+        for (int row : sorted) {
+            bitmap.add(row);
+        }
+        return bitmap;
+    }
+
+    /**
+     * Creates a bitmap of a range of rows
+     * @param fromRow The index of the first row
+     * @param toRow The index just past the last row
+     * @return A new bitmap holding every row in the range
+     */
+    public static RowBitmap range(int fromRow, int toRow) {
+        RowBitmap bitmap = new RowBitmap();
+        for (int row = fromRow; row < toRow; row++) {
+            bitmap.add(row);
+        }
+        return bitmap;
+    }
+
+    /**
+     * Adds a row. Adding rows in ascending order is fastest, as each one lands in the last container.
+     * @param row The index of the row, which must not be negative
+     */
+    public void add(int row) {
+        int key = row >>> 16;
+        char low = (char) row;
+        int container;
+        if (containers > 0 && keys[containers - 1] == key) {
+            container = containers - 1;
+        } else if (containers == 0 || keys[containers - 1] < key) {
+            container = insertContainer(containers, key, new char[4], null, 0);
+        } else {
+            container = Arrays.binarySearch(keys, 0, containers, key);
+            if (container < 0) {
+                container = insertContainer(-container - 1, key, new char[4], null, 0);
+            }
+        }
+
+        long[] bitmap = bitmaps[container];
+        if (bitmap != null) {
+            long bit = 1L << low;
+            if ((bitmap[low >>> 6] & bit) == 0) {
+                bitmap[low >>> 6] |= bit;
+                cardinalities[container]++;
+            }
+            return;
+        }
+
+        char[] array = arrays[container];
+        int cardinality = cardinalities[container];
+        int position = cardinality > 0 && array[cardinality - 1] < low
+                ? -cardinality - 1 : Arrays.binarySearch(array, 0, cardinality, low);
+        if (position >= 0) {
+            return;
+        }
+        position = -position - 1;
+        if (cardinality == ARRAY_LIMIT) {
+            long[] words = toBitmap(array, cardinality);
+            words[low >>> 6] |= 1L << low;
+            arrays[container] = null;
+            bitmaps[container] = words;
+        } else {
+            if (cardinality == array.length) {
+                array = Arrays.copyOf(array, Math.min(array.length * 2, ARRAY_LIMIT));
+                arrays[container] = array;
+            }
+            System.arraycopy(array, position, array, position + 1, cardinality - position);
+            array[position] = low;
+        }
+        cardinalities[container]++;
+    }
+
+    /**
+     * @param row The index of the row
+     * @return If the row is in the bitmap
+     */
+    public boolean contains(int row) {
+        int container = Arrays.binarySearch(keys, 0, containers, row >>> 16);
+        if (container < 0) {
+            return false;
+        }
+        char low = (char) row;
+        long[] bitmap = bitmaps[container];
+        if (bitmap != null) {
+            return (bitmap[low >>> 6] & (1L << low)) != 0;
+        }
+        return Arrays.binarySearch(arrays[container], 0, cardinalities[container], low) >= 0;
+    }
+
+    /**
+     * @return The number of rows in the bitmap
+     */
+    public int getCardinality() {
+        int cardinality = 0;
+        for (int container = 0; container < containers; container++) {
+            cardinality += cardinalities[container];
+        }
+        return cardinality;
+    }
+
+    /**
+     * @return If the bitmap holds no rows
+     */
+    public boolean isEmpty() {
+        return containers == 0;
+    }
+
+    /**
+     * @return Roughly how many bytes the bitmap takes up in memory, counting every container
+     */
+    public long getSizeInBytes() {
+        // the object, its four arrays of container slots and the 16 bytes of each slot
+        long bytes = 32 + 4 * 16 + 16L * keys.length;
+        for (int container = 0; container < containers; container++) {
+            if (arrays[container] != null) {
+                bytes += 16 + 2L * arrays[container].length;
+            } else {
+                bytes += 16 + 8L * bitmaps[container].length;
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * @return A copy of the bitmap, which does not change when this one does
+     */
+    public RowBitmap copy() {
+        RowBitmap copy = new RowBitmap();
+        for (int container = 0; container < containers; container++) {
+            int cardinality = cardinalities[container];
+            copy.appendContainer(keys[container],
+                    arrays[container] == null ? null : Arrays.copyOf(arrays[container], cardinality),
+                    bitmaps[container] == null ? null : bitmaps[container].clone(), cardinality);
+        }
+        return copy;
+    }
+
+    /**
+     * Intersects this bitmap with another
+     * @param other The other bitmap
+     * @return A new bitmap of the rows in both bitmaps
+     */
+    public RowBitmap and(RowBitmap other) {
+        RowBitmap result = new RowBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < containers && j < other.containers) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                result.appendAnd(keys[i], arrays[i], bitmaps[i], cardinalities[i],
+                        other.arrays[j], other.bitmaps[j], other.cardinalities[j]);
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Counts the rows in both this bitmap and another, without making their intersection
+     * @param other The other bitmap
+     * @return The number of rows in both bitmaps
+     */
+    public int andCardinality(RowBitmap other) {
+        int cardinality = 0;
+        int i = 0;
+        int j = 0;
+        while (i < containers && j < other.containers) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                cardinality += andCardinality(arrays[i], bitmaps[i], cardinalities[i],
+                        other.arrays[j], other.bitmaps[j], other.cardinalities[j]);
+                i++;
+                j++;
+            }
+        }
+        return cardinality;
+    }
+
+    /**
+     * Unites this bitmap with another
+     * @param other The other bitmap
+     * @return A new bitmap of the rows in either bitmap
+     */
+    public RowBitmap or(RowBitmap other) {
+        RowBitmap result = new RowBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < containers || j < other.containers) {
+            if (j == other.containers || (i < containers && keys[i] < other.keys[j])) {
+                result.appendOr(keys[i], arrays[i], bitmaps[i], cardinalities[i], null, null, 0);
+                i++;
+            } else if (i == containers || keys[i] > other.keys[j]) {
+                result.appendOr(other.keys[j], other.arrays[j], other.bitmaps[j], other.cardinalities[j],
+                        null, null, 0);
+                j++;
+            } else {
+                result.appendOr(keys[i], arrays[i], bitmaps[i], cardinalities[i],
+                        other.arrays[j], other.bitmaps[j], other.cardinalities[j]);
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return An iterator over the rows in the bitmap, in ascending order, which reads the containers in place
+     */
+    public PrimitiveIterator.OfInt iterator() {
+        return new RowIterator();
+    }
+
+    /**
+     * Finds a row by its position, counting whole containers and then the words of a bitmap container
+     * @param index The position of the row, where the lowest row is at position 0
+     * @return The row at that position in ascending order
+     */
+    public int select(int index) {
+        if (index < 0) {
+            throw new IndexOutOfBoundsException("Row " + index);
+        }
+        int position = index;
+        for (int container = 0; container < containers; container++) {
+            if (position >= cardinalities[container]) {
+                position -= cardinalities[container];
+                continue;
+            }
+            int high = keys[container] << 16;
+            long[] bitmap = bitmaps[container];
+            if (bitmap == null) {
+                return high | arrays[container][position];
+            }
+            for (int word = 0; ; word++) {
+                int count = Long.bitCount(bitmap[word]);
+                if (position < count) {
+                    long bits = bitmap[word];
+                    for (int k = 0; k < position; k++) {
+                        bits &= bits - 1;
+                    }
+                    return high | (word << 6) | Long.numberOfTrailingZeros(bits);
+                }
+                position -= count;
+            }
+        }
+        throw new IndexOutOfBoundsException("Row " + index + " of " + getCardinality());
+    }
+
+    /**
+     * @return A new array of the rows in the bitmap, in ascending order
+     */
+    public int[] toArray() {
+        int[] rows = new int[getCardinality()];
+        int count = 0;
+        for (int container = 0; container < containers; container++) {
+            int high = keys[container] << 16;
+            long[] bitmap = bitmaps[container];
+            if (bitmap == null) {
+                char[] array = arrays[container];
+                for (int k = 0; k < cardinalities[container]; k++) {
+                    rows[count++] = high | array[k];
+                }
+                continue;
+            }
+            for (int word = 0; word < BITMAP_WORDS; word++) {
+                long bits = bitmap[word];
+                while (bits != 0) {
+                    rows[count++] = high | (word << 6) | Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Adds the intersection of two containers with the same key, if it is not empty
+     */
+    private void appendAnd(int key, char[] array, long[] bitmap, int cardinality,
+                           char[] otherArray, long[] otherBitmap, int otherCardinality) {
+        if (bitmap != null && otherBitmap != null) {
+            long[] words = new long[BITMAP_WORDS];
+            int count = 0;
+            for (int word = 0; word < BITMAP_WORDS; word++) {
+                words[word] = bitmap[word] & otherBitmap[word];
+                count += Long.bitCount(words[word]);
+            }
+            appendBitmap(key, words, count);
+            return;
+        }
+
+        if (bitmap != null) {
+            // keep the array container first, as the result can be no larger than it
+            appendAnd(key, otherArray, otherBitmap, otherCardinality, array, bitmap, cardinality);
+            return;
+        }
+
+        char[] values = new char[otherBitmap != null ? cardinality : Math.min(cardinality, otherCardinality)];
+        int count = 0;
+        if (otherBitmap != null) {
+            for (int k = 0; k < cardinality; k++) {
+                char low = array[k];
+                if ((otherBitmap[low >>> 6] & (1L << low)) != 0) {
+                    values[count++] = low;
+                }
+            }
+        } else {
+            int i = 0;
+            int j = 0;
+            while (i < cardinality && j < otherCardinality) {
+                if (array[i] < otherArray[j]) {
+                    i++;
+                } else if (array[i] > otherArray[j]) {
+                    j++;
+                } else {
+                    values[count++] = array[i];
+                    i++;
+                    j++;
+                }
+            }
+        }
+        if (count > 0) {
+            appendContainer(key, values, null, count);
+        }
+    }
+
+    /**
+     * Counts the values in both of two containers with the same key
+     */
+    private static int andCardinality(char[] array, long[] bitmap, int cardinality,
+                                      char[] otherArray, long[] otherBitmap, int otherCardinality) {
+        int count = 0;
+        if (bitmap != null && otherBitmap != null) {
+            for (int word = 0; word < BITMAP_WORDS; word++) {
+                count += Long.bitCount(bitmap[word] & otherBitmap[word]);
+            }
+        } else if (bitmap != null || otherBitmap != null) {
+            char[] values = bitmap == null ? array : otherArray;
+            int length = bitmap == null ? cardinality : otherCardinality;
+            long[] words = bitmap == null ? otherBitmap : bitmap;
+            for (int k = 0; k < length; k++) {
+                char low = values[k];
+                if ((words[low >>> 6] & (1L << low)) != 0) {
+                    count++;
+                }
+            }
+        } else {
+            int i = 0;
+            int j = 0;
+            while (i < cardinality && j < otherCardinality) {
+                if (array[i] < otherArray[j]) {
+                    i++;
+                } else if (array[i] > otherArray[j]) {
+                    j++;
+                } else {
+                    count++;
+                    i++;
+                    j++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Adds the union of two containers with the same key, where the second may be missing
+     */
+    private void appendOr(int key, char[] array, long[] bitmap, int cardinality,
+                          char[] otherArray, long[] otherBitmap, int otherCardinality) {
+        if (bitmap == null && otherBitmap == null && cardinality + otherCardinality <= ARRAY_LIMIT) {
+            char[] values = new char[cardinality + otherCardinality];
+            int count = 0;
+            int i = 0;
+            int j = 0;
+            while (i < cardinality || j < otherCardinality) {
+                if (j == otherCardinality || (i < cardinality && array[i] < otherArray[j])) {
+                    values[count++] = array[i++];
+                } else if (i == cardinality || array[i] > otherArray[j]) {
+                    values[count++] = otherArray[j++];
+                } else {
+                    values[count++] = array[i];
+                    i++;
+                    j++;
+                }
+            }
+            appendContainer(key, values, null, count);
+            return;
+        }
+
+        long[] words = bitmap != null ? bitmap.clone() : toBitmap(array, cardinality);
+        if (otherBitmap != null) {
+            for (int word = 0; word < BITMAP_WORDS; word++) {
+                words[word] |= otherBitmap[word];
+            }
+        } else {
+            for (int k = 0; k < otherCardinality; k++) {
+                char low = otherArray[k];
+                words[low >>> 6] |= 1L << low;
+            }
+        }
+        int count = 0;
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+        appendBitmap(key, words, count);
+    }
+
+    /**
+     * Adds a bitmap container, turning it into an array container if it holds few enough values
+     */
+    private void appendBitmap(int key, long[] words, int cardinality) {
+        if (cardinality == 0) {
+            return;
+        }
+        if (cardinality > ARRAY_LIMIT) {
+            appendContainer(key, null, words, cardinality);
+            return;
+        }
+        char[] values = new char[cardinality];
+        int count = 0;
+        for (int word = 0; word < BITMAP_WORDS; word++) {
+            long bits = words[word];
+            while (bits != 0) {
+                values[count++] = (char) ((word << 6) | Long.numberOfTrailingZeros(bits));
+                bits &= bits - 1;
+            }
+        }
+        appendContainer(key, values, null, cardinality);
+    }
+
+    /**
+     * Adds a container after the last one
+     */
+    private void appendContainer(int key, char[] array, long[] bitmap, int cardinality) {
+        insertContainer(containers, key, array, bitmap, cardinality);
+    }
+
+    /**
+     * Inserts a container, moving the containers after it along
+     * @return The position of the new container
+     */
+    private int insertContainer(int position, int key, char[] array, long[] bitmap, int cardinality) {
+        if (containers == keys.length) {
+            int capacity = keys.length * 2;
+            keys = Arrays.copyOf(keys, capacity);
+            arrays = Arrays.copyOf(arrays, capacity);
+            bitmaps = Arrays.copyOf(bitmaps, capacity);
+            cardinalities = Arrays.copyOf(cardinalities, capacity);
+        }
+        int moved = containers - position;
+        System.arraycopy(keys, position, keys, position + 1, moved);
+        System.arraycopy(arrays, position, arrays, position + 1, moved);
+        System.arraycopy(bitmaps, position, bitmaps, position + 1, moved);
+        System.arraycopy(cardinalities, position, cardinalities, position + 1, moved);
+        keys[position] = key;
+        arrays[position] = array;
+        bitmaps[position] = bitmap;
+        cardinalities[position] = cardinality;
+        containers++;
+        return position;
+    }
+
+    /**
+     * @return The words of a bitmap holding the values of an array container
+     */
+    private static long[] toBitmap(char[] array, int cardinality) {
+        long[] words = new long[BITMAP_WORDS];
+        for (int k = 0; k < cardinality; k++) {
+            words[array[k] >>> 6] |= 1L << array[k];
+        }
+        return words;
+    }
+
+    /**
+     * Reads the rows of the bitmap in ascending order, a container at a time
+     */
+    private class RowIterator implements PrimitiveIterator.OfInt {
+        private int container;
+        // the next position of an array container, or the word being read of a bitmap container
+        private int index;
+        // the bits of the word being read which have not been returned yet
+        private long bits;
+
+        private RowIterator() {
+            startContainer(0);
+        }
+
+        /**
+         * Moves to the start of a container
+         * @param container The container to be read next
+         */
+        private void startContainer(int container) {
+            this.container = container;
+            index = 0;
+            bits = container < containers && bitmaps[container] != null ? bitmaps[container][0] : 0;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (container < containers) {
+                long[] bitmap = bitmaps[container];
+                if (bitmap == null) {
+                    if (index < cardinalities[container]) {
+                        return true;
+                    }
+                } else if (bits != 0) {
+                    return true;
+                } else if (index + 1 < BITMAP_WORDS) {
+                    bits = bitmap[++index];
+                    continue;
+                }
+                startContainer(container + 1);
+            }
+            return false;
+        }
+
+        @Override
+        public int nextInt() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            int high = keys[container] << 16;
+            if (bitmaps[container] == null) {
+                return high | arrays[container][index++];
+            }
+            int low = (index << 6) | Long.numberOfTrailingZeros(bits);
+            bits &= bits - 1;
+            return high | low;
+        }
+    }
+}
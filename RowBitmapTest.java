@@ -0,0 +1,156 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.util.BitSet;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+
+/**
+ * This file is part of "Property Hunter"
+ * - a London property viewing application.
+ *
+ * This class tests RowBitmap objects against java.util.BitSet, on random sets which
+ * cross the size at which a container turns from an array into a bitmap, and the
+ * 65536-row boundaries between containers.
+ * 
+ * @author Ubayd Khan (k20044237), Mohammed Chowdhury (k21074018), Omar Ahmad (k210524117), Muhammad Beg (k21057641)
+ * @version 30.03.2022
+ */
+public class RowBitmapTest
+{
+    // rows span several containers
+    private static final int MAX_ROW = 4 * 65536 + 1000;
+    // around the 4096 values at which an array container becomes a bitmap
+    private static final int[] SIZES = {0, 1, 100, 4095, 4096, 4097, 5000, 20000, 70000};
+
+    private final Random random = new Random(TestRows.SEED);
+
+    @Test
+    public void testAdd()
+    {
+        for (int size : SIZES) {
+            BitSet expected = randomSet(size);
+            RowBitmap bitmap = new RowBitmap();
+            // rows added out of order as well as in order
+            int[] rows = expected.stream().toArray();
+            for (int i = rows.length - 1; i >= 0; i -= 2) {
+                bitmap.add(rows[i]);
+            }
+            for (int i = 0; i < rows.length; i++) {
+                bitmap.add(rows[i]);
+            }
+            assertSame(expected, bitmap);
+        }
+    }
+
+    @Test
+    public void testOfAndRange()
+    {
+        for (int size : SIZES) {
+            BitSet expected = randomSet(size);
+            int[] rows = expected.stream().toArray();
+            shuffle(rows);
+            assertSame(expected, RowBitmap.of(rows));
+        }
+        int[][] ranges = {{0, 0}, {0, 4096}, {65530, 65542}, {1000, 140000}, {65536, 131072}};
+        for (int[] range : ranges) {
+            BitSet expected = new BitSet();
+            expected.set(range[0], range[1]);
+            assertSame(expected, RowBitmap.range(range[0], range[1]));
+        }
+    }
+
+    @Test
+    public void testAndAndOr()
+    {
+        for (int size : SIZES) {
+            for (int otherSize : SIZES) {
+                BitSet first = randomSet(size);
+                BitSet second = randomSet(otherSize);
+                RowBitmap firstBitmap = RowBitmap.of(first.stream().toArray());
+                RowBitmap secondBitmap = RowBitmap.of(second.stream().toArray());
+
+                BitSet and = (BitSet) first.clone();
+                and.and(second);
+                BitSet or = (BitSet) first.clone();
+                or.or(second);
+
+                assertSame(and, firstBitmap.and(secondBitmap));
+                assertEquals(and.cardinality(), firstBitmap.andCardinality(secondBitmap));
+                assertEquals(and.cardinality(), secondBitmap.andCardinality(firstBitmap));
+                assertSame(or, firstBitmap.or(secondBitmap));
+                // neither operand is changed
+                assertSame(first, firstBitmap);
+                assertSame(second, secondBitmap);
+            }
+        }
+    }
+
+    @Test
+    public void testCopy()
+    {
+        BitSet expected = randomSet(20000);
+        RowBitmap bitmap = RowBitmap.of(expected.stream().toArray());
+        RowBitmap copy = bitmap.copy();
+        bitmap.add(MAX_ROW + 5);
+        assertSame(expected, copy);
+    }
+
+    @Test
+    public void testSelectOutOfRange()
+    {
+        RowBitmap bitmap = RowBitmap.of(randomSet(5000).stream().toArray());
+        assertThrows(IndexOutOfBoundsException.class, () -> bitmap.select(-1));
+        assertThrows(IndexOutOfBoundsException.class, () -> bitmap.select(bitmap.getCardinality()));
+        assertFalse(new RowBitmap().iterator().hasNext());
+    }
+
+    /**
+     * Checks every way of reading the bitmap against the expected rows
+     */
+    private void assertSame(BitSet expected, RowBitmap bitmap)
+    {
+        int[] rows = expected.stream().toArray();
+        assertArrayEquals(rows, bitmap.toArray());
+        assertEquals(rows.length, bitmap.getCardinality());
+        assertEquals(rows.length == 0, bitmap.isEmpty());
+
+        PrimitiveIterator.OfInt iterator = bitmap.iterator();
+        for (int row : rows) {
+            assertTrue(iterator.hasNext());
+            assertEquals(row, iterator.nextInt());
+        }
+        assertFalse(iterator.hasNext());
+
+        for (int i = 0; i < rows.length; i += 1 + random.nextInt(50)) {
+            assertEquals(rows[i], bitmap.select(i));
+        }
+        for (int i = 0; i < 2000; i++) {
+            int row = random.nextInt(MAX_ROW);
+            assertEquals(expected.get(row), bitmap.contains(row));
+        }
+    }
+
+    /**
+     * @return A set of about the given number of rows, either spread over every container or packed into one
+     */
+    private BitSet randomSet(int size)
+    {
+        BitSet set = new BitSet();
+        int span = random.nextBoolean() ? MAX_ROW : 65536;
+        int offset = span == MAX_ROW ? 0 : 65536 * random.nextInt(4);
+        for (int i = 0; i < size; i++) {
+            set.set(offset + random.nextInt(span));
+        }
+        return set;
+    }
+
+    private void shuffle(int[] rows)
+    {
+        for (int i = rows.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int row = rows[i];
+            rows[i] = rows[j];
+            rows[j] = row;
+        }
+    }
+}
@@ -0,0 +1,365 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * This file is part of "Property Hunter"
+ * - a London property viewing application.
+ *
+ * A SpatialIndex finds listings by location, by dropping each row into the cell of a
+ * uniform grid which covers its latitude and longitude. A query only visits the rows
+ * of the cells it overlaps, so finding the listings around a point takes a few cells
+ * rather than a scan of the whole data set. The grid is sparse, keeping only the
+ * cells which hold a row, and each cell has a compact array of its row indices.
+ *
+ * It answers three kinds of query: the rows within a box of latitude and longitude,
+ * the rows within a distance of a point, and the nearest rows to a point. Distances
+ * are great-circle distances in metres.
+ *
+ * The index is built once from the rows already in the store, then kept up to date as
+ * a ListingListener, taking in only the rows appended since. If it is told about the
+ * rows of a different store, the model has switched data sets, so it starts again.
+ *
+ * @author Ubayd Khan (k20044237), Mohammed Chowdhury (k21074018), Omar Ahmad (k210524117), Muhammad Beg (k21057641)
+ * @version 30.03.2022
+ */
+public class SpatialIndex implements ListingListener
+{
+    // the height and width of a cell in degrees, about 550 metres north to south
+    private static final double CELL_DEGREES = 0.005;
+    private static final double EARTH_RADIUS_METRES = 6371008.8;
+    private static final double METRES_PER_DEGREE = Math.PI * EARTH_RADIUS_METRES / 180;
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int[] NO_ROWS = new int[0];
+
+    private ListingStore listings;
+    // the rows of each cell which holds a row, keyed by cell
+    private HashMap<Long, Cell> cells;
+    // the cells between these hold every row
+    private int minimumX;
+    private int maximumX;
+    private int minimumY;
+    private int maximumY;
+    // the rows of the store below this have been indexed
+    private int indexedRows;
+
+    /**
+     * Creates an index of the rows already in a store
+     * @param listings The store to be indexed
+     */
+    public SpatialIndex(ListingStore listings) {
+        reset(listings);
+        indexRows(listings.size());
+    }
+
+    /**
+     * Takes in rows appended to the store, or starts again if they belong to another store
+     */
+    @Override
+    public synchronized void listingsAdded(ListingStore listings, int fromRow, int toRow) {
+        if (listings != this.listings) {
+            reset(listings);
+        }
+        indexRows(toRow);
+    }
+
+    /**
+     * Empties the index, ready to index another store
+     * @param listings The store to be indexed
+     */
+    private void reset(ListingStore listings) {
+        this.listings = listings;
+        cells = new HashMap<>();
+        minimumX = Integer.MAX_VALUE;
+        maximumX = Integer.MIN_VALUE;
+        minimumY = Integer.MAX_VALUE;
+        maximumY = Integer.MIN_VALUE;
+        indexedRows = 0;
+    }
+
+    /**
+     * Adds every row from the last row indexed up to the given row
+     * @param toRow The index just past the last row to be indexed
+     */
+    private void indexRows(int toRow) {
+        for (int row = indexedRows; row < toRow; row++) {
+            int x = toCell(listings.getLongitude(row));
+            int y = toCell(listings.getLatitude(row));
+            Cell cell = cells.computeIfAbsent(toKey(x, y), key -> new Cell());
+            cell.add(row);
+            minimumX = Math.min(minimumX, x);
+            maximumX = Math.max(maximumX, x);
+            minimumY = Math.min(minimumY, y);
+            maximumY = Math.max(maximumY, y);
+        }
+        indexedRows = Math.max(indexedRows, toRow);
+    }
+
+    /**
+     * @return The store which is indexed
+     */
+    public synchronized ListingStore getListingStore() {
+        return listings;
+    }
+
+    /**
+     * Finds the rows within a box of latitude and longitude, including its edges
+     * @param minimumLatitude The southern edge of the box
+     * @param minimumLongitude The western edge of the box
+     * @param maximumLatitude The northern edge of the box
+     * @param maximumLongitude The eastern edge of the box
+     * @return The indices of the rows in the box, in ascending order
+     */
+    public synchronized int[] getRowsInBox(double minimumLatitude, double minimumLongitude,
+                                           double maximumLatitude, double maximumLongitude) {
+        int[] rows = new int[INITIAL_CAPACITY];
+        int count = 0;
+        int fromX = Math.max(toCell(minimumLongitude), minimumX);
+        int toX = Math.min(toCell(maximumLongitude), maximumX);
+        int fromY = Math.max(toCell(minimumLatitude), minimumY);
+        int toY = Math.min(toCell(maximumLatitude), maximumY);
+
+        for (int x = fromX; x <= toX; x++) {
+            for (int y = fromY; y <= toY; y++) {
+                Cell cell = cells.get(toKey(x, y));
+                if (cell == null) {
+                    continue;
+                }
+                for (int i = 0; i < cell.count; i++) {
+                    int row = cell.rows[i];
+                    double latitude = listings.getLatitude(row);
+                    double longitude = listings.getLongitude(row);
+                    if (latitude >= minimumLatitude && latitude <= maximumLatitude
+                            && longitude >= minimumLongitude && longitude <= maximumLongitude) {
+                        if (count == rows.length) {
+                            rows = Arrays.copyOf(rows, count * 2);
+                        }
+                        rows[count++] = row;
+                    }
+                }
+            }
+        }
+
+        rows = Arrays.copyOf(rows, count);
+        Arrays.sort(rows);
+        return rows;
+    }
+
+    /**
+     * Finds the rows within a distance of a point
+     * @param latitude The latitude of the point
+     * @param longitude The longitude of the point
+     * @param radius The distance from the point in metres
+     * @return The indices of the rows within the distance, in ascending order
+     */
+    public synchronized int[] getRowsWithin(double latitude, double longitude, double radius) {
+        double latitudeRadius = radius / METRES_PER_DEGREE;
+        double longitudeRadius = latitudeRadius / Math.max(Math.cos(Math.toRadians(
+                Math.min(Math.abs(latitude) + latitudeRadius, 90))), 1e-9);
+        int[] rows = getRowsInBox(latitude - latitudeRadius, longitude - longitudeRadius,
+                latitude + latitudeRadius, longitude + longitudeRadius);
+        int count = 0;
+
+        for (int row : rows) {
+            if (getDistance(latitude, longitude, listings.getLatitude(row), listings.getLongitude(row)) <= radius) {
+                rows[count++] = row;
+            }
+        }
+
+        return Arrays.copyOf(rows, count);
+    }
+
+    /**
+     * Finds the nearest rows to a point, by searching rings of cells outwards from the
+     * point's cell until no closer row can be in the next ring
+     * @param latitude The latitude of the point
+     * @param longitude The longitude of the point
+     * @param k The number of rows to find
+     * @return The indices of the k nearest rows, nearest first, or every row if there are fewer
+     */
+    public synchronized int[] getNearestRows(double latitude, double longitude, int k) {
+        if (k <= 0 || cells.isEmpty()) {
+            return NO_ROWS;
+        }
+
+        NearestRows nearest = new NearestRows(k);
+        int centreX = toCell(longitude);
+        int centreY = toCell(latitude);
+        int lastRing = Math.max(Math.max(centreX - minimumX, maximumX - centreX),
+                Math.max(centreY - minimumY, maximumY - centreY));
+
+        for (int ring = 0; ring <= lastRing; ring++) {
+            if ((2L * ring + 1) * (2L * ring + 1) > 4L * cells.size()) {
+                // far from the rows, most of the ring is empty, so visit the rest of the cells directly
+                for (Map.Entry<Long, Cell> entry : cells.entrySet()) {
+                    long key = entry.getKey();
+                    int x = (int) (key >> 32);
+                    int y = (int) key;
+                    if (Math.max(Math.abs(x - centreX), Math.abs(y - centreY)) >= ring) {
+                        offerAll(nearest, entry.getValue(), latitude, longitude);
+                    }
+                }
+                break;
+            }
+
+            for (int x = centreX - ring; x <= centreX + ring; x++) {
+                // the top and bottom of the ring are whole rows of cells, the sides only their ends
+                int step = x == centreX - ring || x == centreX + ring ? 1 : Math.max(2 * ring, 1);
+                for (int y = centreY - ring; y <= centreY + ring; y += step) {
+                    Cell cell = cells.get(toKey(x, y));
+                    if (cell != null) {
+                        offerAll(nearest, cell, latitude, longitude);
+                    }
+                }
+            }
+
+            if (nearest.isFull() && getRingDistance(latitude, ring + 1) > nearest.getFarthestDistance()) {
+                break;
+            }
+        }
+
+        return nearest.toArray();
+    }
+
+    /**
+     * Offers every row of a cell to the nearest rows found so far
+     */
+    private void offerAll(NearestRows nearest, Cell cell, double latitude, double longitude) {
+        for (int i = 0; i < cell.count; i++) {
+            int row = cell.rows[i];
+            nearest.offer(row, getDistance(latitude, longitude, listings.getLatitude(row), listings.getLongitude(row)));
+        }
+    }
+
+    /**
+     * Works out the least distance from a point to any cell of a ring around the point's cell
+     * @param latitude The latitude of the point
+     * @param ring The number of cells between the ring and the point's cell
+     * @return A distance in metres no greater than the distance to any cell of the ring
+     */
+    private static double getRingDistance(double latitude, int ring) {
+        double degrees = (ring - 1) * CELL_DEGREES;
+        // a degree of longitude is shortest on the side of the ring furthest from the equator
+        double widest = Math.min(Math.abs(latitude) + (ring + 1) * CELL_DEGREES, 90);
+        return Math.max(degrees, 0) * METRES_PER_DEGREE * Math.cos(Math.toRadians(widest));
+    }
+
+    /**
+     * Works out the great-circle distance between two points with the haversine formula
+     * @param latitude The latitude of the first point
+     * @param longitude The longitude of the first point
+     * @param otherLatitude The latitude of the second point
+     * @param otherLongitude The longitude of the second point
+     * @return The distance between the points in metres
+     */
+    public static double getDistance(double latitude, double longitude, double otherLatitude, double otherLongitude) {
+        double latitudeSine = Math.sin(Math.toRadians(otherLatitude - latitude) / 2);
+        double longitudeSine = Math.sin(Math.toRadians(otherLongitude - longitude) / 2);
+        double a = latitudeSine * latitudeSine + Math.cos(Math.toRadians(latitude))
+                * Math.cos(Math.toRadians(otherLatitude)) * longitudeSine * longitudeSine;
+        return 2 * EARTH_RADIUS_METRES * Math.asin(Math.min(Math.sqrt(a), 1));
+    }
+
+    /**
+     * @param degrees A latitude or longitude
+     * @return The index of the cells which cover it
+     */
+    private static int toCell(double degrees) {
+        return (int) Math.floor(degrees / CELL_DEGREES);
+    }
+
+    /**
+     * @return The key of the cell at the given indices
+     */
+    private static long toKey(int x, int y) {
+        return ((long) x << 32) | (y & 0xFFFFFFFFL);
+    }
+
+    /**
+     * The rows of one cell; only the first count are used
+     */
+    private static class Cell {
+        private int[] rows = new int[INITIAL_CAPACITY];
+        private int count;
+
+        private void add(int row) {
+            if (count == rows.length) {
+                rows = Arrays.copyOf(rows, count * 2);
+            }
+            rows[count++] = row;
+        }
+    }
+
+    /**
+     * The nearest rows found so far, kept in a binary heap with the farthest on top
+     */
+    private static class NearestRows {
+        private final int[] rows;
+        private final double[] distances;
+        private int size;
+
+        NearestRows(int k) {
+            rows = new int[k];
+            distances = new double[k];
+        }
+
+        private boolean isFull() {
+            return size == rows.length;
+        }
+
+        private double getFarthestDistance() {
+            return distances[0];
+        }
+
+        /**
+         * Keeps a row if fewer rows than wanted have been found, or it is nearer than the farthest one
+         */
+        private void offer(int row, double distance) {
+            if (size < rows.length) {
+                int child = size++;
+                while (child > 0 && distances[(child - 1) / 2] < distance) {
+                    rows[child] = rows[(child - 1) / 2];
+                    distances[child] = distances[(child - 1) / 2];
+                    child = (child - 1) / 2;
+                }
+                rows[child] = row;
+                distances[child] = distance;
+                return;
+            }
+            if (distance >= distances[0]) {
+                return;
+            }
+            int parent = 0;
+            while (2 * parent + 1 < size) {
+                int child = 2 * parent + 1;
+                if (child + 1 < size && distances[child + 1] > distances[child]) {
+                    child++;
+                }
+                if (distances[child] <= distance) {
+                    break;
+                }
+                rows[parent] = rows[child];
+                distances[parent] = distances[child];
+                parent = child;
+            }
+            rows[parent] = row;
+            distances[parent] = distance;
+        }
+
+        /**
+         * @return The rows found, nearest first
+         */
+        private int[] toArray() {
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Double.compare(distances[a], distances[b]));
+            int[] sorted = new int[size];
+            for (int i = 0; i < size; i++) {
+                sorted[i] = rows[order[i]];
+            }
+            return sorted;
+        }
+    }
+}
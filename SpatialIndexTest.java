@@ -0,0 +1,120 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * This file is part of "Property Hunter"
+ * - a London property viewing application.
+ *
+ * This class checks box, radius and nearest-row queries of a SpatialIndex by working
+ * out each answer from every row's own coordinates, for points among the rows and
+ * for points well away from all of them.
+ * 
+ * @author Ubayd Khan (k20044237), Mohammed Chowdhury (k21074018), Omar Ahmad (k210524117), Muhammad Beg (k21057641)
+ * @version 30.03.2022
+ */
+public class SpatialIndexTest
+{
+    private final Random random = new Random(TestRows.SEED);
+    private final TestRows rows = new TestRows();
+
+    @Test
+    public void testAgainstScan()
+    {
+        ListingStore store = new ListingStore();
+        addRows(store, 3000);
+        SpatialIndex index = new SpatialIndex(store);
+        store.addListener(index);
+        addRows(store, 2000);
+
+        for (int query = 0; query < 200; query++) {
+            double latitude = 51.3 + random.nextDouble() * 0.4;
+            double longitude = -0.5 + random.nextDouble() * 0.8;
+            if (query % 20 == 0) {
+                // far from every row
+                latitude += 3;
+                longitude -= 4;
+            }
+
+            double size = random.nextDouble() * 0.05;
+            assertArrayEquals(scanBox(store, latitude, longitude, latitude + size, longitude + size * 2),
+                    index.getRowsInBox(latitude, longitude, latitude + size, longitude + size * 2));
+
+            double radius = random.nextDouble() * 3000;
+            assertArrayEquals(scanWithin(store, latitude, longitude, radius),
+                    index.getRowsWithin(latitude, longitude, radius));
+
+            int k = 1 + random.nextInt(20);
+            assertNearest(store, latitude, longitude, k, index.getNearestRows(latitude, longitude, k));
+        }
+        assertEquals(0, index.getNearestRows(51.5, -0.1, 0).length);
+        assertEquals(store.size(), index.getNearestRows(51.5, -0.1, store.size() + 10).length);
+    }
+
+    private int[] scanBox(ListingStore store, double minimumLatitude, double minimumLongitude,
+                          double maximumLatitude, double maximumLongitude)
+    {
+        int[] rows = new int[store.size()];
+        int count = 0;
+        for (int row = 0; row < store.size(); row++) {
+            double latitude = store.getLatitude(row);
+            double longitude = store.getLongitude(row);
+            if (latitude >= minimumLatitude && latitude <= maximumLatitude
+                    && longitude >= minimumLongitude && longitude <= maximumLongitude) {
+                rows[count++] = row;
+            }
+        }
+        return Arrays.copyOf(rows, count);
+    }
+
+    private int[] scanWithin(ListingStore store, double latitude, double longitude, double radius)
+    {
+        int[] rows = new int[store.size()];
+        int count = 0;
+        for (int row = 0; row < store.size(); row++) {
+            if (distance(store, row, latitude, longitude) <= radius) {
+                rows[count++] = row;
+            }
+        }
+        return Arrays.copyOf(rows, count);
+    }
+
+    /**
+     * Checks that the rows found are the k nearest, nearest first, by comparing their
+     * distances with the k smallest distances of every row
+     */
+    private void assertNearest(ListingStore store, double latitude, double longitude, int k, int[] nearest)
+    {
+        double[] distances = new double[store.size()];
+        for (int row = 0; row < store.size(); row++) {
+            distances[row] = distance(store, row, latitude, longitude);
+        }
+        Arrays.sort(distances);
+
+        assertEquals(Math.min(k, store.size()), nearest.length);
+        for (int i = 0; i < nearest.length; i++) {
+            assertEquals(distances[i], distance(store, nearest[i], latitude, longitude), 1e-9);
+        }
+        assertEquals(nearest.length, Arrays.stream(nearest).distinct().count());
+    }
+
+    private double distance(ListingStore store, int row, double latitude, double longitude)
+    {
+        return SpatialIndex.getDistance(latitude, longitude, store.getLatitude(row), store.getLongitude(row));
+    }
+
+    private void addRows(ListingStore store, int count)
+    {
+        for (int i = 0; i < count; i++) {
+            double latitude = 51.3 + random.nextDouble() * 0.4;
+            double longitude = -0.5 + random.nextDouble() * 0.8;
+            // a few rows well away from the rest
+            if (random.nextInt(500) == 0) {
+                latitude += random.nextDouble() * 2;
+                longitude += random.nextDouble() * 2;
+            }
+            rows.setLocation(latitude, longitude).addTo(store);
+        }
+    }
+}
@@ -18,7 +18,8 @@ public enum StatisticType
     MOST_EXPENSIVE_BOROUGH("Most expensive borough"),
     HOST_WITH_MOST_INCOME("Host with most rental income"),
     HOST_IN_MOST_BOROUGHS("Host who owns properties in most boroughs"),
-    HOST_WITH_MOST_PRIV_AVAILABLE("Host with most private rooms available per annum");
+    HOST_WITH_MOST_PRIV_AVAILABLE("Host with most private rooms available per annum"),
+    RECENTLY_REVIEWED("Properties reviewed in the last year of the data");
     
     /**
      * The constructor of enum StatisticType
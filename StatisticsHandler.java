@@ -5,6 +5,7 @@ import java.util.Map;
 import java.util.HashSet;
 import java.util.*;
 import java.lang.Double;
+import java.time.LocalDate;
 
 import javafx.scene.control.ChoiceBox;
 
@@ -15,16 +16,26 @@ import javafx.scene.control.ChoiceBox;
  * A StatisticsHandler contains functional logic that acts as a helper class, which is called
  * from StatisticsPanelController objects. It deals with returning the relevant statistics
  * in String format, according to the listings available after being filtered in several ways.
+ *
+ * The dates of last reviews are compared as epoch days. The "reviewedFrom" and "reviewedTo"
+ * filters hold the first and last epoch day a property's last review may fall on, where
+ * ListingFilter.UNSET leaves that end of the range open. Properties which have never been
+ * reviewed are not counted once either end is set.
  * 
  * @author Ubayd Khan (k20044237), Mohammed Chowdhury (k21074018), Omar Ahmad (k210524117), Muhammad Beg (k21057641)
  * @version 30.03.2022
  */
 public class StatisticsHandler
 {
+    // properties last reviewed within this many days of the latest review count as recently reviewed
+    private static final int RECENT_REVIEW_DAYS = 365;
+
+    // the filter every statistic starts with, before the user picks any thresholds
+    public static final ListingFilter DEFAULT_FILTER = ListingFilter.ALL.withMinimumNights(0).withMinimumReviews(0.0);
+
+    // the thresholds and review dates are held by the model's snapshot, and the price range by the PriceRangeHandler
     private Model model;
     
-    private HashMap<String, Double> filters = new HashMap<>();
-    
     /**
      * The constructor of class StatisticsHandler which initalises the default filter settings
      * @param model The model object of the application
@@ -32,57 +43,122 @@ public class StatisticsHandler
     public StatisticsHandler(Model model)
     {
        this.model = model;
-       initFilters(new String[] {"minimumNights", "minimumReviews"});
     }
     
     /**
-     * Creates entries within the filters hash map and defaults its value to 0.0
-     * @param keys The keys that will be stored within filters
+     * Sets one of the filters by name, which is one of "minimumNights", "minimumReviews",
+     * "reviewedFrom" and "reviewedTo". Any other name is ignored. A review date set to
+     * ListingFilter.UNSET is no longer limited.
+     * @param key The name of the filter to be updated
+     * @param value The value of what the filter will be updated to
      */
-    private void initFilters(String[] keys) {
-        for (String key : keys) {
-            filters.put(key, 0.0);
+    public void setFilter(String key, double value) {
+        switch (key) {
+            case "minimumNights":
+                model.updateStatisticsFilter(filter -> filter.withMinimumNights((int) value));
+                break;
+            case "minimumReviews":
+                model.updateStatisticsFilter(filter -> filter.withMinimumReviews(value));
+                break;
+            case "reviewedFrom":
+                model.updateStatisticsFilter(filter -> filter.withReviewDateRange((int) value, filter.getReviewedTo()));
+                break;
+            case "reviewedTo":
+                model.updateStatisticsFilter(filter -> filter.withReviewDateRange(filter.getReviewedFrom(), (int) value));
+                break;
+            default:
+                return;
         }
+        model.getEventBus().publish(ModelChange.THRESHOLDS);
     }
-    
+
     /**
-     * Sets the value of an entry within the filters hash map according to the value passed
-     * into the method
-     * @param key The key of the entry to be updated
-     * @param value The value of what the entry will be updated to
+     * Only counts properties whose last review falls within a range of dates
+     * @param from The first date, or null for no limit
+     * @param to The last date, or null for no limit
      */
-    public void setFilter(String key, double value) {
-        filters.replace(key, value);
+    public void setReviewDateRange(LocalDate from, LocalDate to) {
+        setFilter("reviewedFrom", from == null ? ListingFilter.UNSET : from.toEpochDay());
+        setFilter("reviewedTo", to == null ? ListingFilter.UNSET : to.toEpochDay());
     }
 
     /**
-     * @return Hashmap associating filter name with filter value.
+     * @return Hashmap associating filter name with filter value, leaving out review dates which are not set.
      */
     public HashMap<String, Double> getFilters() {
+        ListingFilter filter = model.getSnapshot().getStatisticsFilter();
+        HashMap<String, Double> filters = new HashMap<>();
+        filters.put("minimumNights", (double) filter.getMinimumNights());
+        filters.put("minimumReviews", filter.getMinimumReviews());
+        if (filter.getReviewedFrom() != ListingFilter.UNSET) {
+            filters.put("reviewedFrom", (double) filter.getReviewedFrom());
+        }
+        if (filter.getReviewedTo() != ListingFilter.UNSET) {
+            filters.put("reviewedTo", (double) filter.getReviewedTo());
+        }
         return filters;
     }
 
     /**
-     * Gets an array list of listings which fit the filters criteria and is in price range
-     * @return An array list of listings which fit the filters criteria and is in price range
+     * @return The filter the statistics are computed over, with the price range of the PriceRangeHandler
      */
-    private ArrayList<AirbnbListing> getListings() {
-        //ArrayList<AirbnbListing> listings = model.getPriceRangeHandler().getListingsInPriceRange();
-        ArrayList<AirbnbListing> listings = new ArrayList<>();
-        
-        for (AirbnbListing listing : model.getPriceRangeHandler().getListingsInPriceRange()) {
-            if (listing.getMinimumNights() <= filters.get("minimumNights").intValue()) {
-                continue;
-            }
-            
-            if (listing.getNumberOfReviews() <= filters.get("minimumReviews")) {
-                continue;
-            }
-            
-            listings.add(listing);
+    public ListingFilter getListingFilter() {
+        return getListingFilter(model.getSnapshot());
+    }
+
+    /**
+     * @param snapshot The snapshot of the model to be read
+     * @return The filter of the snapshot's statistics, with the snapshot's price range
+     */
+    private static ListingFilter getListingFilter(ModelSnapshot snapshot) {
+        return snapshot.getStatisticsFilter().withPriceRangeOf(snapshot.getPriceFilter());
+    }
+
+    /**
+     * Gets the rows of a snapshot which fit the filters criteria and are in price range. The rows
+     * are found by the model's FilterEngine, so they are only worked out again once a filter changes.
+     * Each statistic reads the snapshot once, so its rows, filters and store all agree.
+     * @param snapshot The snapshot of the model to be read
+     * @return A bitmap of the rows which fit the filters criteria and are in price range
+     */
+    private RowBitmap getRowBitmap(ModelSnapshot snapshot) {
+        return model.getFilterEngine().getRows(snapshot, getListingFilter(snapshot));
+    }
+    
+    /**
+     * Gets the rows of a snapshot which fit the filters criteria, are in price range and are of a room type
+     * @param snapshot The snapshot of the model to be read
+     * @param roomType The room type, e.g. "Private room"
+     * @return A bitmap of the matching rows
+     */
+    private RowBitmap getRowBitmap(ModelSnapshot snapshot, String roomType) {
+        int ordinal = snapshot.getListingStore().getRoomTypes().getCode(roomType);
+        if (ordinal == ListingFilter.ANY) {
+            return new RowBitmap();
         }
-        
-        return listings;
+        return model.getFilterEngine().getRows(snapshot, getListingFilter(snapshot).withRoomType(ordinal));
+    }
+    
+    /**
+     * Gets the indices of the rows of a snapshot which fit the filters criteria and are in price range
+     * @param snapshot The snapshot of the model to be read
+     * @return The indices of the rows which fit the filters criteria and are in price range, in ascending order
+     */
+    private int[] getRows(ModelSnapshot snapshot) {
+        return getRowBitmap(snapshot).toArray();
+    }
+    
+    /**
+     * @param snapshot The snapshot of the model to be read
+     * @return The model's HostIndex if it indexes the snapshot's store, or else a new index of that store
+     */
+    private HostIndex getHostIndex(ModelSnapshot snapshot) {
+        HostIndex hostIndex = model.getHostIndex();
+        if (hostIndex.getListingStore() == snapshot.getListingStore()) {
+            return hostIndex;
+        }
+        // the model has moved on to another data set since the snapshot was read
+        return new HostIndex(snapshot.getListingStore());
     }
     
     /**
@@ -105,6 +181,8 @@ public class StatisticsHandler
                 return getHostInMostBoroughs();
             case HOST_WITH_MOST_PRIV_AVAILABLE:
                 return getHostWithMostPrivRoomsAvailable();
+            case RECENTLY_REVIEWED:
+                return getNumberOfRecentlyReviewedProperties();
             default:
                 return null;
         }
@@ -115,12 +193,20 @@ public class StatisticsHandler
      * @return The string value of the average number of reviews per property
      */
     public String getAverageNumberOfReviewsPerProperty() {
+        ModelSnapshot snapshot = model.getSnapshot();
+        ListingStore store = snapshot.getListingStore();
+        RowBitmap rows = getRowBitmap(snapshot);
         int total = 0;
         
-        for (AirbnbListing listing : getListings()) {
-            total += listing.getNumberOfReviews();
+        if (rows.isEmpty()) {
+            return Double.toString(0.0);
+        }
+        
+        PrimitiveIterator.OfInt iterator = rows.iterator();
+        while (iterator.hasNext()) {
+            total += store.getNumberOfReviews(iterator.nextInt());
         }
-        double average = total / getListings().size();
+        double average = total / rows.getCardinality();
         
         return Double.toString(average);
     }
@@ -130,20 +216,31 @@ public class StatisticsHandler
      * @return The number of available properties
      */
     public String getNumberOfAvailableProperties() {
-        int count = getListings().size();
+        int count = getRowBitmap(model.getSnapshot()).getCardinality();
         
         return Integer.toString(count);
     }
     
     /**
-     * Counts and returns the total number of entire home/apt properties
-     * @return The number of entire home and apartments
+     * Counts the properties last reviewed within a year of the latest review in the data set.
+     * The data set is a scrape from the past, so the year is measured back from its latest review
+     * rather than from today.
+     * @return The number of recently reviewed properties
      */
-    public String getNumberOfEntireHomeAndApartments() {
+    public String getNumberOfRecentlyReviewedProperties() {
+        ModelSnapshot snapshot = model.getSnapshot();
+        ListingStore store = snapshot.getListingStore();
+        PrimitiveIterator.OfInt rows = getRowBitmap(snapshot).iterator();
+        int latestReviewDay = getLatestReviewDay(store, snapshot.getSize());
         int count = 0;
         
-        for (AirbnbListing listing : getListings()) {
-            if (listing.getRoom_type().equals("Entire home/apt")) {
+        if (latestReviewDay == ListingStore.NO_REVIEW) {
+            return Integer.toString(0);
+        }
+        
+        int since = latestReviewDay - RECENT_REVIEW_DAYS;
+        while (rows.hasNext()) {
+            if (store.getLastReviewDay(rows.nextInt()) > since) {
                 count += 1;
             }
         }
@@ -151,12 +248,26 @@ public class StatisticsHandler
         return Integer.toString(count);
     }
     
+    /**
+     * Counts and returns the total number of entire home/apt properties
+     * @return The number of entire home and apartments
+     */
+    public String getNumberOfEntireHomeAndApartments() {
+        int count = getRowBitmap(model.getSnapshot(), "Entire home/apt").getCardinality();
+        
+        return Integer.toString(count);
+    }
+    
     /**
      * Gets most expensive borough by totalling the prices of all properties within each borough
      * @return The most expensive borough
      */
     public String getMostExpensiveBorough() {
-        HashMap<String, Integer> boroughPrices = boroughPrices = getBoroughPrices();
+        HashMap<String, Integer> boroughPrices = boroughPrices = getBoroughPrices(model.getSnapshot());
+
+        if (boroughPrices.isEmpty()) {
+            return "";
+        }
 
         //less operations with lambda 
         int mostExpensiveBoroughPrice = Collections.max(boroughPrices.values());
@@ -176,21 +287,11 @@ public class StatisticsHandler
      * @return The name of the host with the most income
      */
     public String getHostWithMostIncome() {
-        HashMap<String, Integer> hostAnnualIncomes = getHostAnnualIncomes();
-
-        //less operations with lambda 
-        int hostWithMostAnnualIncomeValue = Collections.max(hostAnnualIncomes.values());
-        String hostWithMostAnnualIncome = "";
-        
-        for (Map.Entry<String, Integer> entry : hostAnnualIncomes.entrySet()) {
-            if (entry.getValue() == hostWithMostAnnualIncomeValue) {
-                hostWithMostAnnualIncome = entry.getKey();
-            }
-        }
-
-        String hostName = getHostNameFromId(hostWithMostAnnualIncome);
+        ModelSnapshot snapshot = model.getSnapshot();
+        HostIndex hostIndex = getHostIndex(snapshot);
+        int host = getHostWithLargestTotal(getHostAnnualIncomes(snapshot, hostIndex));
         
-        return hostName;
+        return host == -1 ? "" : hostIndex.getHostName(host);
     }
     
     /**
@@ -199,48 +300,54 @@ public class StatisticsHandler
      */
     public String getHostInMostBoroughs() {
         //The number of boroughs each host owns a property in.
-        HashMap<String, HashSet<String>> hostsBoroughs = getHostsBoroughs();
-        String hostInMostBoroughs = "";
-        int hostInMostBoroughsValue = 0;
-        
+        ModelSnapshot snapshot = model.getSnapshot();
+        HostIndex hostIndex = getHostIndex(snapshot);
+        int host = getHostWithLargestTotal(getHostsBoroughCounts(snapshot, hostIndex));
         
-        for (Map.Entry<String, HashSet<String>> entry : hostsBoroughs.entrySet()){
-            
-            int numberOfBoroughs = entry.getValue().size();
-            
-            if (numberOfBoroughs > hostInMostBoroughsValue) {
-                hostInMostBoroughsValue = numberOfBoroughs;
-                hostInMostBoroughs = entry.getKey();
-            }
-        }
-
-        String hostName = getHostNameFromId(hostInMostBoroughs);
-        
-        return hostName;
+        return host == -1 ? "" : hostIndex.getHostName(host);
     }
     
     /**
-     * Gets a hash map that associates each host with a set of boroughs they own property in
-     * @return A hash map that associates each host with a set of boroughs they own property in
+     * Gets the number of boroughs each host owns property in. The boroughs of the rows are
+     * grouped by host with a counting sort, then each host's distinct boroughs are counted
+     * by marking each borough with the last host seen in it.
+     * @param snapshot The snapshot of the model to be read
+     * @param hostIndex The index of the hosts of the snapshot's store
+     * @return The number of boroughs of each host, indexed by host id
      */
-    private HashMap<String, HashSet<String>> getHostsBoroughs() {
-        HashMap<String, HashSet<String>> hostsBoroughs = 
-                    new HashMap<String, HashSet<String>>();
+    private int[] getHostsBoroughCounts(ModelSnapshot snapshot, HostIndex hostIndex) {
+        ListingStore store = snapshot.getListingStore();
+        int[] rows = getRows(snapshot);
+        int[] hosts = hostIndex.getHosts(rows);
+        int numberOfHosts = hostIndex.getNumberOfHosts();
+        int[] hostsBoroughCounts = new int[numberOfHosts];
         
-        for (AirbnbListing listing : getListings()) {
-            String hostId = listing.getHost_id();
-            String borough = listing.getNeighbourhood();
-            if (hostsBoroughs.containsKey(hostId)){
-                hostsBoroughs.get(hostId).add(borough);
-            }
-            else{
-                HashSet<String> boroughs = new HashSet<>();
-                boroughs.add(borough);
-                hostsBoroughs.put(hostId, boroughs);
+        // the boroughs of host h are at starts[h] up to starts[h + 1]
+        int[] starts = new int[numberOfHosts + 1];
+        for (int host : hosts) {
+            starts[host + 1] += 1;
+        }
+        for (int host = 0; host < numberOfHosts; host++) {
+            starts[host + 1] += starts[host];
+        }
+        int[] boroughs = new int[rows.length];
+        int[] next = Arrays.copyOf(starts, numberOfHosts);
+        for (int i = 0; i < rows.length; i++) {
+            boroughs[next[hosts[i]]++] = store.getNeighbourhoodCode(rows[i]);
+        }
+        
+        int[] lastHostInBorough = new int[store.getNeighbourhoods().size()];
+        Arrays.fill(lastHostInBorough, -1);
+        for (int host = 0; host < numberOfHosts; host++) {
+            for (int i = starts[host]; i < starts[host + 1]; i++) {
+                if (lastHostInBorough[boroughs[i]] != host) {
+                    lastHostInBorough[boroughs[i]] = host;
+                    hostsBoroughCounts[host] += 1;
+                }
             }
-        } 
+        }
         
-        return hostsBoroughs;
+        return hostsBoroughCounts;
     }
     
     /**
@@ -248,44 +355,28 @@ public class StatisticsHandler
      * @return The host who has the highest total availability of properties which are of room type private rooms
      */
     public String getHostWithMostPrivRoomsAvailable() {
-        HashMap<String, Integer> hostsPrivRoomNights = getHostsPrivRoomNights();
-        
-        int hostWithMostPrivRoomNightsValue = Collections.max(hostsPrivRoomNights.values());
-        String hostWithMostPrivRoomNights = "";
+        ModelSnapshot snapshot = model.getSnapshot();
+        HostIndex hostIndex = getHostIndex(snapshot);
+        int host = getHostWithLargestTotal(getHostsPrivRoomNights(snapshot, hostIndex));
         
-        for (Map.Entry<String, Integer> entry : hostsPrivRoomNights.entrySet()) {
-            if (entry.getValue() == hostWithMostPrivRoomNightsValue) {
-                hostWithMostPrivRoomNights = entry.getKey();
-            }
-        }
-
-        String hostName = getHostNameFromId(hostWithMostPrivRoomNights);
-        
-        return hostName;
+        return host == -1 ? "" : hostIndex.getHostName(host);
     }
     
     /**
-     * Gets a hash map that associates host with their number of private room nights
-     * @return A hash map that associates host with their number of private room nights
+     * Gets the number of private room nights of each host
+     * @param snapshot The snapshot of the model to be read
+     * @param hostIndex The index of the hosts of the snapshot's store
+     * @return The number of private room nights of each host, indexed by host id
      */
-    private HashMap<String, Integer> getHostsPrivRoomNights() {
-        HashMap<String, Integer> hostsPrivRoomNights = new HashMap<String, Integer>();
+    private int[] getHostsPrivRoomNights(ModelSnapshot snapshot, HostIndex hostIndex) {
+        ListingStore store = snapshot.getListingStore();
+        int[] rows = getRowBitmap(snapshot, "Private room").toArray();
+        int[] hosts = hostIndex.getHosts(rows);
+        int[] hostsPrivRoomNights = new int[hostIndex.getNumberOfHosts()];
         
-        for (AirbnbListing listing : getListings()) {
-            if (listing.getRoom_type().equals("Private room")){
-                String hostId = listing.getHost_id();
-                int roomAvailability = listing.getAvailability365();
-                Integer hostsNightCount = hostsPrivRoomNights.get(hostId);
-                
-                if (hostsNightCount == null){
-                    hostsPrivRoomNights.put(hostId, roomAvailability);
-                }
-                else{
-                    hostsPrivRoomNights.replace(hostId, hostsNightCount + roomAvailability);    
-                }
-                
-            }   
-        } 
+        for (int i = 0; i < rows.length; i++) {
+            hostsPrivRoomNights[hosts[i]] += store.getAvailability365(rows[i]);
+        }
         
         return hostsPrivRoomNights;
     }
@@ -296,79 +387,97 @@ public class StatisticsHandler
      * @return 
      */
     public int[] getRoomTypeDistribution() {
-        int[] roomTypeDistribution = new int[3];
+        ModelSnapshot snapshot = model.getSnapshot();
         
-        for (AirbnbListing listing : getListings()) {
-            String roomType = listing.getRoom_type();
-            if (roomType.equals("Private room")) {
-                roomTypeDistribution[0] += 1;
-            } else if (roomType.equals("Shared room")) {
-                roomTypeDistribution[1] += 1;
-            } else if (roomType.equals("Entire home/apt")) {
-                roomTypeDistribution[2] += 1;
-            }
+        int[] roomTypeDistribution = new int[3];
+        String[] roomTypes = {"Private room", "Shared room", "Entire home/apt"};
+        for (int i = 0; i < roomTypes.length; i++) {
+            roomTypeDistribution[i] = getRowBitmap(snapshot, roomTypes[i]).getCardinality();
         }
         
         return roomTypeDistribution;
     }
     
     /**
-     * Gets a hash map that associates hosts with their annual incomes where a host's annual income
-     * is the total price of all their properties multiplied by each of their 365 availability 
-     * @return A hash map that associates hosts with their annual incomes
+     * Gets the annual income of each host, where a host's annual income is the total price
+     * of all their properties multiplied by each of their 365 availability 
+     * @param snapshot The snapshot of the model to be read
+     * @param hostIndex The index of the hosts of the snapshot's store
+     * @return The annual income of each host, indexed by host id
      */
-    private HashMap<String, Integer> getHostAnnualIncomes() {
-        HashMap<String, Integer> hostAnnualIncomes = new HashMap<String, Integer>();
+    private int[] getHostAnnualIncomes(ModelSnapshot snapshot, HostIndex hostIndex) {
+        ListingStore store = snapshot.getListingStore();
+        int[] rows = getRows(snapshot);
+        int[] hosts = hostIndex.getHosts(rows);
+        int[] hostAnnualIncomes = new int[hostIndex.getNumberOfHosts()];
         
-         for (AirbnbListing listing : getListings()) {
-            String hostId = listing.getHost_id();
-            int price = listing.getPrice() * listing.getAvailability365();
-            Integer hostAnnualIncome = hostAnnualIncomes.get(hostId);
-            if (hostAnnualIncome == null) {
-                hostAnnualIncomes.put(hostId, price);
-            } else {
-                hostAnnualIncomes.replace(hostId, hostAnnualIncome + price);
-            }
-        }       
+        for (int i = 0; i < rows.length; i++) {
+            hostAnnualIncomes[hosts[i]] += store.getPrice(rows[i]) * store.getAvailability365(rows[i]);
+        }
         
         return hostAnnualIncomes;
     }
     
     /**
      * Gets a hash map that associates boroughs with the total price of all the properties within them
+     * @param snapshot The snapshot of the model to be read
      * @return A hash map that associates boroughs with the total price of all the properties within them
      */
-    private HashMap<String, Integer> getBoroughPrices() {
-        HashMap<String, Integer> boroughPrices = new HashMap<String, Integer>();
+    private HashMap<String, Integer> getBoroughPrices(ModelSnapshot snapshot) {
+        ListingStore store = snapshot.getListingStore();
+        // read the rows first, so every borough they refer to is already counted
+        PrimitiveIterator.OfInt rows = getRowBitmap(snapshot).iterator();
+        int[] totals = new int[store.getNeighbourhoods().size()];
+        boolean[] hasListings = new boolean[totals.length];
         
-         for (AirbnbListing listing : getListings()) {
-            String boroughName = listing.getNeighbourhood();
-            int price = listing.getPrice() * listing.getMinimumNights();
-            Integer boroughPrice = boroughPrices.get(boroughName);
-            if (boroughPrice == null) {
-                boroughPrices.put(boroughName, price);
-            } else {
-                boroughPrices.replace(boroughName, boroughPrice + price);
-            }
+        while (rows.hasNext()) {
+            int row = rows.nextInt();
+            int borough = store.getNeighbourhoodCode(row);
+            totals[borough] += store.getPrice(row) * store.getMinimumNights(row);
+            hasListings[borough] = true;
         }       
         
+        HashMap<String, Integer> boroughPrices = new HashMap<String, Integer>();
+        for (int borough = 0; borough < totals.length; borough++) {
+            if (hasListings[borough]) {
+                boroughPrices.put(store.getNeighbourhoods().getValue(borough), totals[borough]);
+            }
+        }
+        
         return boroughPrices;
     }
     
     /**
-     * Gets the host name from their id
-     * @return The host name from their id
+     * Gets the latest day any of the first rows of a store was last reviewed on, so rows appended
+     * since the snapshot do not move the year of recent reviews
+     * @param store The store of the rows
+     * @param size The number of rows of the store to be read
+     * @return The latest epoch day of a last review, or ListingStore.NO_REVIEW if none was reviewed
+     */
+    private static int getLatestReviewDay(ListingStore store, int size) {
+        int latestReviewDay = ListingStore.NO_REVIEW;
+        for (int row = 0; row < size; row++) {
+            latestReviewDay = Math.max(latestReviewDay, store.getLastReviewDay(row));
+        }
+        return latestReviewDay;
+    }
+
+    /**
+     * Gets the host with the largest total, among the hosts whose listings were counted
+     * @param totals The total of each host, indexed by host id
+     * @return The id of the host with the largest total, or -1 if no host has a total above 0
      */
-    private String getHostNameFromId(String id) {
-        String hostNameFromId = "";
+    private int getHostWithLargestTotal(int[] totals) {
+        int host = -1;
+        int largestTotal = 0;
         
-        for (AirbnbListing listing : getListings()) {
-            String hostId = listing.getHost_id();
-            if (hostId.equals(id)) {
-                hostNameFromId = listing.getHost_name();  
+        for (int i = 0; i < totals.length; i++) {
+            if (totals[i] > largestTotal) {
+                largestTotal = totals[i];
+                host = i;
             }
         }
         
-        return hostNameFromId;
+        return host;
     }
-}
\ No newline at end of file
+}
@@ -1,3 +1,4 @@
+import javafx.application.Platform;
 import javafx.scene.layout.*;
 import javafx.scene.Node;
 import javafx.scene.control.Button;
@@ -17,8 +18,8 @@ import javafx.scene.chart.XYChart;
  *
  * A StatisticsPanelController contains control logic that receives view update requests,
  * and manipulates the model in order to display: A toolbar with several filters (as choiceboxes),
- * a Bar Chart showing one statistic value, and seven other statistic values which  are viewed 
- * from four different sections of a GridPane. These seven stats can be flicked through using 
+ * a Bar Chart showing one statistic value, and eight other statistic values which  are viewed 
+ * from four different sections of a GridPane. These eight stats can be flicked through using 
  * next and back buttons. Objects from this class inherit from Abstract Pane.
  * 
  * @author Ubayd Khan (k20044237), Mohammed Chowdhury (k21074018), Omar Ahmad (k210524117), Muhammad Beg (k21057641)
@@ -108,7 +109,6 @@ public class StatisticsPanelController extends AbstractPanelController
                 public void handle(ActionEvent event) {
                     double value = Double.parseDouble(choiceBox.getChoiceBoxType().getValue());
                     statisticsHandler.setFilter(choiceBox.toString(), value);
-                    update();
                 }
             });
         }
@@ -124,6 +124,10 @@ public class StatisticsPanelController extends AbstractPanelController
         initStatisticBoxes();
         initBarChart();
         updateBarChart();
+        
+        // the statistics are worked out again once for every burst of filter changes
+        model.getEventBus().subscribe(changes -> update(), Platform::runLater,
+                ModelChange.PRICE_RANGE, ModelChange.THRESHOLDS);
     }
     
     /**
@@ -226,6 +230,7 @@ public class StatisticsPanelController extends AbstractPanelController
         inactiveStatistics.add(StatisticType.HOST_WITH_MOST_INCOME);
         inactiveStatistics.add(StatisticType.HOST_IN_MOST_BOROUGHS);
         inactiveStatistics.add(StatisticType.HOST_WITH_MOST_PRIV_AVAILABLE);
+        inactiveStatistics.add(StatisticType.RECENTLY_REVIEWED);
     }
     
     /**
@@ -0,0 +1,106 @@
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This file is part of "Property Hunter"
+ * - a London property viewing application.
+ *
+ * A StringDictionary gives each distinct string of a column a small integer code,
+ * numbered from 0 in the order the strings are first seen. Columns with few distinct
+ * values, such as boroughs and room types, can then store a code per row instead of a
+ * string, and compare rows with an integer comparison instead of String.equals.
+ *
+ * The dictionary also hands out one shared instance of each string, so that a column
+ * which keeps its strings can avoid holding many copies of the same value.
+ *
+ * @author Ubayd Khan (k20044237), Mohammed Chowdhury (k21074018), Omar Ahmad (k210524117), Muhammad Beg (k21057641)
+ * @version 30.03.2022
+ */
+public class StringDictionary
+{
+    private final int capacity;
+    private final ConcurrentHashMap<String, Integer> codes = new ConcurrentHashMap<>();
+    private volatile String[] values = new String[8];
+    private volatile int size;
+
+    /**
+     * Creates an empty dictionary
+     * @param capacity The largest number of distinct strings the dictionary may hold
+     */
+    public StringDictionary(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Gets the code of a string, giving it the next free code if it has not been seen before.
+     * Only one thread may add strings at a time, but any thread may look them up.
+     * @param value The string to be encoded
+     * @return The code of the string
+     */
+    public int encode(String value) {
+        Integer code = codes.get(value);
+        if (code != null) {
+            return code;
+        }
+        if (size == capacity) {
+            throw new IllegalStateException("More than " + capacity + " distinct values in dictionary");
+        }
+
+        String[] current = values;
+        if (size == current.length) {
+            current = Arrays.copyOf(current, current.length * 2);
+        }
+        current[size] = value;
+        values = current;
+        codes.put(value, size);
+        size++;
+        return size - 1;
+    }
+
+    /**
+     * @param value The string to be looked up
+     * @return The code of the string, or -1 if the string is not in the dictionary
+     */
+    public int getCode(String value) {
+        Integer code = codes.get(value);
+        return code == null ? -1 : code;
+    }
+
+    /**
+     * @param code The code to be looked up
+     * @return The string with the given code
+     */
+    public String getValue(int code) {
+        return values[code];
+    }
+
+    /**
+     * Gets the shared instance of a string, adding the string if it has not been seen before
+     * @param value The string to be interned
+     * @return The instance of the string held by the dictionary
+     */
+    public String intern(String value) {
+        return getValue(encode(value));
+    }
+
+    /**
+     * Gets a table which converts the codes of another dictionary into the codes of this
+     * dictionary, adding any strings this dictionary does not have yet
+     * @param other The dictionary whose codes are to be converted
+     * @return The code in this dictionary, indexed by the code in the other dictionary
+     */
+    public int[] translate(StringDictionary other) {
+        int[] translation = new int[other.size()];
+        for (int code = 0; code < translation.length; code++) {
+            translation[code] = encode(other.getValue(code));
+        }
+        return translation;
+    }
+
+    /**
+     * @return The number of distinct strings in the dictionary
+     */
+    public int size() {
+        return size;
+    }
+}
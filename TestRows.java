@@ -0,0 +1,87 @@
+/**
+ * This file is part of "Property Hunter"
+ * - a London property viewing application.
+ *
+ * Builds rows for the tests of the store and its indices. Every field starts with a
+ * plain value, so a test only sets the fields it is about, and each row added takes
+ * the next id. The tests draw their random rows from the same seed, so a failure can
+ * be run again.
+ *
+ * @author Ubayd Khan (k20044237), Mohammed Chowdhury (k21074018), Omar Ahmad (k210524117), Muhammad Beg (k21057641)
+ * @version 30.03.2022
+ */
+public class TestRows
+{
+    // the seed of every test's random rows
+    public static final long SEED = 20220330;
+
+    private String hostId = "host";
+    private String neighbourhood = "Camden";
+    private double latitude = 51.5;
+    private double longitude = -0.1;
+    private String roomType = "Private room";
+    private int price = 100;
+    private int minimumNights = 1;
+    private int numberOfReviews = 1;
+    private String lastReview = "";
+    private int availability365 = 100;
+
+    public TestRows setHostId(String hostId) {
+        this.hostId = hostId;
+        return this;
+    }
+
+    public TestRows setNeighbourhood(String neighbourhood) {
+        this.neighbourhood = neighbourhood;
+        return this;
+    }
+
+    public TestRows setLocation(double latitude, double longitude) {
+        this.latitude = latitude;
+        this.longitude = longitude;
+        return this;
+    }
+
+    public TestRows setRoomType(String roomType) {
+        this.roomType = roomType;
+        return this;
+    }
+
+    public TestRows setPrice(int price) {
+        this.price = price;
+        return this;
+    }
+
+    public TestRows setMinimumNights(int minimumNights) {
+        this.minimumNights = minimumNights;
+        return this;
+    }
+
+    public TestRows setNumberOfReviews(int numberOfReviews) {
+        this.numberOfReviews = numberOfReviews;
+        return this;
+    }
+
+    /**
+     * @param lastReview The date of the last review as yyyy-MM-dd, or an empty string if there is none
+     */
+    public TestRows setLastReview(String lastReview) {
+        this.lastReview = lastReview;
+        return this;
+    }
+
+    public TestRows setAvailability365(int availability365) {
+        this.availability365 = availability365;
+        return this;
+    }
+
+    /**
+     * Appends a row with the current fields to the end of a store
+     * @param store The store the row is added to
+     * @return The index of the new row
+     */
+    public int addTo(ListingStore store) {
+        return store.add("id" + store.size(), "name", hostId, "Host", neighbourhood, latitude, longitude, roomType,
+                price, minimumNights, numberOfReviews, lastReview, 1.0, 1, availability365);
+    }
+}
@@ -1,4 +1,10 @@
 import javafx.scene.layout.Pane;
+import javafx.scene.control.Label;
+import javafx.scene.control.Tooltip;
+
+import javafx.fxml.FXML;
+
+import java.util.List;
 
 /**
  * This file is part of "Property Hunter"
@@ -13,7 +19,24 @@ import javafx.scene.layout.Pane;
  */
 public class WelcomeController extends AbstractPanelController
 {
-    public void update() {}
+    private static final int MAX_REJECTED_ROWS_SHOWN = 5;
+
+    @FXML private Label progressLabel; // shows how many listings have been loaded
+    
+    /**
+     * Shows how far the listings have loaded
+     */
+    public void update() {
+        Model model = getModel();
+        int listings = model.getListingStore().size();
+        
+        if (model.isLoaded()) {
+            progressLabel.setText(listings + " properties loaded");
+        } else {
+            int percentage = (int) (model.getLoadProgress() * 100);
+            progressLabel.setText("Loading properties... " + percentage + "% (" + listings + " so far)");
+        }
+    }
     
     public void init(Pane root) {
         setRoot(root);
@@ -21,5 +44,36 @@ public class WelcomeController extends AbstractPanelController
     
     public void initModel(Model model) {
         setModel(model);
+        update();
+        
+        // hovering over the progress shows how long each phase of loading took
+        Tooltip diagnostics = new Tooltip();
+        diagnostics.setOnShowing(event -> diagnostics.setText(getLoaderDiagnostics()));
+        progressLabel.setTooltip(diagnostics);
+    }
+    
+    /**
+     * @return A description of where the time went while loading the listings
+     */
+    private String getLoaderDiagnostics() {
+        LoaderStats stats = getModel().getLoaderStats();
+        if (stats == null) {
+            return "Still loading";
+        }
+        StringBuilder text = new StringBuilder();
+        text.append(String.format("%d rows in %.0f ms (%.0f rows/s, %.1f MB/s)%n", stats.getRows(),
+                stats.getTotalNanos() / 1e6, stats.getRowsPerSecond(), stats.getBytesPerSecond() / 1e6));
+        for (LoadPhase phase : LoadPhase.values()) {
+            text.append(String.format("%s: %.1f ms%s%n", phase.getKey(), stats.getNanos(phase) / 1e6,
+                    phase.isWallClock() ? "" : " (processor time)"));
+        }
+        text.append(String.format("Allocated: %.1f MB%n", stats.getAllocatedBytes() / 1e6));
+        text.append("Rejected rows: " + stats.getRejectedRows());
+        // only the first few, since a dirty file could have thousands
+        List<RejectedRow> rejected = stats.getQuarantine().getRows();
+        for (RejectedRow row : rejected.subList(0, Math.min(rejected.size(), MAX_REJECTED_ROWS_SHOWN))) {
+            text.append(String.format("%n%s", row));
+        }
+        return text.toString();
     }
 }